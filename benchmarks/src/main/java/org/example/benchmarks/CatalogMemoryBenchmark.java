@@ -0,0 +1,81 @@
+package org.example.benchmarks;
+
+import org.example.core.CompactCatalog;
+import org.example.core.PhoneDataParser;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heap held by a catalog of phones as parsed JSONObjects versus as a {@link CompactCatalog}.
+ *
+ * The phones are variants of the detail page fixture: every phone gets its own name, battery,
+ * announcement date and image URLs, the rest of the spec sheet repeats as it does across a real
+ * catalog. Heap is measured after forced GCs, with only one representation reachable at a time.
+ *
+ * Usage: java -cp benchmarks/target/benchmarks.jar org.example.benchmarks.CatalogMemoryBenchmark [--phones 10000]
+ */
+public class CatalogMemoryBenchmark {
+
+    public static void main(String[] args) {
+        int phones = Integer.parseInt(args.length > 1 && args[0].equals("--phones") ? args[1] : "10000");
+        PrintStream console = System.out;
+        Fixtures.silenceStdout();
+        JSONObject base = PhoneDataParser.parsePhoneDetails(Fixtures.load(Fixtures.DETAIL));
+        console.println("Base phone: " + base.getJSONObject("specifications").length() + " spec categories, "
+                + base.toString().length() + " chars of JSON");
+
+        long before = usedHeap();
+        List<JSONObject> json = new ArrayList<>(phones);
+        for (int i = 0; i < phones; i++) {
+            json.add(variant(base, i));
+        }
+        long jsonBytes = usedHeap() - before;
+        json.clear();
+        json = null;
+
+        before = usedHeap();
+        CompactCatalog catalog = new CompactCatalog();
+        for (int i = 0; i < phones; i++) {
+            catalog.add("Phone_" + i, variant(base, i));
+        }
+        long catalogBytes = usedHeap() - before;
+
+        console.printf("%d phones: JSONObjects %.1f MB, CompactCatalog %.1f MB (estimate %.1f MB), %.1fx smaller%n",
+                phones, mb(jsonBytes), mb(catalogBytes), mb(catalog.estimatedBytes()),
+                (double) jsonBytes / Math.max(1, catalogBytes));
+        console.println(catalog.getStats());
+    }
+
+    /**
+     * The base phone with the fields that differ between real phones changed
+     */
+    static JSONObject variant(JSONObject base, int i) {
+        JSONObject phone = new JSONObject(base.toString());
+        phone.put("name", "Phone " + i);
+        JSONObject specs = phone.getJSONObject("specifications");
+        specs.getJSONObject("Battery").put("Type", "Li-Po " + (3000 + (i % 60) * 50) + " mAh, non-removable");
+        specs.getJSONObject("Launch").put("Announced", (2015 + i % 10) + ", " + (1 + i % 28) + " March");
+        phone.put("images", new JSONArray()
+                .put("https://fdn2.gsmarena.com/vv/pics/phone-" + i + "-1.jpg")
+                .put("https://fdn2.gsmarena.com/vv/pics/phone-" + i + "-2.jpg"));
+        return phone;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static double mb(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hand-built pages under fixtures/ that mirror GSMArena's markup: a detail page, a search results
+ * page, a pictures page and the first page of a brand listing. They are not captures of the live
+ * site, but carry the same kind of page chrome (scripts, brand menu, comments) at a similar size,
+ * so parse costs are close to those of live pages.
+ */
+final class Fixtures {
+    static final String DETAIL = "detail.html";
+    static final String SEARCH = "search.html";
+    static final String PICTURES = "pictures.html";
+    static final String BRAND = "brand.html";
+
+    private Fixtures() {
+    }
+
+    static String load(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing fixture " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The scraper logs progress to System.out while parsing; drop it so printing doesn't dominate the numbers
+     */
+    static void silenceStdout() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.benchmarks;
+
+import org.example.core.ImageUtils;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Image discovery and brand resolution, run for every phone in a batch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageBenchmark {
+    // Phone names from the batch list, covering prefix aliases and the first-word fallback
+    private static final String[] PHONE_NAMES = {
+            "Samsung Galaxy S24 Ultra", "Google Pixel 8 Pro", "iPhone 15 Pro Max", "Xiaomi Redmi Note 13 Pro+ 5G",
+            "OnePlus 12", "Motorola Edge 50 Pro", "CMF by Nothing Phone 1", "iQOO Z9", "Fairphone 5", "Tecno Camon 30"
+    };
+
+    private String picturesHtml;
+    private List<String> pictureUrls;
+
+    @Setup
+    public void setup() {
+        Fixtures.silenceStdout();
+        picturesHtml = Fixtures.load(Fixtures.PICTURES);
+        pictureUrls = new ArrayList<>();
+        for (Element img : Jsoup.parse(picturesHtml).select("img[src]")) {
+            pictureUrls.add(img.attr("src"));
+        }
+    }
+
+    @Benchmark
+    public List<String> extractImagesFromPicturesHtml() {
+        return ImageUtils.extractImagesFromPicturesHtml(picturesHtml);
+    }
+
+    /**
+     * Every image URL on the pictures page through the official-image filter
+     */
+    @Benchmark
+    public void isOfficialProductImage(Blackhole blackhole) {
+        for (String url : pictureUrls) {
+            blackhole.consume(ImageUtils.isOfficialProductImage(url));
+        }
+    }
+
+    @Benchmark
+    public List<String> generateImageUrlsFromPatterns() {
+        return ImageUtils.generateImageUrlsFromPatterns(
+                "https://fdn2.gsmarena.com/vv/bigpic/samsung-galaxy-s24-ultra-5g-sm-s928-stylus.jpg",
+                "samsung_galaxy_s24_ultra-12771", "samsung");
+    }
+
+    @Benchmark
+    public void getBrand(Blackhole blackhole) {
+        for (String name : PHONE_NAMES) {
+            blackhole.consume(ImageUtils.getBrand(name));
+        }
+    }
+}
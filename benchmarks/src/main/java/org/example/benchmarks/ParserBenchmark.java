@@ -0,0 +1,71 @@
+package org.example.benchmarks;
+
+import org.example.core.PhoneDataParser;
+import org.example.core.SearchResultMatcher;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning each kind of GSMArena page into data, one page per operation
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+    private String detailHtml;
+    private String searchHtml;
+    private String brandHtml;
+
+    @Setup
+    public void setup() {
+        Fixtures.silenceStdout();
+        detailHtml = Fixtures.load(Fixtures.DETAIL);
+        searchHtml = Fixtures.load(Fixtures.SEARCH);
+        brandHtml = Fixtures.load(Fixtures.BRAND);
+    }
+
+    /**
+     * Detail page through the default path: stream out the spec sections, then parse those
+     */
+    @Benchmark
+    public JSONObject parsePhoneDetailsStreaming() {
+        return PhoneDataParser.parsePhoneDetails(detailHtml);
+    }
+
+    /**
+     * Detail page parsed whole, as with -Dscraper.parser=dom
+     */
+    @Benchmark
+    public JSONObject parsePhoneDetailsDom() {
+        return PhoneDataParser.parsePhoneDetails(Jsoup.parse(detailHtml));
+    }
+
+    @Benchmark
+    public JSONArray parsePhoneList() {
+        return PhoneDataParser.parsePhoneList(brandHtml);
+    }
+
+    /**
+     * Search page parsed and ranked against the query, as in ScrapePipeline's search stage
+     */
+    @Benchmark
+    public SearchResultMatcher.Match searchBestMatch() {
+        return SearchResultMatcher.bestMatch("Samsung Galaxy S24", Jsoup.parse(searchHtml));
+    }
+}
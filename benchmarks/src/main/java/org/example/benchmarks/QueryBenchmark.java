@@ -0,0 +1,115 @@
+package org.example.benchmarks;
+
+import org.example.core.CompactCatalog;
+import org.example.core.PhoneDataParser;
+import org.example.core.PhoneIndex;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of PhoneQueryServer's queries, answered by {@link PhoneIndex} over a catalog of
+ * variants of the detail page fixture with spread-out chipsets, batteries, displays and RAM
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+    private static final String[] CHIPSETS = {
+            "Qualcomm SM8650-AC Snapdragon 8 Gen 3 (4 nm)",
+            "Mediatek Dimensity 9300 (4 nm)",
+            "Mediatek Dimensity 7200 (4 nm)",
+            "Exynos 2400 (4 nm)",
+            "Apple A17 Pro (3 nm)",
+            "Google Tensor G3 (4 nm)",
+            "Unisoc T606 (12 nm)"};
+
+    @Param({"10000"})
+    public int phones;
+
+    private PhoneIndex index;
+    private PhoneIndex.Query word;
+    private PhoneIndex.Query fieldWordRangeSorted;
+    private PhoneIndex.Query rangeSortedTop10;
+    private PhoneIndex.Query allByName;
+
+    @Setup
+    public void setup() {
+        Fixtures.silenceStdout();
+        JSONObject base = PhoneDataParser.parsePhoneDetails(Fixtures.load(Fixtures.DETAIL));
+        CompactCatalog catalog = new CompactCatalog();
+        for (int i = 0; i < phones; i++) {
+            JSONObject phone = CatalogMemoryBenchmark.variant(base, i);
+            phone.put("batsize-hl", String.valueOf(3000 + (i % 60) * 50));
+            phone.put("displaysize-hl", (5.8 + (i % 13) * 0.1) + "\"");
+            phone.put("ramsize-hl", String.valueOf(4 << (i % 3)));
+            phone.getJSONObject("specifications").getJSONObject("Platform").put("Chipset", CHIPSETS[i % CHIPSETS.length]);
+            catalog.add("Phone_" + i, phone);
+        }
+        index = new PhoneIndex(catalog);
+
+        word = new PhoneIndex.Query();
+        word.words.add("dimensity");
+
+        fieldWordRangeSorted = new PhoneIndex.Query().range(PhoneIndex.Numeric.BATTERY, 5000, Float.POSITIVE_INFINITY);
+        fieldWordRangeSorted.fieldWords.add(new String[]{"Platform/Chipset", "dimensity"});
+        fieldWordRangeSorted.sortBy = PhoneIndex.Numeric.DISPLAY;
+        fieldWordRangeSorted.descending = true;
+        fieldWordRangeSorted.limit = 10;
+
+        rangeSortedTop10 = new PhoneIndex.Query().range(PhoneIndex.Numeric.RAM, 8, 16);
+        rangeSortedTop10.sortBy = PhoneIndex.Numeric.BATTERY;
+        rangeSortedTop10.descending = true;
+        rangeSortedTop10.limit = 10;
+
+        allByName = new PhoneIndex.Query();
+        allByName.sortByName = true;
+        allByName.limit = 0;
+    }
+
+    /**
+     * q=dimensity: one posting list from the all-fields word index
+     */
+    @Benchmark
+    public PhoneIndex.Result word() {
+        return index.search(word);
+    }
+
+    /**
+     * where=Platform/Chipset:dimensity&battery=5000..&sort=display&order=desc&limit=10
+     */
+    @Benchmark
+    public PhoneIndex.Result fieldWordRangeSorted() {
+        return index.search(fieldWordRangeSorted);
+    }
+
+    /**
+     * ram=8..16&sort=battery&order=desc&limit=10: range index, then the bounded heap
+     */
+    @Benchmark
+    public PhoneIndex.Result rangeSortedTop10() {
+        return index.search(rangeSortedTop10);
+    }
+
+    /**
+     * sort=name&limit=0: every phone, fully sorted, as the worst case
+     */
+    @Benchmark
+    public PhoneIndex.Result allByName() {
+        return index.search(allByName);
+    }
+}
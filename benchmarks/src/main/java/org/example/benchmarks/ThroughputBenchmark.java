@@ -0,0 +1,273 @@
+package org.example.benchmarks;
+
+import org.example.BatchScraper;
+import org.example.core.AdaptiveThrottle;
+import org.example.core.OxylabsClient;
+import org.example.core.OxylabsStandInServer;
+import org.example.core.ScrapeMetrics;
+import org.example.core.ScrapePipeline;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end batch throughput: the full ScrapePipeline (search, detail parsing, pictures,
+ * probing, image downloads, JSON writes) against {@link OxylabsStandInServer} with injected
+ * latency, swept over catalog sizes and concurrency levels.
+ *
+ * Each run reports phones/s, p50/p99/max per-phone latency, peak heap and Oxylabs calls per
+ * phone. All runs are written to a JSON results file so throughput can be compared across releases.
+ *
+ * Usage: java -cp benchmarks/target/benchmarks.jar org.example.benchmarks.ThroughputBenchmark
+ *     [--sizes 55,1000,10000] [--concurrency 4,16,64] [--oxylabsLatency 50,250] [--cdnLatency 10,50]
+ *     [--errorRate 0] [--imageKB 48] [--jobDelayMs 200,3000] [--out throughput-results.json]
+ * Latencies are median,p99 in milliseconds; job delays are the min,max time a push-pull job stays pending.
+ * The first 55 phones are batch mode's own list.
+ */
+public class ThroughputBenchmark {
+
+    /**
+     * Outcome of one catalog size at one concurrency level
+     */
+    static class Run {
+        int phones;
+        int concurrency;
+        int succeeded;
+        double seconds;
+        double phonesPerSecond;
+        double p50Ms;
+        double p99Ms;
+        double maxMs;
+        double peakHeapMb;
+        double oxylabsCallsPerPhone;
+
+        JSONObject toJson() {
+            return new JSONObject()
+                    .put("phones", phones)
+                    .put("concurrency", concurrency)
+                    .put("succeeded", succeeded)
+                    .put("seconds", round(seconds))
+                    .put("phonesPerSecond", round(phonesPerSecond))
+                    .put("p50Ms", round(p50Ms))
+                    .put("p99Ms", round(p99Ms))
+                    .put("maxMs", round(maxMs))
+                    .put("peakHeapMb", round(peakHeapMb))
+                    .put("oxylabsCallsPerPhone", round(oxylabsCallsPerPhone));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = intList(option(args, "--sizes", "55,1000,10000"));
+        int[] concurrencies = intList(option(args, "--concurrency", "4,16,64"));
+        int[] oxylabsLatency = intList(option(args, "--oxylabsLatency", "50,250"));
+        int[] cdnLatency = intList(option(args, "--cdnLatency", "10,50"));
+        int[] jobDelay = intList(option(args, "--jobDelayMs", "200,3000"));
+        double errorRate = Double.parseDouble(option(args, "--errorRate", "0"));
+        Path out = Paths.get(option(args, "--out", "throughput-results.json"));
+
+        // Every run starts cold: no response cache, resolution index, change detection or learned image patterns
+        Path work = Files.createTempDirectory("throughput-benchmark");
+        System.setProperty("scraper.cache.enabled", "false");
+        System.setProperty("scraper.resolution.enabled", "false");
+        System.setProperty("scraper.changeDetection", "false");
+        System.setProperty("scraper.images.patternCache", work.resolve("image-patterns.tsv").toString());
+        System.setProperty("scraper.standin.imageKB", option(args, "--imageKB", "48"));
+
+        OxylabsStandInServer.Profile oxylabsProfile = profile(oxylabsLatency, errorRate);
+        OxylabsStandInServer.Profile cdnProfile = profile(cdnLatency, errorRate);
+        OxylabsStandInServer standIn = new OxylabsStandInServer(0, null, jobDelay[0], jobDelay[jobDelay.length - 1],
+                oxylabsProfile, cdnProfile);
+        standIn.start();
+        System.setProperty("scraper.oxylabs.realtimeUrl", "http://127.0.0.1:" + standIn.getPort() + "/v1/queries");
+        System.setProperty("scraper.images.cdnUrl", "http://127.0.0.1:" + standIn.getPort() + "/cdn");
+
+        PrintStream console = System.out;
+        JSONArray runs = new JSONArray();
+        console.printf("%8s %6s %10s %9s %9s %9s %10s %12s%n",
+                "phones", "conc", "phones/s", "p50 ms", "p99 ms", "max ms", "heap MB", "oxylabs/ph");
+        try {
+            for (int size : sizes) {
+                for (int concurrency : concurrencies) {
+                    // The pipeline logs every step; keep the console for the results
+                    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                    Run run;
+                    try {
+                        run = run(phoneNames(size), concurrency, work.resolve("run-" + size + "-" + concurrency));
+                    } finally {
+                        System.setOut(console);
+                    }
+                    console.printf("%8d %6d %10.1f %9.0f %9.0f %9.0f %10.0f %12.2f%n", run.phones, run.concurrency,
+                            run.phonesPerSecond, run.p50Ms, run.p99Ms, run.maxMs, run.peakHeapMb, run.oxylabsCallsPerPhone);
+                    runs.put(run.toJson());
+                    writeResults(out, runs, oxylabsLatency, cdnLatency, errorRate);
+                }
+            }
+        } finally {
+            standIn.stop();
+            deleteRecursively(work);
+        }
+        console.println("Results written to " + out);
+        System.exit(0);
+    }
+
+    static Run run(List<String> phoneNames, int concurrency, Path outputDir) throws IOException, InterruptedException {
+        Path phonesDir = Files.createDirectories(outputDir.resolve("phones"));
+        Path imagesDir = Files.createDirectories(outputDir.resolve("images"));
+
+        ScrapePipeline.Config config = new ScrapePipeline.Config();
+        config.searchConcurrency = concurrency;
+        config.detailConcurrency = concurrency;
+        config.picturesConcurrency = concurrency;
+        config.probeConcurrency = concurrency;
+        config.downloadConcurrency = concurrency;
+        config.queueCapacity = 2 * concurrency;
+        config.changeDetection = false;
+
+        // Three Oxylabs stages share one window; the rate is left high so the stand-in's latency is what limits
+        int window = 3 * concurrency;
+        AdaptiveThrottle throttle = new AdaptiveThrottle("Oxylabs", 10_000, 10_000, 10_000, window, window, window);
+        System.setProperty("scraper.oxylabs.workers", String.valueOf(window));
+        OxylabsClient oxylabs = new OxylabsClient("benchmark", "benchmark", throttle, null);
+        ScrapePipeline pipeline = new ScrapePipeline(oxylabs, phonesDir.toString(), imagesDir.toString(), config);
+
+        ScrapeMetrics metrics = ScrapeMetrics.shared();
+        long requestsBefore = metrics.requestCount(ScrapeMetrics.OXYLABS);
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+
+        long start = System.nanoTime();
+        boolean[] outcomes;
+        long[] latencies;
+        // Closed after every point of the sweep, so parse threads do not pile up across runs
+        try (pipeline) {
+            outcomes = pipeline.run(phoneNames);
+            latencies = pipeline.getLatencyNanos().clone();
+        } finally {
+            oxylabs.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Run run = new Run();
+        run.phones = phoneNames.size();
+        run.concurrency = concurrency;
+        for (boolean outcome : outcomes) {
+            run.succeeded += outcome ? 1 : 0;
+        }
+        run.seconds = elapsed / 1e9;
+        run.phonesPerSecond = run.succeeded / run.seconds;
+
+        Arrays.sort(latencies);
+        run.p50Ms = percentile(latencies, 0.50);
+        run.p99Ms = percentile(latencies, 0.99);
+        run.maxMs = latencies.length == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length - 1]) / 1000.0;
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+        run.peakHeapMb = peakHeap / (1024.0 * 1024.0);
+        long requests = metrics.requestCount(ScrapeMetrics.OXYLABS) - requestsBefore;
+        run.oxylabsCallsPerPhone = run.succeeded == 0 ? 0 : (double) requests / run.succeeded;
+
+        deleteRecursively(outputDir);
+        return run;
+    }
+
+    /**
+     * Batch mode's phones first, then generated names the stand-in answers with synthetic pages
+     */
+    static List<String> phoneNames(int size) {
+        List<String> batchPhones = BatchScraper.getPhoneList();
+        List<String> names = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            names.add(i < batchPhones.size() ? batchPhones.get(i) : "Bench Phone " + (i + 1));
+        }
+        return names;
+    }
+
+    private static OxylabsStandInServer.Profile profile(int[] latency, double errorRate) {
+        OxylabsStandInServer.Profile profile = new OxylabsStandInServer.Profile();
+        profile.latencyMs = latency[0];
+        profile.latencyP99Ms = latency.length > 1 ? latency[1] : latency[0];
+        profile.errorRate = errorRate;
+        return profile;
+    }
+
+    /**
+     * Nearest-rank percentile of sorted nanosecond values, in milliseconds
+     */
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p * sorted.length);
+        return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(0, rank - 1)]) / 1000.0;
+    }
+
+    private static void writeResults(Path out, JSONArray runs, int[] oxylabsLatency, int[] cdnLatency, double errorRate) throws IOException {
+        JSONObject results = new JSONObject()
+                .put("java", System.getProperty("java.version"))
+                .put("cpus", Runtime.getRuntime().availableProcessors())
+                .put("maxHeapMb", Runtime.getRuntime().maxMemory() / (1024 * 1024))
+                .put("oxylabsLatencyMs", new JSONObject().put("p50", oxylabsLatency[0]).put("p99", oxylabsLatency[oxylabsLatency.length - 1]))
+                .put("cdnLatencyMs", new JSONObject().put("p50", cdnLatency[0]).put("p99", cdnLatency[cdnLatency.length - 1]))
+                .put("errorRate", errorRate)
+                .put("runs", runs);
+        Path dir = out.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, out.getFileName().toString(), ".tmp");
+        Files.writeString(temp, results.toString(2), StandardCharsets.UTF_8);
+        Files.move(temp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
+    }
+
+    private static int[] intList(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
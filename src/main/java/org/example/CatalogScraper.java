@@ -0,0 +1,105 @@
+package org.example;
+
+import org.example.core.CatalogCrawler;
+import org.example.core.MetricsServer;
+import org.example.core.OxylabsClient;
+import org.example.core.ProgressJournal;
+import org.example.core.ScrapePipeline;
+import org.json.JSONObject;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CatalogScraper {
+    private static final String OUTPUT_DIR = "catalog_data";
+    private static final String PHONES_DIR = OUTPUT_DIR + "/phones";
+    private static final String IMAGES_DIR = OUTPUT_DIR + "/images";
+
+    public static void main(String[] args) {
+        // Create output directories
+        ScraperSupport.createDirectories(OUTPUT_DIR, PHONES_DIR, IMAGES_DIR);
+
+        // Initialize Oxylabs client
+        OxylabsClient oxylabs = new OxylabsClient(ScraperSupport.USERNAME, ScraperSupport.PASSWORD);
+
+        // Optional /metrics endpoint while the crawl runs (-Dscraper.metrics.port)
+        MetricsServer metricsServer = MetricsServer.startFromSystemProperties();
+        try {
+            // Discover every device from the brand listings
+            List<CatalogCrawler.Device> devices = CatalogCrawler.fromSystemProperties(oxylabs).crawl();
+
+            System.out.println("Starting catalog extraction of " + devices.size() + " phones...");
+            scrapeDevices(devices, oxylabs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("❌ Catalog extraction interrupted");
+        } finally {
+            oxylabs.shutdown();
+            if (metricsServer != null) {
+                metricsServer.stop();
+            }
+        }
+    }
+
+    private static void scrapeDevices(List<CatalogCrawler.Device> devices, OxylabsClient oxylabs) throws InterruptedException {
+        ProgressJournal journal = ScraperSupport.openJournal(PHONES_DIR);
+        List<CatalogCrawler.Device> pendingDevices = new ArrayList<>();
+        boolean[] outcomes;
+        try (ScrapePipeline pipeline = new ScrapePipeline(oxylabs, PHONES_DIR, IMAGES_DIR, ScrapePipeline.Config.fromSystemProperties())) {
+            pipeline.setJournal(journal);
+
+            // Devices finished by an earlier run are skipped as long as their output is still there
+            for (CatalogCrawler.Device device : devices) {
+                if (!ScraperSupport.isDone(journal, pipeline, device.getKey())) {
+                    pendingDevices.add(device);
+                }
+            }
+            if (pendingDevices.size() < devices.size()) {
+                System.out.println("Resuming: " + (devices.size() - pendingDevices.size()) + " phones already done, "
+                        + pendingDevices.size() + " left to scrape");
+            }
+
+            // Device URLs are known, so phones go straight to the detail stage
+            outcomes = pipeline.runDevices(pendingDevices);
+        }
+
+        List<String> failedPhones = new ArrayList<>();
+        for (int i = 0; i < pendingDevices.size(); i++) {
+            if (!outcomes[i]) {
+                failedPhones.add(pendingDevices.get(i).getKey());
+            }
+        }
+        int successful = devices.size() - failedPhones.size();
+
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Error closing progress journal: " + e.getMessage());
+            }
+        }
+
+        // Save summary; the phone list itself is too long to repeat here
+        JSONObject summary = new JSONObject();
+        summary.put("total", devices.size());
+        summary.put("successful", successful);
+        summary.put("failed", failedPhones.size());
+        summary.put("failed_phones", failedPhones);
+
+        try (FileWriter file = new FileWriter(PHONES_DIR + "/summary.json")) {
+            file.write(summary.toString(2));
+            System.out.println("\n------------------------------");
+            System.out.println("Summary saved to " + PHONES_DIR + "/summary.json");
+        } catch (IOException e) {
+            System.out.println("Error saving summary: " + e.getMessage());
+        }
+
+        System.out.println("\n------------------------------");
+        System.out.println("Catalog extraction complete!");
+        System.out.println("Total phones: " + devices.size());
+        System.out.println("Successful: " + successful);
+        System.out.println("Failed: " + failedPhones.size());
+    }
+}
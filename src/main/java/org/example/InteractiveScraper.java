@@ -1,21 +1,22 @@
 package org.example;
 
+import org.example.core.CircuitOpenException;
+import org.example.core.ImageProber;
 import org.example.core.ImageUtils;
 import org.example.core.OxylabsClient;
 import org.example.core.PhoneDataParser;
+import org.example.core.SearchResultMatcher;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
 
 import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 public class InteractiveScraper {
     private static final String GSM_ARENA_BASE_URL = "https://www.gsmarena.com";
@@ -24,16 +25,12 @@ public class InteractiveScraper {
     private static final String PHONES_DIR = OUTPUT_DIR + "/phones";
     private static final String IMAGES_DIR = OUTPUT_DIR + "/images";
 
-    // Oxylabs credentials
-    private static final String USERNAME = "curious69_mOxQL";
-    private static final String PASSWORD = "J7J~Q5EOggCk+0rIN";
-    
     public static void main(String[] args) {
         // Create output directories
-        createDirectories();
+        ScraperSupport.createDirectories(OUTPUT_DIR, PHONES_DIR, IMAGES_DIR);
         
         // Initialize Oxylabs client
-        OxylabsClient oxylabs = new OxylabsClient(USERNAME, PASSWORD);
+        OxylabsClient oxylabs = new OxylabsClient(ScraperSupport.USERNAME, ScraperSupport.PASSWORD);
         
         // Get list of phones to scrape interactively
         List<String> phoneNames = getPhoneListInteractively();
@@ -44,7 +41,11 @@ public class InteractiveScraper {
         }
         
         System.out.println("\nStarting extraction of " + phoneNames.size() + " phones...");
-        scrapePhones(phoneNames, oxylabs);
+        try {
+            scrapePhones(phoneNames, oxylabs);
+        } finally {
+            oxylabs.shutdown();
+        }
     }
     
     private static List<String> getPhoneListInteractively() {
@@ -93,8 +94,13 @@ public class InteractiveScraper {
         int failed = 0;
         List<String> successfulPhones = new ArrayList<>();
         List<String> failedPhones = new ArrayList<>();
+        // How long one phone may wait for an open circuit before it counts as failed, -Dscraper.park.maxMinutes
+        long maxParkMs = TimeUnit.MINUTES.toMillis(Long.getLong("scraper.park.maxMinutes", 30L));
+        int parkedIndex = -1;
+        long parkedSince = 0;
         
-        for (String phoneName : phoneNames) {
+        for (int i = 0; i < phoneNames.size(); i++) {
+            String phoneName = phoneNames.get(i);
             try {
                 System.out.println("\n------------------------------");
                 System.out.println("Processing: " + phoneName);
@@ -108,21 +114,36 @@ public class InteractiveScraper {
                     failed++;
                     failedPhones.add(phoneName);
                 }
-                
-                // Don't hammer the server
-                Thread.sleep(5000);
+                // No fixed delay between phones: the client's adaptive throttle paces the requests
                 
             } catch (Exception e) {
+                // Oxylabs is down: wait until the circuit breaker lets requests through and retry the phone
+                CircuitOpenException open = CircuitOpenException.find(e);
+                if (open != null) {
+                    long now = System.currentTimeMillis();
+                    if (parkedIndex != i) {
+                        parkedIndex = i;
+                        parkedSince = now;
+                    }
+                    if (now - parkedSince < maxParkMs) {
+                        System.out.println("⏸️ " + open.getMessage() + ", waiting before retrying " + phoneName);
+                        try {
+                            Thread.sleep(Math.min(open.getRetryAfterMs(), maxParkMs - (now - parkedSince)));
+                            i--;
+                            continue;
+                        } catch (InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                        }
+                    } else {
+                        System.out.println("⏸️ Gave up waiting for the circuit after " + (now - parkedSince) / 60_000 + " min");
+                    }
+                }
+                
+                // Timeouts, 429s and 5xx already cut the client's request rate, so no delay is added here
                 System.out.println("❌ Error processing " + phoneName + ": " + e.getMessage());
                 e.printStackTrace();
                 failed++;
                 failedPhones.add(phoneName);
-                
-                try {
-                    Thread.sleep(10000); // Longer delay after an error
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                }
             }
         }
         
@@ -156,36 +177,28 @@ public class InteractiveScraper {
     }
     
     private static JSONObject scrapePhone(String phoneName, OxylabsClient oxylabs) throws Exception {
-        // First try direct search
-        JSONObject result = searchAndScrapePhone(phoneName, oxylabs);
-        
-        // If direct search fails and it's a special case like "CMF by Nothing", try alternatives
-        if (result == null && phoneName.toLowerCase().contains("cmf by nothing")) {
-            String alternativeName = phoneName.toLowerCase().replace("cmf by nothing", "nothing").trim();
-            System.out.println("Trying alternative search: " + alternativeName);
-            result = searchAndScrapePhone(alternativeName, oxylabs);
-        }
-        
-        return result;
+        // "CMF by Nothing" and similar spellings are rewritten up front, so one search is enough
+        return searchAndScrapePhone(phoneName, oxylabs);
     }
     
     private static JSONObject searchAndScrapePhone(String phoneName, OxylabsClient oxylabs) throws Exception {
         // Step 1: Search for the phone
-        String searchUrl = SEARCH_URL + phoneName.replace(" ", "+");
+        String query = SearchResultMatcher.searchQuery(phoneName);
+        String searchUrl = SEARCH_URL + query.replace(" ", "+");
         String searchResultsHtml = oxylabs.scrape(searchUrl);
         
-        // Step 2: Parse the search results
+        // Step 2: Pick the best of all search results, not just the first
         Document searchResults = Jsoup.parse(searchResultsHtml);
-        Element firstResult = searchResults.selectFirst("div.makers ul li a");
+        SearchResultMatcher.Match bestMatch = SearchResultMatcher.bestMatch(phoneName, searchResults);
         
-        if (firstResult == null) {
+        if (bestMatch == null) {
             System.out.println("❌ No search results found for: " + phoneName);
             return null;
         }
         
-        String phoneUrl = firstResult.attr("href");
+        String phoneUrl = bestMatch.url;
         String fullPhoneUrl = GSM_ARENA_BASE_URL + "/" + phoneUrl;
-        String foundPhoneName = firstResult.select("span").text();
+        String foundPhoneName = bestMatch.name;
         System.out.println("Found phone: " + foundPhoneName);
         System.out.println("URL: " + fullPhoneUrl);
         
@@ -216,25 +229,10 @@ public class InteractiveScraper {
         // If no images found, try pattern-based approach
         if (imageUrls.isEmpty()) {
             String originalImageUrl = phoneDetails.optString("image", "");
-            imageUrls = ImageUtils.generateImageUrlsFromPatterns(originalImageUrl, phoneModelId, brand);
-            
-            // Try each image URL
-            List<String> workingImageUrls = new ArrayList<>();
-            for (String imageUrl : imageUrls) {
-                try {
-                    System.out.println("Trying image URL: " + imageUrl);
-                    if (ImageUtils.isImageAvailable(imageUrl)) {
-                        workingImageUrls.add(imageUrl);
-                        System.out.println("✅ Found working image URL: " + imageUrl);
-                        if (workingImageUrls.size() >= 3) {  // Limit to 3 images
-                            break;
-                        }
-                    }
-                } catch (Exception e) {
-                    System.out.println("Image URL not available: " + imageUrl);
-                }
-            }
+            List<ImageUtils.ImageCandidate> candidates = ImageUtils.generateImageCandidates(originalImageUrl, phoneModelId, brand);
             
+            // Probe all candidates in parallel, keeping their order; limit to 3 images
+            List<String> workingImageUrls = ImageProber.shared().probe(candidates, brand, 3);
             imageUrls = workingImageUrls;
         }
         
@@ -258,14 +256,4 @@ public class InteractiveScraper {
         
         return phoneDetails;
     }
-    
-    private static void createDirectories() {
-        try {
-            Files.createDirectories(Paths.get(PHONES_DIR));
-            Files.createDirectories(Paths.get(IMAGES_DIR));
-            System.out.println("Created output directories in: " + OUTPUT_DIR);
-        } catch (IOException e) {
-            System.err.println("Error creating directories: " + e.getMessage());
-        }
-    }
-}
\ No newline at end of file
+}
@@ -14,7 +14,8 @@ public class Main {
             System.out.println("=== GSM Arena Phone Data Scraper ===");
             System.out.println("1. Interactive Mode - Search for specific phones");
             System.out.println("2. Batch Mode - Process predefined list of phones");
-            System.out.print("\nSelect mode (1 or 2): ");
+            System.out.println("3. Catalog Mode - Crawl every brand listing on GSM Arena");
+            System.out.print("\nSelect mode (1, 2 or 3): ");
             
             String choice = scanner.nextLine().trim();
             
@@ -22,6 +23,8 @@ public class Main {
                 InteractiveScraper.main(args);
             } else if (choice.equals("2")) {
                 BatchScraper.main(args);
+            } else if (choice.equals("3")) {
+                CatalogScraper.main(args);
             } else {
                 System.out.println("Invalid selection. Exiting.");
             }
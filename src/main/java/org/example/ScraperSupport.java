@@ -0,0 +1,61 @@
+package org.example;
+
+import org.example.core.ProgressJournal;
+import org.example.core.ScrapePipeline;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Setup shared by the batch, catalog and interactive scrapers: credentials, output directories
+ * and the progress journal
+ */
+final class ScraperSupport {
+    // Oxylabs credentials
+    static final String USERNAME = "curious69_mOxQL";
+    static final String PASSWORD = "J7J~Q5EOggCk+0rIN";
+
+    private ScraperSupport() {
+    }
+
+    static void createDirectories(String outputDir, String phonesDir, String imagesDir) {
+        try {
+            Files.createDirectories(Paths.get(phonesDir));
+            Files.createDirectories(Paths.get(imagesDir));
+            System.out.println("Created output directories in: " + outputDir);
+        } catch (IOException e) {
+            System.err.println("Error creating directories: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Open the progress journal in phonesDir; -Dscraper.resume=false starts over, -Dscraper.journal=false disables it
+     */
+    static ProgressJournal openJournal(String phonesDir) {
+        if (!Boolean.parseBoolean(System.getProperty("scraper.journal", "true"))) {
+            return null;
+        }
+        try {
+            ProgressJournal journal = new ProgressJournal(Paths.get(phonesDir, "progress.jsonl"));
+            if (!Boolean.parseBoolean(System.getProperty("scraper.resume", "true"))) {
+                journal.reset();
+            }
+            return journal;
+        } catch (IOException e) {
+            System.err.println("Progress journal disabled: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Whether an earlier run completed this phone and its output is still there
+     */
+    static boolean isDone(ProgressJournal journal, ScrapePipeline pipeline, String phoneName) {
+        if (journal == null) {
+            return false;
+        }
+        ProgressJournal.PhoneState state = journal.get(phoneName);
+        return state != null && state.isCompleted() && pipeline.isSaved(state.detail);
+    }
+}
@@ -0,0 +1,30 @@
+package org.example;
+
+import org.example.core.PhoneStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Writes the phones of a PhoneStore out as one pretty-printed JSON file each. The store is opened
+ * read-only, so this is safe to run while a scrape is still appending to it.
+ *
+ * Usage: StoreExporter [storeDir] [outputDir], defaulting to final_data/phones/store and final_data/phones
+ */
+public class StoreExporter {
+    private static final String PHONES_DIR = "final_data/phones";
+
+    public static void main(String[] args) {
+        Path storeDir = Paths.get(args.length > 0 ? args[0] : PHONES_DIR + "/store");
+        Path outputDir = Paths.get(args.length > 1 ? args[1] : PHONES_DIR);
+
+        try (PhoneStore store = PhoneStore.openReadOnly(storeDir)) {
+            int exported = store.export(outputDir);
+            System.out.println("✅ Exported " + exported + " phones from " + storeDir + " to " + outputDir);
+        } catch (IOException e) {
+            System.err.println("Error exporting phone store: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
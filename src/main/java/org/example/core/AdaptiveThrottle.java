@@ -0,0 +1,177 @@
+package org.example.core;
+
+/**
+ * AIMD controller for an upstream: combines a token bucket for the request rate
+ * with a concurrency window that grows while responses are fast and healthy and
+ * shrinks on overload signals (429/5xx, timeouts) or rising latency.
+ */
+public class AdaptiveThrottle {
+    // Latency above this multiple of the baseline is treated as congestion
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double LATENCY_DECREASE_FACTOR = 0.9;
+
+    private final String name;
+    private final RateLimiter rateLimiter;
+    private final double minRate;
+    private final double maxRate;
+    private final double rateStep;
+    private final int minWindow;
+    private final int maxWindow;
+
+    private double window;
+    private int inFlight;
+    private double baselineLatencyMs = -1;
+    private double smoothedLatencyMs = -1;
+    private long successes;
+    private long overloads;
+    // Responses seen since the last decrease; limits cuts to roughly one per window of requests
+    private int responsesSinceDecrease;
+
+    public AdaptiveThrottle(String name, double initialRate, double minRate, double maxRate,
+                            int initialWindow, int minWindow, int maxWindow) {
+        this.name = name;
+        this.minRate = minRate;
+        this.maxRate = Math.max(minRate, maxRate);
+        this.rateStep = Math.max(0.05, this.maxRate / 50.0);
+        this.minWindow = Math.max(1, minWindow);
+        this.maxWindow = Math.max(this.minWindow, maxWindow);
+        this.window = clamp(initialWindow, this.minWindow, this.maxWindow);
+        this.responsesSinceDecrease = (int) this.window;
+        this.rateLimiter = new RateLimiter(clamp(initialRate, minRate, this.maxRate), 1);
+    }
+
+    /**
+     * Read limits from system properties, e.g. -Dscraper.rate=2 -Dscraper.oxylabs.maxRate=10
+     */
+    public static AdaptiveThrottle fromSystemProperties(String name, String prefix) {
+        double initialRate = Double.parseDouble(System.getProperty("scraper.rate", "2.0"));
+        double minRate = Double.parseDouble(System.getProperty(prefix + ".minRate", "0.2"));
+        double maxRate = Double.parseDouble(System.getProperty(prefix + ".maxRate", "10.0"));
+        int initialWindow = Integer.getInteger(prefix + ".window", 2);
+        int minWindow = Integer.getInteger(prefix + ".minWindow", 1);
+        int maxWindow = Integer.getInteger(prefix + ".maxWindow", 16);
+        return new AdaptiveThrottle(name, initialRate, minRate, maxRate, initialWindow, minWindow, maxWindow);
+    }
+
+    /**
+     * Wait for a free slot in the concurrency window and then for a rate permit
+     */
+    public void acquire() throws InterruptedException {
+        synchronized (this) {
+            while (inFlight >= (int) window) {
+                wait();
+            }
+            inFlight++;
+        }
+        try {
+            rateLimiter.acquire();
+        } catch (InterruptedException e) {
+            release();
+            throw e;
+        }
+    }
+
+    /**
+     * Take a slot and a rate permit only if both are free right now, e.g. for optional extra requests
+     */
+    public boolean tryAcquire() {
+        synchronized (this) {
+            if (inFlight >= (int) window) {
+                return false;
+            }
+            inFlight++;
+        }
+        if (!rateLimiter.tryAcquire()) {
+            release();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Release the slot after a healthy response and grow the window additively
+     */
+    public void onSuccess(long latencyMs) {
+        synchronized (this) {
+            successes++;
+            responsesSinceDecrease++;
+            smoothedLatencyMs = smoothedLatencyMs < 0 ? latencyMs : smoothedLatencyMs * 0.8 + latencyMs * 0.2;
+            // Baseline drifts slowly upwards so a one-off fast response does not pin it forever
+            baselineLatencyMs = baselineLatencyMs < 0 ? latencyMs : Math.min(baselineLatencyMs * 1.01, latencyMs);
+
+            if (smoothedLatencyMs > baselineLatencyMs * LATENCY_TOLERANCE) {
+                decrease(LATENCY_DECREASE_FACTOR, "latency " + Math.round(smoothedLatencyMs) + "ms");
+            } else {
+                int before = (int) window;
+                window = Math.min(maxWindow, window + 1.0 / window);
+                rateLimiter.setPermitsPerSecond(Math.min(maxRate, rateLimiter.getPermitsPerSecond() + rateStep));
+                if ((int) window != before) {
+                    System.out.println(name + " throttle increased: " + getStatus());
+                }
+            }
+        }
+        release();
+    }
+
+    /**
+     * Release the slot after a 429/5xx or timeout and cut the window and rate multiplicatively
+     */
+    public void onOverload(String reason) {
+        synchronized (this) {
+            overloads++;
+            responsesSinceDecrease++;
+            decrease(DECREASE_FACTOR, reason);
+        }
+        release();
+    }
+
+    /**
+     * Release the slot without changing the limits (e.g. client-side errors)
+     */
+    public void onIgnore() {
+        release();
+    }
+
+    public synchronized int getWindow() {
+        return (int) window;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public double getRate() {
+        return rateLimiter.getPermitsPerSecond();
+    }
+
+    public synchronized String getStatus() {
+        return String.format("rate=%.2f req/s [%.2f-%.2f], window=%d [%d-%d], inFlight=%d, latency=%dms (baseline %dms), ok=%d, overloads=%d",
+                rateLimiter.getPermitsPerSecond(), minRate, maxRate,
+                (int) window, minWindow, maxWindow, inFlight,
+                Math.round(Math.max(0, smoothedLatencyMs)), Math.round(Math.max(0, baselineLatencyMs)),
+                successes, overloads);
+    }
+
+    private void decrease(double factor, String reason) {
+        if (responsesSinceDecrease < (int) window) {
+            return;
+        }
+        responsesSinceDecrease = 0;
+        int before = (int) window;
+        window = Math.max(minWindow, window * factor);
+        rateLimiter.setPermitsPerSecond(Math.max(minRate, rateLimiter.getPermitsPerSecond() * factor));
+        if ((int) window != before || factor == DECREASE_FACTOR) {
+            System.out.println("⚠️ " + name + " throttle decreased (" + reason + "): " + getStatus());
+        }
+    }
+
+    private synchronized void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
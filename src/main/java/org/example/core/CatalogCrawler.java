@@ -0,0 +1,270 @@
+package org.example.core;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discovers every device in the GSMArena catalog.
+ *
+ * Starts at the brand index (makers.php3), then walks each brand's listing and its pagination.
+ * Pages go through a deduplicating frontier and at most {@code concurrency} are fetched at once;
+ * devices are parsed with {@link PhoneDataParser#parsePhoneList(Document)} and deduplicated by URL.
+ */
+public class CatalogCrawler {
+    private static final String GSM_ARENA_BASE_URL = "https://www.gsmarena.com";
+    private static final String MAKERS_URL = GSM_ARENA_BASE_URL + "/makers.php3";
+
+    /**
+     * A device found in a brand listing
+     */
+    public static class Device {
+        public final String brand;
+        public final String name;
+        // Relative detail page URL, e.g. samsung_galaxy_a55-12824.php
+        public final String url;
+
+        Device(String brand, String name, String url) {
+            this.brand = brand;
+            this.name = name;
+            this.url = url;
+        }
+
+        /**
+         * Key for the journal and output files, e.g. samsung_galaxy_a55-12824; listing names are not
+         * unique (regional variants share them), detail page URLs are
+         */
+        public String getKey() {
+            return url.endsWith(".php") ? url.substring(0, url.length() - ".php".length()) : url;
+        }
+    }
+
+    private static class Page {
+        final String url;
+        // Null for the brand index
+        final String brand;
+        // When the page first hit an open circuit, 0 while it has not
+        long parkedSinceNanos;
+
+        Page(String url, String brand) {
+            this.url = url;
+            this.brand = brand;
+        }
+    }
+
+    private final OxylabsClient oxylabs;
+    private final ExecutorService parseExecutor;
+    private final int concurrency;
+    private final Set<String> brandFilter;
+    private final int maxDevices;
+    private final long maxParkMinutes;
+
+    // Frontier state, guarded by this
+    private final Queue<Page> frontier = new ArrayDeque<>();
+    private final Set<String> seenPages = new HashSet<>();
+    private final Map<String, Device> devices = new LinkedHashMap<>();
+    private int inFlight;
+    private int pagesFetched;
+    private int pagesFailed;
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    /**
+     * @param brandFilter lower-case brand names to crawl, or empty for all brands
+     * @param maxDevices stop discovering after this many devices, 0 for no limit
+     * @param maxParkMinutes how long a page waits on an open circuit before it counts as failed
+     */
+    public CatalogCrawler(OxylabsClient oxylabs, int concurrency, Set<String> brandFilter, int maxDevices,
+                          long maxParkMinutes) {
+        this.oxylabs = oxylabs;
+        this.concurrency = Math.max(1, concurrency);
+        this.brandFilter = brandFilter;
+        this.maxDevices = maxDevices;
+        this.maxParkMinutes = maxParkMinutes;
+        this.parseExecutor = Executors.newFixedThreadPool(this.concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-parse");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Configure from -Dscraper.catalog.concurrency, -Dscraper.catalog.brands=samsung,apple and -Dscraper.catalog.maxDevices;
+     * pages wait on an open circuit for at most -Dscraper.park.maxMinutes, as phones do in {@link ScrapePipeline}
+     */
+    public static CatalogCrawler fromSystemProperties(OxylabsClient oxylabs) {
+        Set<String> brands = new HashSet<>();
+        String brandList = System.getProperty("scraper.catalog.brands", "").trim();
+        if (!brandList.isEmpty()) {
+            for (String brand : Arrays.asList(brandList.toLowerCase().split(","))) {
+                brands.add(brand.trim());
+            }
+        }
+        return new CatalogCrawler(oxylabs,
+                Integer.getInteger("scraper.catalog.concurrency", 4),
+                brands,
+                Integer.getInteger("scraper.catalog.maxDevices", 0),
+                Long.getLong("scraper.park.maxMinutes", 30L));
+    }
+
+    /**
+     * Crawl the catalog and return the devices in discovery order
+     */
+    public List<Device> crawl() throws InterruptedException {
+        System.out.println("Crawling GSMArena catalog" + (brandFilter.isEmpty() ? "" : " for brands " + brandFilter)
+                + " with " + concurrency + " parallel fetches");
+        enqueue(new Page(MAKERS_URL, null));
+        try {
+            finished.await();
+        } finally {
+            parseExecutor.shutdown();
+        }
+
+        synchronized (this) {
+            System.out.println("Catalog crawl done: " + devices.size() + " devices from " + pagesFetched + " pages"
+                    + (pagesFailed > 0 ? " (" + pagesFailed + " pages failed)" : ""));
+            return new ArrayList<>(devices.values());
+        }
+    }
+
+    private synchronized void enqueue(Page page) {
+        if (seenPages.add(page.url)) {
+            frontier.add(page);
+            pump();
+        }
+    }
+
+    /**
+     * Start fetches until the frontier is empty or the concurrency limit is reached
+     */
+    private synchronized void pump() {
+        while (inFlight < concurrency && !frontier.isEmpty() && !limitReached()) {
+            Page page = frontier.poll();
+            inFlight++;
+            // Handled on our own threads, so cached pages completing inline don't recurse into pump()
+            oxylabs.scrapeAsync(page.url).whenCompleteAsync((html, error) -> {
+                CircuitOpenException open = error != null ? CircuitOpenException.find(error) : null;
+                if (open != null && park(page)) {
+                    // Oxylabs is down; keep the page and fetch it once the breaker lets requests through
+                    CompletableFuture.delayedExecutor(open.getRetryAfterMs(), TimeUnit.MILLISECONDS, parseExecutor)
+                            .execute(() -> requeue(page));
+                    return;
+                }
+                boolean success = false;
+                if (open != null) {
+                    System.err.println("Giving up on catalog page " + page.url + ": " + open.getUpstream()
+                            + " unavailable for over " + maxParkMinutes + " min");
+                } else if (error != null) {
+                    System.err.println("Error fetching catalog page " + page.url + ": " + error.getMessage());
+                } else {
+                    try {
+                        if (page.brand == null) {
+                            parseBrandIndex(html);
+                        } else {
+                            parseBrandPage(page, html);
+                        }
+                        success = true;
+                    } catch (Exception e) {
+                        System.err.println("Error parsing catalog page " + page.url + ": " + e.getMessage());
+                    }
+                }
+                pageDone(success);
+            }, parseExecutor);
+        }
+        if (inFlight == 0 && (frontier.isEmpty() || limitReached())) {
+            finished.countDown();
+        }
+    }
+
+    /**
+     * True when the page may wait for the circuit to close again, false once it has waited longer
+     * than the configured maximum and should count as failed
+     */
+    private boolean park(Page page) {
+        long now = System.nanoTime();
+        if (page.parkedSinceNanos == 0) {
+            page.parkedSinceNanos = now;
+        }
+        return now - page.parkedSinceNanos <= TimeUnit.MINUTES.toNanos(maxParkMinutes);
+    }
+
+    private synchronized void requeue(Page page) {
+        inFlight--;
+        frontier.add(page);
+        pump();
+    }
+
+    private synchronized void pageDone(boolean success) {
+        inFlight--;
+        if (success) {
+            pagesFetched++;
+        } else {
+            pagesFailed++;
+        }
+        pump();
+    }
+
+    private boolean limitReached() {
+        return maxDevices > 0 && devices.size() >= maxDevices;
+    }
+
+    private void parseBrandIndex(String html) {
+        Document doc = Jsoup.parse(html);
+        int brands = 0;
+        for (Element link : doc.select("div.st-text a[href]")) {
+            String brand = link.ownText().trim();
+            if (brand.isEmpty() || (!brandFilter.isEmpty() && !brandFilter.contains(brand.toLowerCase()))) {
+                continue;
+            }
+            brands++;
+            enqueue(new Page(absolute(link.attr("href")), brand));
+        }
+        System.out.println("Found " + brands + " brands to crawl");
+    }
+
+    private void parseBrandPage(Page page, String html) {
+        Document doc = Jsoup.parse(html);
+        JSONArray listed = PhoneDataParser.parsePhoneList(doc);
+        int added = 0;
+        synchronized (this) {
+            for (int i = 0; i < listed.length() && !limitReached(); i++) {
+                JSONObject phone = listed.getJSONObject(i);
+                String url = phone.optString("url", "");
+                if (url.isEmpty() || devices.containsKey(url)) {
+                    continue;
+                }
+                devices.put(url, new Device(page.brand, page.brand + " " + phone.optString("name", "").trim(), url));
+                added++;
+            }
+        }
+        System.out.println("Catalog: " + page.brand + " page " + page.url + " -> " + added + " new devices");
+
+        // Pagination links point at the other listing pages of the same brand
+        for (Element link : doc.select("div.nav-pages a[href]")) {
+            enqueue(new Page(absolute(link.attr("href")), page.brand));
+        }
+    }
+
+    private static String absolute(String href) {
+        if (href.startsWith("http")) {
+            return href;
+        }
+        return GSM_ARENA_BASE_URL + "/" + (href.startsWith("/") ? href.substring(1) : href);
+    }
+}
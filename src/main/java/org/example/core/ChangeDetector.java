@@ -0,0 +1,214 @@
+package org.example.core;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Detects phones whose spec sheet has not changed since the last run.
+ *
+ * A SHA-256 fingerprint of the spec sections of the detail page (see {@link StreamingSpecParser})
+ * is stored as {@code <phone>.fingerprint} next to {@code <phone>.json}. When a fresh page has the
+ * same fingerprint, parsing, image work and the file write can all be skipped. Changes that are
+ * written are diffed against the previous JSON and collected into a delta report. With a
+ * {@link PhoneStore} the fingerprint and previous JSON come from the store instead of files.
+ */
+public class ChangeDetector {
+    private final Path phonesDir;
+    // Null when phones are stored as one file each
+    private final PhoneStore store;
+
+    private final List<String> unchanged = new ArrayList<>();
+    private final List<String> added = new ArrayList<>();
+    // phone -> "Category/Field" -> {old, new}
+    private final Map<String, Map<String, String[]>> changed = new TreeMap<>();
+
+    public ChangeDetector(Path phonesDir) {
+        this(phonesDir, null);
+    }
+
+    public ChangeDetector(Path phonesDir, PhoneStore store) {
+        this.phonesDir = phonesDir;
+        this.store = store;
+    }
+
+    public static String fingerprint(String specSections) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest(specSections.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * True when the stored fingerprint matches and the phone's JSON is still on disk
+     */
+    public boolean isUnchanged(String safeName, String fingerprint) {
+        if (store != null) {
+            return fingerprint.equals(store.fingerprint(safeName));
+        }
+        Path stored = phonesDir.resolve(safeName + ".fingerprint");
+        if (!Files.exists(stored) || !Files.exists(phonesDir.resolve(safeName + ".json"))) {
+            return false;
+        }
+        try {
+            return Files.readString(stored, StandardCharsets.UTF_8).trim().equals(fingerprint);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public synchronized void recordUnchanged(String phoneName) {
+        unchanged.add(phoneName);
+    }
+
+    /**
+     * Previously saved details for a phone, or null for a new phone
+     */
+    public JSONObject previous(String safeName) {
+        if (store != null) {
+            try {
+                return store.get(safeName);
+            } catch (Exception e) {
+                System.err.println("Could not read previous data for " + safeName + ": " + e.getMessage());
+                return null;
+            }
+        }
+        Path json = phonesDir.resolve(safeName + ".json");
+        if (!Files.exists(json)) {
+            return null;
+        }
+        try {
+            return new JSONObject(Files.readString(json, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            System.err.println("Could not read previous data for " + safeName + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Store the new fingerprint once the phone's JSON has been written, and note what changed. A null
+     * fingerprint (the phone was saved incomplete) removes the old one, so the next run processes it again.
+     */
+    public void recordSaved(String phoneName, String safeName, String fingerprint, JSONObject previous, JSONObject current) {
+        // The store keeps the fingerprint in the phone's record
+        if (store == null) {
+            try {
+                Path target = phonesDir.resolve(safeName + ".fingerprint");
+                if (fingerprint == null) {
+                    Files.deleteIfExists(target);
+                } else {
+                    Path temp = Files.createTempFile(phonesDir, safeName, ".tmp");
+                    Files.writeString(temp, fingerprint, StandardCharsets.UTF_8);
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                System.err.println("Could not store fingerprint for " + phoneName + ": " + e.getMessage());
+            }
+        }
+
+        synchronized (this) {
+            if (previous == null) {
+                added.add(phoneName);
+                return;
+            }
+            Map<String, String[]> fields = diff(flatten(previous), flatten(current));
+            if (!fields.isEmpty()) {
+                changed.put(phoneName, fields);
+            } else {
+                unchanged.add(phoneName);
+            }
+        }
+    }
+
+    /**
+     * Write delta.json next to the phone files and print a short summary
+     */
+    public synchronized void writeReport() {
+        JSONObject changes = new JSONObject();
+        for (Map.Entry<String, Map<String, String[]>> phone : changed.entrySet()) {
+            JSONObject fields = new JSONObject();
+            for (Map.Entry<String, String[]> field : phone.getValue().entrySet()) {
+                fields.put(field.getKey(), new JSONObject()
+                        .put("old", field.getValue()[0] == null ? JSONObject.NULL : field.getValue()[0])
+                        .put("new", field.getValue()[1] == null ? JSONObject.NULL : field.getValue()[1]));
+            }
+            changes.put(phone.getKey(), fields);
+        }
+
+        JSONObject report = new JSONObject();
+        report.put("unchanged", unchanged.size());
+        report.put("new", added);
+        report.put("changed", changes);
+
+        Path target = phonesDir.resolve("delta.json");
+        try {
+            Files.writeString(target, report.toString(2), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("Error saving delta report: " + e.getMessage());
+        }
+
+        System.out.println("Changes since last run: " + added.size() + " new, " + changed.size() + " changed, "
+                + unchanged.size() + " unchanged (" + target + ")");
+        for (Map.Entry<String, Map<String, String[]>> phone : changed.entrySet()) {
+            System.out.println("  " + phone.getKey() + ": " + String.join(", ", phone.getValue().keySet()));
+        }
+    }
+
+    /**
+     * Spec fields as "Category/Field" plus the top-level string fields; images are left out
+     */
+    private static Map<String, String> flatten(JSONObject details) {
+        Map<String, String> fields = new TreeMap<>();
+        for (String key : details.keySet()) {
+            Object value = details.get(key);
+            if (value instanceof String && !key.equals("image") && !key.equals("highResImage")) {
+                fields.put(key, (String) value);
+            }
+        }
+        JSONObject specs = details.optJSONObject("specifications");
+        if (specs != null) {
+            for (String category : specs.keySet()) {
+                JSONObject categorySpecs = specs.optJSONObject(category);
+                if (categorySpecs == null) {
+                    continue;
+                }
+                for (String title : categorySpecs.keySet()) {
+                    fields.put(category + "/" + title, categorySpecs.optString(title));
+                }
+            }
+        }
+        return fields;
+    }
+
+    private static Map<String, String[]> diff(Map<String, String> before, Map<String, String> after) {
+        Map<String, String[]> fields = new TreeMap<>();
+        for (Map.Entry<String, String> field : after.entrySet()) {
+            String old = before.get(field.getKey());
+            if (!field.getValue().equals(old)) {
+                fields.put(field.getKey(), new String[]{old, field.getValue()});
+            }
+        }
+        for (Map.Entry<String, String> field : before.entrySet()) {
+            if (!after.containsKey(field.getKey())) {
+                fields.put(field.getKey(), new String[]{field.getValue(), null});
+            }
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,213 @@
+package org.example.core;
+
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker for one upstream (Oxylabs or the image CDN).
+ *
+ * While closed, the outcomes of the last requests are kept in a sliding window; once enough of
+ * them failed (timeouts, dropped connections, 5xx) the breaker opens and every caller fails fast
+ * with {@link CircuitOpenException} instead of sitting through full timeouts. After the open
+ * period a few trial requests are let through (half-open): if they succeed the breaker closes,
+ * if one fails it opens again for twice as long, up to a maximum.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String upstream;
+    private final int minCalls;
+    private final double failureRate;
+    private final long openMs;
+    private final long maxOpenMs;
+    private final int trialCalls;
+    private final ScrapeMetrics metrics = ScrapeMetrics.shared();
+
+    // Sliding window of outcomes while closed, true for a failure
+    private final boolean[] outcomes;
+    private int count;
+    private int next;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long currentOpenMs;
+    private long openedAtNanos;
+    private long halfOpenedAtNanos;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    public CircuitBreaker(String upstream, int window, int minCalls, double failureRate, long openMs, long maxOpenMs, int trialCalls) {
+        this.upstream = upstream;
+        this.outcomes = new boolean[Math.max(1, window)];
+        this.minCalls = Math.max(1, Math.min(minCalls, outcomes.length));
+        this.failureRate = failureRate;
+        this.openMs = openMs;
+        this.maxOpenMs = Math.max(openMs, maxOpenMs);
+        this.trialCalls = Math.max(1, trialCalls);
+        this.currentOpenMs = openMs;
+    }
+
+    /**
+     * Read settings such as -Dscraper.oxylabs.breaker.openMs=30000; returns null when {@code prefix}.enabled=false
+     */
+    public static CircuitBreaker fromSystemProperties(String upstream, String prefix) {
+        if (!Boolean.parseBoolean(System.getProperty(prefix + ".enabled", "true"))) {
+            return null;
+        }
+        return new CircuitBreaker(upstream,
+                Integer.getInteger(prefix + ".window", 20),
+                Integer.getInteger(prefix + ".minCalls", 10),
+                Double.parseDouble(System.getProperty(prefix + ".failureRate", "0.5")),
+                Long.getLong(prefix + ".openMs", 30_000L),
+                Long.getLong(prefix + ".maxOpenMs", 300_000L),
+                Integer.getInteger(prefix + ".trialCalls", 2));
+    }
+
+    /**
+     * Call before using the upstream; fails fast while the breaker is open or its trial requests are taken
+     */
+    public synchronized void check() throws CircuitOpenException {
+        long now = System.nanoTime();
+        if (state == State.OPEN) {
+            long remainingMs = currentOpenMs - elapsedMs(openedAtNanos, now);
+            if (remainingMs > 0) {
+                throw new CircuitOpenException(upstream, remainingMs);
+            }
+            transition(State.HALF_OPEN, "trying " + trialCalls + " requests");
+            halfOpenedAtNanos = now;
+            trialsStarted = 0;
+            trialsSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsStarted >= trialCalls) {
+                if (elapsedMs(halfOpenedAtNanos, now) < currentOpenMs) {
+                    throw new CircuitOpenException(upstream, retryAfterMs());
+                }
+                // The trials never reported back, e.g. they were cancelled; let another set through
+                halfOpenedAtNanos = now;
+                trialsStarted = 0;
+            }
+            trialsStarted++;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++trialsSucceeded >= trialCalls) {
+                currentOpenMs = openMs;
+                resetWindow();
+                transition(State.CLOSED, trialsSucceeded + " trial requests succeeded");
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    /**
+     * Record a failure that says the upstream is unhealthy: a timeout, dropped connection or 5xx
+     */
+    public synchronized void onFailure(String reason) {
+        if (state == State.HALF_OPEN) {
+            open(Math.min(maxOpenMs, currentOpenMs * 2), "trial request failed: " + reason);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (count >= minCalls && failures >= failureRate * count) {
+                open(openMs, failures + " of the last " + count + " requests failed, last: " + reason);
+            }
+        }
+        // Stragglers finishing while open say nothing new
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Whether callers would be turned away right now
+     */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && elapsedMs(openedAtNanos, System.nanoTime()) < currentOpenMs;
+    }
+
+    public synchronized boolean isClosed() {
+        return state == State.CLOSED;
+    }
+
+    /**
+     * How long a caller turned away should wait before trying again
+     */
+    public synchronized long retryAfterMs() {
+        long now = System.nanoTime();
+        switch (state) {
+            case OPEN:
+                return Math.max(0, currentOpenMs - elapsedMs(openedAtNanos, now));
+            case HALF_OPEN:
+                // Trials usually answer within seconds; check back soon rather than after a full open period
+                return Math.min(1000, Math.max(0, currentOpenMs - elapsedMs(halfOpenedAtNanos, now)));
+            default:
+                return 0;
+        }
+    }
+
+    public String getUpstream() {
+        return upstream;
+    }
+
+    /**
+     * Whether an error is of a kind breakers count against an upstream: a timeout, a dropped or
+     * refused connection, or a 5xx answer. Anything else (4xx, parse errors, local disk errors)
+     * says nothing about the upstream's health.
+     */
+    public static boolean isUpstreamFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpStatusException) {
+                return ((HttpStatusException) cause).getStatusCode() >= 500;
+            }
+            if (cause instanceof InterruptedIOException || cause instanceof SocketException
+                    || cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void open(long durationMs, String reason) {
+        currentOpenMs = durationMs;
+        openedAtNanos = System.nanoTime();
+        resetWindow();
+        transition(State.OPEN, reason + "; failing fast for " + durationMs / 1000 + " s");
+    }
+
+    private void transition(State newState, String reason) {
+        state = newState;
+        metrics.recordCircuit(upstream, newState.name().toLowerCase());
+        String icon = newState == State.OPEN ? "🔴" : newState == State.HALF_OPEN ? "🟡" : "🟢";
+        System.out.println(icon + " Circuit for " + upstream + " " + newState.name().toLowerCase().replace('_', '-') + " (" + reason + ")");
+    }
+
+    private void record(boolean failure) {
+        if (count == outcomes.length) {
+            failures -= outcomes[next] ? 1 : 0;
+        } else {
+            count++;
+        }
+        outcomes[next] = failure;
+        failures += failure ? 1 : 0;
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void resetWindow() {
+        count = 0;
+        next = 0;
+        failures = 0;
+    }
+
+    private static long elapsedMs(long startNanos, long nowNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nowNanos - startNanos);
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.core;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of calling an upstream whose {@link CircuitBreaker} is open
+ */
+public class CircuitOpenException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final String upstream;
+    private final long retryAfterMs;
+
+    public CircuitOpenException(String upstream, long retryAfterMs) {
+        super("Circuit for " + upstream + " is open, retry in " + Math.max(1, retryAfterMs / 1000) + " s");
+        this.upstream = upstream;
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    public String getUpstream() {
+        return upstream;
+    }
+
+    /**
+     * When the breaker will let a trial request through again
+     */
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+
+    /**
+     * The CircuitOpenException somewhere in a cause chain (e.g. inside a CompletionException), or null
+     */
+    public static CircuitOpenException find(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CircuitOpenException) {
+                return (CircuitOpenException) cause;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,405 @@
+package org.example.core;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Exports the scraped catalog as one column-oriented file for analytics.
+ *
+ * There is one column per normalized spec field (see {@link PhoneSpec}). Numbers are stored as
+ * primitive int or float arrays; strings are dictionary-encoded with a sorted dictionary and an
+ * int code per row. Columns are 8-byte aligned so {@link ColumnarReader} can map each one on its
+ * own. A JSON footer lists every column's offset, length, null count and min/max, plus a change
+ * token per source phone. The next export compares those tokens with the phones on disk and copies
+ * unchanged rows from the previous file's columns, so only new or changed phones are parsed.
+ *
+ * File layout: magic, column data, footer JSON, footer length (int), magic. Little-endian.
+ *
+ * Usage: java org.example.core.ColumnarExporter [phonesDir] [target]
+ */
+public class ColumnarExporter {
+    static final byte[] MAGIC = "GSMCOL01".getBytes(StandardCharsets.US_ASCII);
+    public static final int MISSING_INT = Integer.MIN_VALUE;
+
+    public enum Type {
+        INT,
+        FLOAT,
+        STRING
+    }
+
+    private static class Column {
+        final String name;
+        final Type type;
+        final Function<PhoneSpec, Object> extractor;
+
+        Column(String name, Type type, Function<PhoneSpec, Object> extractor) {
+            this.name = name;
+            this.type = type;
+            this.extractor = extractor;
+        }
+    }
+
+    // Column 0 is the phone's key (its file name); the rest come from the normalized fields
+    private static final List<Column> COLUMNS = List.of(
+            new Column("key", Type.STRING, spec -> null),
+            new Column("name", Type.STRING, spec -> spec.name),
+            new Column("brand", Type.STRING, spec -> spec.brand),
+            new Column("chipset", Type.STRING, spec -> spec.chipset),
+            new Column("chipsetNm", Type.INT, spec -> positive(spec.chipsetNm)),
+            new Column("displayInches", Type.FLOAT, spec -> number(spec.displayInches)),
+            new Column("batteryMah", Type.INT, spec -> positive(spec.batteryMah)),
+            new Column("maxRamGb", Type.FLOAT, spec -> number(spec.getMaxRamGb())),
+            new Column("maxStorageGb", Type.FLOAT, spec -> number(spec.getMaxStorageGb())),
+            new Column("weightGrams", Type.FLOAT, spec -> number(spec.weightGrams)),
+            new Column("releaseYear", Type.INT, spec -> positive(spec.releaseYear)),
+            new Column("releaseMonth", Type.INT, spec -> positive(spec.releaseMonth)),
+            new Column("releaseDay", Type.INT, spec -> positive(spec.releaseDay)));
+
+    private final Path target;
+
+    public ColumnarExporter(Path target) {
+        this.target = target;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path phonesDir = Paths.get(args.length > 0 ? args[0] : "final_data/phones");
+        Path target = Paths.get(args.length > 1 ? args[1] : "final_data/catalog.col");
+        new ColumnarExporter(target).export(phonesDir);
+    }
+
+    /**
+     * Export the phones in phonesDir (or its PhoneStore), reusing unchanged rows from the last export
+     */
+    public void export(Path phonesDir) throws IOException {
+        long start = System.currentTimeMillis();
+        Map<String, String> tokens = new TreeMap<>();
+        PhoneStore store = null;
+        Path storeDir = phonesDir.resolve("store");
+        if (Files.isDirectory(storeDir)) {
+            store = PhoneStore.openReadOnly(storeDir);
+            for (String key : store.keys()) {
+                String fingerprint = store.fingerprint(key);
+                // Without a fingerprint there is no cheap way to tell, so the phone is read again
+                tokens.put(key, fingerprint != null ? "fp:" + fingerprint : "");
+            }
+        } else {
+            tokens.putAll(fileTokens(phonesDir));
+        }
+
+        Map<String, Object[]> rows = new TreeMap<>();
+        int reused = 0;
+        int parsed = 0;
+        int removed = 0;
+        try (ColumnarReader previous = Files.exists(target) ? openPrevious() : null) {
+            Map<String, Integer> previousRows = previous != null ? previousRows(previous) : Map.of();
+            Object[][] previousValues = null;
+            for (Map.Entry<String, String> entry : tokens.entrySet()) {
+                String key = entry.getKey();
+                Integer previousRow = previousRows.get(key);
+                if (previousRow != null && !entry.getValue().isEmpty()
+                        && entry.getValue().equals(previous.sources().get(key))) {
+                    if (previousValues == null) {
+                        previousValues = readColumns(previous);
+                    }
+                    Object[] row = new Object[COLUMNS.size()];
+                    for (int column = 0; column < row.length; column++) {
+                        row[column] = previousValues[column][previousRow];
+                    }
+                    rows.put(key, row);
+                    reused++;
+                    continue;
+                }
+                JSONObject details = store != null ? store.get(key) : readPhone(phonesDir.resolve(key + ".json"));
+                if (details == null) {
+                    continue;
+                }
+                rows.put(key, toRow(key, details));
+                parsed++;
+            }
+            for (String key : previousRows.keySet()) {
+                if (!tokens.containsKey(key)) {
+                    removed++;
+                }
+            }
+        } finally {
+            if (store != null) {
+                store.close();
+            }
+        }
+
+        write(rows, tokens);
+        System.out.println("Columnar export: " + rows.size() + " phones (" + parsed + " parsed, " + reused + " reused, "
+                + removed + " removed) -> " + target + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private ColumnarReader openPrevious() {
+        try {
+            return ColumnarReader.open(target);
+        } catch (Exception e) {
+            System.err.println("Ignoring unreadable previous export " + target + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Change token per phone file: size and modification time, so unchanged files are not opened
+     */
+    private static Map<String, String> fileTokens(Path phonesDir) throws IOException {
+        Map<String, String> tokens = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(phonesDir, "*.json")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.equals("summary.json") || name.equals("delta.json")) {
+                    continue;
+                }
+                tokens.put(name.substring(0, name.length() - ".json".length()),
+                        Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis());
+            }
+        }
+        return tokens;
+    }
+
+    private static JSONObject readPhone(Path file) {
+        try {
+            return new JSONObject(Files.readString(file, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            System.err.println("Skipping unreadable phone file " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Object[] toRow(String key, JSONObject details) {
+        JSONObject normalized = details.optJSONObject("normalized");
+        PhoneSpec spec = normalized != null ? PhoneSpec.fromJson(normalized) : SpecNormalizer.normalize(details);
+        Object[] row = new Object[COLUMNS.size()];
+        row[0] = key;
+        for (int column = 1; column < row.length; column++) {
+            row[column] = COLUMNS.get(column).extractor.apply(spec);
+        }
+        return row;
+    }
+
+    private static Map<String, Integer> previousRows(ColumnarReader previous) throws IOException {
+        Map<String, Integer> rows = new HashMap<>();
+        ColumnarReader.StringColumn keys = previous.strings("key");
+        for (int row = 0; row < previous.rowCount(); row++) {
+            rows.put(keys.get(row), row);
+        }
+        return rows;
+    }
+
+    /**
+     * All cells of the previous export, column by column; columns it lacks read as missing
+     */
+    private static Object[][] readColumns(ColumnarReader previous) throws IOException {
+        Object[][] values = new Object[COLUMNS.size()][previous.rowCount()];
+        List<String> available = previous.columnNames();
+        for (int column = 0; column < COLUMNS.size(); column++) {
+            Column definition = COLUMNS.get(column);
+            if (!available.contains(definition.name) || previous.info(definition.name).type != definition.type) {
+                continue;
+            }
+            Object[] cells = values[column];
+            switch (definition.type) {
+                case INT:
+                    IntBuffer ints = previous.ints(definition.name);
+                    for (int row = 0; row < cells.length; row++) {
+                        int value = ints.get(row);
+                        cells[row] = value == MISSING_INT ? null : value;
+                    }
+                    break;
+                case FLOAT:
+                    FloatBuffer floats = previous.floats(definition.name);
+                    for (int row = 0; row < cells.length; row++) {
+                        float value = floats.get(row);
+                        cells[row] = Float.isNaN(value) ? null : value;
+                    }
+                    break;
+                default:
+                    ColumnarReader.StringColumn strings = previous.strings(definition.name);
+                    for (int row = 0; row < cells.length; row++) {
+                        cells[row] = strings.get(row);
+                    }
+                    break;
+            }
+        }
+        return values;
+    }
+
+    private void write(Map<String, Object[]> rows, Map<String, String> tokens) throws IOException {
+        List<Object[]> ordered = new ArrayList<>(rows.values());
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, "catalog", ".tmp");
+
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = writeFully(out, ByteBuffer.wrap(MAGIC), 0);
+            JSONArray columns = new JSONArray();
+            for (int column = 0; column < COLUMNS.size(); column++) {
+                Column definition = COLUMNS.get(column);
+                position = align(position, 8);
+                JSONObject info = new JSONObject();
+                ByteBuffer data = encode(definition.type, ordered, column, info);
+                info.put("name", definition.name);
+                info.put("type", definition.type.name());
+                info.put("offset", position);
+                info.put("length", data.remaining());
+                columns.put(info);
+                position = writeFully(out, data, position);
+            }
+
+            JSONObject sources = new JSONObject();
+            for (String key : rows.keySet()) {
+                sources.put(key, tokens.get(key));
+            }
+            JSONObject footer = new JSONObject();
+            footer.put("version", 1);
+            footer.put("rows", ordered.size());
+            footer.put("columns", columns);
+            footer.put("sources", sources);
+            byte[] footerBytes = footer.toString().getBytes(StandardCharsets.UTF_8);
+            position = writeFully(out, ByteBuffer.wrap(footerBytes), position);
+            ByteBuffer trailer = ByteBuffer.allocate(4 + MAGIC.length).order(ByteOrder.LITTLE_ENDIAN);
+            trailer.putInt(footerBytes.length).put(MAGIC).flip();
+            writeFully(out, trailer, position);
+            out.force(false);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Encode one column and fill in its null count and min/max
+     */
+    private static ByteBuffer encode(Type type, List<Object[]> rows, int column, JSONObject info) {
+        int nulls = 0;
+        Object min = null;
+        Object max = null;
+        ByteBuffer data;
+        switch (type) {
+            case INT: {
+                data = ByteBuffer.allocate(4 * rows.size()).order(ByteOrder.LITTLE_ENDIAN);
+                for (Object[] row : rows) {
+                    Integer value = (Integer) row[column];
+                    if (value == null) {
+                        nulls++;
+                        data.putInt(MISSING_INT);
+                        continue;
+                    }
+                    data.putInt(value);
+                    min = min == null ? value : Math.min((Integer) min, value);
+                    max = max == null ? value : Math.max((Integer) max, value);
+                }
+                break;
+            }
+            case FLOAT: {
+                data = ByteBuffer.allocate(4 * rows.size()).order(ByteOrder.LITTLE_ENDIAN);
+                for (Object[] row : rows) {
+                    Float value = (Float) row[column];
+                    if (value == null) {
+                        nulls++;
+                        data.putFloat(Float.NaN);
+                        continue;
+                    }
+                    data.putFloat(value);
+                    min = min == null ? value : Math.min((Float) min, value);
+                    max = max == null ? value : Math.max((Float) max, value);
+                }
+                break;
+            }
+            default: {
+                // Sorted dictionary: codes compare like the strings, and min/max are its ends
+                TreeSet<String> distinct = new TreeSet<>();
+                for (Object[] row : rows) {
+                    if (row[column] != null) {
+                        distinct.add((String) row[column]);
+                    }
+                }
+                Map<String, Integer> codes = new HashMap<>();
+                List<byte[]> encoded = new ArrayList<>();
+                int bytesLength = 0;
+                for (String value : distinct) {
+                    codes.put(value, codes.size());
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    encoded.add(bytes);
+                    bytesLength += bytes.length;
+                }
+                int codesStart = align(4 + 4 * (encoded.size() + 1) + bytesLength, 4);
+                data = ByteBuffer.allocate(codesStart + 4 * rows.size()).order(ByteOrder.LITTLE_ENDIAN);
+                data.putInt(encoded.size());
+                int offset = 0;
+                for (byte[] bytes : encoded) {
+                    data.putInt(offset);
+                    offset += bytes.length;
+                }
+                data.putInt(offset);
+                for (byte[] bytes : encoded) {
+                    data.put(bytes);
+                }
+                data.position(codesStart);
+                for (Object[] row : rows) {
+                    if (row[column] == null) {
+                        nulls++;
+                        data.putInt(-1);
+                    } else {
+                        data.putInt(codes.get((String) row[column]));
+                    }
+                }
+                if (!distinct.isEmpty()) {
+                    min = distinct.first();
+                    max = distinct.last();
+                }
+                info.put("dictionarySize", encoded.size());
+                break;
+            }
+        }
+        info.put("nulls", nulls);
+        info.put("min", min != null ? min : JSONObject.NULL);
+        info.put("max", max != null ? max : JSONObject.NULL);
+        data.flip();
+        return data;
+    }
+
+    private static long writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer, position);
+        }
+        return position;
+    }
+
+    static int align(int value, int alignment) {
+        return (value + alignment - 1) / alignment * alignment;
+    }
+
+    private static long align(long value, int alignment) {
+        return (value + alignment - 1) / alignment * alignment;
+    }
+
+    private static Integer positive(int value) {
+        return value > 0 ? value : null;
+    }
+
+    private static Float number(float value) {
+        return Float.isNaN(value) ? null : value;
+    }
+}
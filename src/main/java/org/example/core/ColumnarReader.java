@@ -0,0 +1,217 @@
+package org.example.core;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a columnar catalog written by {@link ColumnarExporter}.
+ *
+ * Only the footer is read on open. A column is memory-mapped on first use, and only its own
+ * region of the file, so scanning one field never touches the others. Missing values are
+ * {@link ColumnarExporter#MISSING_INT}, NaN or string code -1.
+ */
+public class ColumnarReader implements AutoCloseable {
+
+    /**
+     * Footer entry of one column
+     */
+    public static class ColumnInfo {
+        public final String name;
+        public final ColumnarExporter.Type type;
+        public final long offset;
+        public final long length;
+        public final int nulls;
+        // Number or String, null when every value is missing
+        public final Object min;
+        public final Object max;
+
+        ColumnInfo(JSONObject json) {
+            this.name = json.getString("name");
+            this.type = ColumnarExporter.Type.valueOf(json.getString("type"));
+            this.offset = json.getLong("offset");
+            this.length = json.getLong("length");
+            this.nulls = json.getInt("nulls");
+            this.min = json.isNull("min") ? null : json.get("min");
+            this.max = json.isNull("max") ? null : json.get("max");
+        }
+    }
+
+    /**
+     * A dictionary-encoded string column; the dictionary is sorted, so code order is string order
+     */
+    public static class StringColumn {
+        private final ByteBuffer buffer;
+        private final int dictionarySize;
+        private final int bytesStart;
+        private final IntBuffer codes;
+
+        StringColumn(ByteBuffer buffer, int rows) {
+            this.buffer = buffer;
+            this.dictionarySize = buffer.getInt(0);
+            this.bytesStart = 4 + 4 * (dictionarySize + 1);
+            int bytesLength = buffer.getInt(4 + 4 * dictionarySize);
+            int codesStart = ColumnarExporter.align(bytesStart + bytesLength, 4);
+            ByteBuffer codeBytes = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            codeBytes.position(codesStart).limit(codesStart + 4 * rows);
+            this.codes = codeBytes.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+
+        public int dictionarySize() {
+            return dictionarySize;
+        }
+
+        /**
+         * Dictionary code of a row, -1 when missing
+         */
+        public int code(int row) {
+            return codes.get(row);
+        }
+
+        public String value(int code) {
+            int start = buffer.getInt(4 + 4 * code);
+            int end = buffer.getInt(4 + 4 * (code + 1));
+            ByteBuffer bytes = buffer.duplicate();
+            bytes.position(bytesStart + start).limit(bytesStart + end);
+            return StandardCharsets.UTF_8.decode(bytes).toString();
+        }
+
+        /**
+         * Code of a value, or -1 when no row has it; a binary search over the sorted dictionary
+         */
+        public int find(String value) {
+            int low = 0;
+            int high = dictionarySize - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int compare = value(mid).compareTo(value);
+                if (compare < 0) {
+                    low = mid + 1;
+                } else if (compare > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        public String get(int row) {
+            int code = code(row);
+            return code < 0 ? null : value(code);
+        }
+    }
+
+    private final FileChannel channel;
+    private final int rows;
+    private final Map<String, ColumnInfo> columns = new LinkedHashMap<>();
+    private final Map<String, String> sources = new HashMap<>();
+    private final Map<String, MappedByteBuffer> mapped = new HashMap<>();
+
+    private ColumnarReader(FileChannel channel, JSONObject footer) {
+        this.channel = channel;
+        this.rows = footer.getInt("rows");
+        for (Object column : footer.getJSONArray("columns")) {
+            ColumnInfo info = new ColumnInfo((JSONObject) column);
+            columns.put(info.name, info);
+        }
+        JSONObject footerSources = footer.getJSONObject("sources");
+        for (String key : footerSources.keySet()) {
+            sources.put(key, footerSources.getString(key));
+        }
+    }
+
+    public static ColumnarReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            int trailerLength = 4 + ColumnarExporter.MAGIC.length;
+            if (size < ColumnarExporter.MAGIC.length + trailerLength) {
+                throw new IOException("Not a columnar catalog: " + file);
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(trailerLength).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(trailer, size - trailerLength);
+            byte[] magic = new byte[ColumnarExporter.MAGIC.length];
+            trailer.position(4);
+            trailer.get(magic);
+            if (!new String(magic, StandardCharsets.US_ASCII).equals(new String(ColumnarExporter.MAGIC, StandardCharsets.US_ASCII))) {
+                throw new IOException("Not a columnar catalog: " + file);
+            }
+            int footerLength = trailer.getInt(0);
+            ByteBuffer footer = ByteBuffer.allocate(footerLength);
+            channel.read(footer, size - trailerLength - footerLength);
+            return new ColumnarReader(channel, new JSONObject(new String(footer.array(), StandardCharsets.UTF_8)));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int rowCount() {
+        return rows;
+    }
+
+    public List<String> columnNames() {
+        return new ArrayList<>(columns.keySet());
+    }
+
+    public ColumnInfo info(String column) {
+        ColumnInfo info = columns.get(column);
+        if (info == null) {
+            throw new IllegalArgumentException("Unknown column " + column);
+        }
+        return info;
+    }
+
+    public IntBuffer ints(String column) throws IOException {
+        return map(column, ColumnarExporter.Type.INT).asIntBuffer();
+    }
+
+    public FloatBuffer floats(String column) throws IOException {
+        return map(column, ColumnarExporter.Type.FLOAT).asFloatBuffer();
+    }
+
+    public StringColumn strings(String column) throws IOException {
+        return new StringColumn(map(column, ColumnarExporter.Type.STRING), rows);
+    }
+
+    /**
+     * Source change tokens by key, used by the exporter to reuse unchanged rows
+     */
+    Map<String, String> sources() {
+        return sources;
+    }
+
+    private synchronized ByteBuffer map(String column, ColumnarExporter.Type expected) throws IOException {
+        ColumnInfo info = info(column);
+        if (info.type != expected) {
+            throw new IllegalArgumentException("Column " + column + " is " + info.type + ", not " + expected);
+        }
+        MappedByteBuffer buffer = mapped.get(column);
+        if (buffer == null) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, info.offset, info.length);
+            mapped.put(column, buffer);
+        }
+        return buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void close() throws IOException {
+        mapped.clear();
+        channel.close();
+    }
+}
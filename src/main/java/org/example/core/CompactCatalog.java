@@ -0,0 +1,372 @@
+package org.example.core;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The whole phone catalog in memory, dictionary-encoded.
+ *
+ * Field names ("Network/Technology", or "name" for top-level fields) and spec values are interned
+ * into {@link SpecDictionary} ids, and each phone is a single int array of (field id, value id)
+ * pairs sorted by field id. Lookups binary-search that array and equality filters compare ints,
+ * so no per-phone strings are kept. The derived "normalized" object is not stored; it is rebuilt
+ * by {@link SpecNormalizer} when a phone is turned back into JSON. Values that were numbers or
+ * booleans and fields that held an array are noted per phone, so {@link #toJson(int)} gives back
+ * what was added.
+ *
+ * Built once by the loaders and read-only afterwards, so any number of threads may query it.
+ */
+public class CompactCatalog {
+    private static final String SPECIFICATIONS = "specifications";
+
+    private final SpecDictionary fields = new SpecDictionary();
+    private final SpecDictionary values = new SpecDictionary();
+    // Field id -> {category, title}; category is null for top-level fields
+    private final List<String[]> fieldParts = new ArrayList<>();
+
+    private final List<String> keys = new ArrayList<>();
+    private final Map<String, Integer> keyIndex = new HashMap<>();
+    private final List<int[]> records = new ArrayList<>();
+    // Per phone, sorted ids of the top-level fields that held an array (such as "images"), or null
+    private final List<int[]> arrayFields = new ArrayList<>();
+    // Per phone, sorted pair indexes whose value is a JSON literal (number, boolean, null) rather than a string, or null
+    private final List<int[]> literalPairs = new ArrayList<>();
+
+    /**
+     * Load every phone from a PhoneStore
+     */
+    public static CompactCatalog fromStore(PhoneStore store) throws IOException {
+        CompactCatalog catalog = new CompactCatalog();
+        for (String key : store.keys()) {
+            JSONObject details = store.get(key);
+            if (details != null) {
+                catalog.add(key, details);
+            }
+        }
+        return catalog;
+    }
+
+    /**
+     * Load every per-phone JSON file in a directory; summary.json and delta.json are skipped
+     */
+    public static CompactCatalog fromDirectory(Path phonesDir) throws IOException {
+        CompactCatalog catalog = new CompactCatalog();
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(phonesDir, "*.json")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(null);
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.equals("summary.json") || name.equals("delta.json")) {
+                continue;
+            }
+            try {
+                catalog.add(name.substring(0, name.length() - ".json".length()),
+                        new JSONObject(Files.readString(file, StandardCharsets.UTF_8)));
+            } catch (Exception e) {
+                System.err.println("Skipping unreadable phone file " + file + ": " + e.getMessage());
+            }
+        }
+        return catalog;
+    }
+
+    /**
+     * Add or replace a phone; returns its index
+     */
+    public int add(String key, JSONObject details) {
+        // {field id, value id, 1 for a literal}
+        List<int[]> pairs = new ArrayList<>();
+        List<Integer> arrays = new ArrayList<>();
+        for (String name : details.keySet()) {
+            Object value = details.get(name);
+            if (name.equals(SPECIFICATIONS) && value instanceof JSONObject) {
+                JSONObject specs = (JSONObject) value;
+                for (String category : specs.keySet()) {
+                    JSONObject categorySpecs = specs.optJSONObject(category);
+                    if (categorySpecs == null) {
+                        continue;
+                    }
+                    for (String title : categorySpecs.keySet()) {
+                        pairs.add(pair(internField(category, title), categorySpecs.get(title)));
+                    }
+                }
+            } else if (value instanceof JSONArray) {
+                int field = internField(null, name);
+                arrays.add(field);
+                JSONArray array = (JSONArray) value;
+                for (int i = 0; i < array.length(); i++) {
+                    pairs.add(pair(field, array.get(i)));
+                }
+            } else if (!(value instanceof JSONObject)) {
+                // Nested objects other than the specifications (the normalized fields) are derived data
+                pairs.add(pair(internField(null, name), value));
+            }
+        }
+
+        // Stable sort keeps array elements in order
+        pairs.sort((a, b) -> Integer.compare(a[0], b[0]));
+        int[] record = new int[pairs.size() * 2];
+        List<Integer> literals = new ArrayList<>();
+        for (int i = 0; i < pairs.size(); i++) {
+            record[2 * i] = pairs.get(i)[0];
+            record[2 * i + 1] = pairs.get(i)[1];
+            if (pairs.get(i)[2] == 1) {
+                literals.add(i);
+            }
+        }
+        arrays.sort(null);
+
+        Integer existing = keyIndex.get(key);
+        if (existing != null) {
+            records.set(existing, record);
+            arrayFields.set(existing, toArray(arrays));
+            literalPairs.set(existing, toArray(literals));
+            return existing;
+        }
+        keyIndex.put(key, records.size());
+        keys.add(key);
+        records.add(record);
+        arrayFields.add(toArray(arrays));
+        literalPairs.add(toArray(literals));
+        return records.size() - 1;
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    public String key(int phone) {
+        return keys.get(phone);
+    }
+
+    /**
+     * Index of the phone stored under key, or -1
+     */
+    public int indexOf(String key) {
+        Integer index = keyIndex.get(key);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Id of a field, e.g. ("Platform", "OS") or (null, "name"), or {@link SpecDictionary#UNKNOWN}
+     */
+    public int fieldId(String category, String title) {
+        return fields.id(fieldName(category, title));
+    }
+
+    public int valueId(String value) {
+        return values.id(value);
+    }
+
+    public String value(int valueId) {
+        return values.value(valueId);
+    }
+
+    public int fieldCount() {
+        return fields.size();
+    }
+
+    /**
+     * {category, title} of a field id; category is null for top-level fields
+     */
+    public String[] field(int fieldId) {
+        return fieldParts.get(fieldId);
+    }
+
+    /**
+     * Value id of a field for a phone, or {@link SpecDictionary#UNKNOWN}; the first element for arrays
+     */
+    public int valueOf(int phone, int fieldId) {
+        int[] record = records.get(phone);
+        int pair = find(record, fieldId);
+        return pair >= 0 ? record[2 * pair + 1] : SpecDictionary.UNKNOWN;
+    }
+
+    public String get(int phone, String category, String title) {
+        int fieldId = fieldId(category, title);
+        if (fieldId == SpecDictionary.UNKNOWN) {
+            return null;
+        }
+        int valueId = valueOf(phone, fieldId);
+        return valueId == SpecDictionary.UNKNOWN ? null : values.value(valueId);
+    }
+
+    /**
+     * The (field id, value id) pairs of a phone, sorted by field id; callers must not modify it
+     */
+    public int[] record(int phone) {
+        return records.get(phone);
+    }
+
+    /**
+     * Phones whose field has exactly the given value
+     */
+    public int[] filterEquals(String category, String title, String value) {
+        int fieldId = fieldId(category, title);
+        int valueId = values.id(value);
+        if (fieldId == SpecDictionary.UNKNOWN || valueId == SpecDictionary.UNKNOWN) {
+            return new int[0];
+        }
+        return filterEquals(fieldId, valueId);
+    }
+
+    public int[] filterEquals(int fieldId, int valueId) {
+        int[] matches = new int[16];
+        int count = 0;
+        for (int phone = 0; phone < records.size(); phone++) {
+            if (hasValue(records.get(phone), fieldId, valueId)) {
+                if (count == matches.length) {
+                    matches = Arrays.copyOf(matches, count * 2);
+                }
+                matches[count++] = phone;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Rebuild the phone's JSON, in the shape written by the scrapers
+     */
+    public JSONObject toJson(int phone) {
+        int[] record = records.get(phone);
+        int[] arrays = arrayFields.get(phone);
+        int[] literals = literalPairs.get(phone);
+        JSONObject details = new JSONObject();
+        JSONObject specs = new JSONObject();
+        for (int i = 0; i < record.length; i += 2) {
+            String[] parts = fieldParts.get(record[i]);
+            Object value = values.value(record[i + 1]);
+            if (literals != null && Arrays.binarySearch(literals, i / 2) >= 0) {
+                value = new JSONTokener((String) value).nextValue();
+            }
+            if (parts[0] != null) {
+                JSONObject categorySpecs = specs.optJSONObject(parts[0]);
+                if (categorySpecs == null) {
+                    categorySpecs = new JSONObject();
+                    specs.put(parts[0], categorySpecs);
+                }
+                categorySpecs.put(parts[1], value);
+            } else if (arrays != null && Arrays.binarySearch(arrays, record[i]) >= 0) {
+                details.append(parts[1], value);
+            } else {
+                details.put(parts[1], value);
+            }
+        }
+        if (arrays != null) {
+            // Arrays that were empty have no pairs
+            for (int field : arrays) {
+                if (!details.has(fieldParts.get(field)[1])) {
+                    details.put(fieldParts.get(field)[1], new JSONArray());
+                }
+            }
+        }
+        if (!specs.isEmpty()) {
+            details.put(SPECIFICATIONS, specs);
+        }
+        details.put("normalized", SpecNormalizer.normalize(details).toJson());
+        return details;
+    }
+
+    /**
+     * Rough heap size of the encoded catalog, for comparing against the JSON it replaces
+     */
+    public long estimatedBytes() {
+        long bytes = fields.estimatedBytes() + values.estimatedBytes();
+        for (int phone = 0; phone < records.size(); phone++) {
+            bytes += 16 + 4L * records.get(phone).length + 8;
+            for (int[] extra : new int[][]{arrayFields.get(phone), literalPairs.get(phone)}) {
+                bytes += extra != null ? 16 + 4L * extra.length + 8 : 8;
+            }
+        }
+        return bytes;
+    }
+
+    public String getStats() {
+        return records.size() + " phones, " + fields.size() + " fields, " + values.size() + " distinct values, ~"
+                + (estimatedBytes() / 1024) + " KB";
+    }
+
+    private int internField(String category, String title) {
+        int id = fields.intern(fieldName(category, title));
+        if (id == fieldParts.size()) {
+            fieldParts.add(new String[]{category, title});
+        }
+        return id;
+    }
+
+    /**
+     * {field id, value id, 1 when the value is a literal}; strings are interned as they are, other
+     * values (numbers, booleans, null, nested arrays or objects) as their JSON text
+     */
+    private int[] pair(int field, Object value) {
+        if (value instanceof String) {
+            return new int[]{field, values.intern((String) value), 0};
+        }
+        return new int[]{field, values.intern(JSONObject.valueToString(value)), 1};
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        if (values.isEmpty()) {
+            return null;
+        }
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    private static String fieldName(String category, String title) {
+        return category == null ? title : category + "/" + title;
+    }
+
+    /**
+     * Index of the first pair with the field, or -1
+     */
+    private static int find(int[] record, int fieldId) {
+        int low = 0;
+        int high = record.length / 2 - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int field = record[2 * mid];
+            if (field < fieldId) {
+                low = mid + 1;
+            } else {
+                if (field == fieldId) {
+                    found = mid;
+                }
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private static boolean hasValue(int[] record, int fieldId, int valueId) {
+        int pair = find(record, fieldId);
+        if (pair < 0) {
+            return false;
+        }
+        for (int i = 2 * pair; i < record.length && record[i] == fieldId; i += 2) {
+            if (record[i + 1] == valueId) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
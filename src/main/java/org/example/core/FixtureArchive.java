@@ -0,0 +1,269 @@
+package org.example.core;
+
+import java.io.BufferedWriter;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recorded upstream responses, for replaying a scrape offline through {@link OxylabsStandInServer}.
+ *
+ * Layout of the archive directory:
+ *   pages/{url}.html    page content as returned by Oxylabs, keyed by the scraped URL
+ *   images/{url}        image bodies from the CDN
+ *   images/index.tsv    status, length and URL of every image response seen, including HEAD probes and 404s
+ * where {url} is the URL with every non-alphanumeric character replaced by '_', followed by a hash of
+ * the URL so URLs differing only in punctuation get separate files (see {@link #fileName}). Files named
+ * without the hash, as in plain directories of saved pages and older archives, are still read.
+ *
+ * Recording is switched on with -Dscraper.record.dir; every page fetched through OxylabsClient
+ * (cache hits included) and every image probed or downloaded is then captured.
+ */
+public class FixtureArchive {
+    private static final String IMAGE_INDEX = "index.tsv";
+    private static final int MAX_NAME_LENGTH = 180;
+    // Hex digits of the URL's hash in a file name
+    private static final int HASH_LENGTH = 16;
+
+    private static FixtureArchive recorder;
+    private static boolean recorderLoaded;
+
+    /**
+     * A recorded image response; body is null for HEAD probes and failures
+     */
+    public static class ImageEntry {
+        public final int status;
+        public final long length;
+        public final Path body;
+
+        ImageEntry(int status, long length, Path body) {
+            this.status = status;
+            this.length = length;
+            this.body = body;
+        }
+    }
+
+    private final Path pagesDir;
+    private final Path imagesDir;
+    private final Map<String, ImageEntry> images = new ConcurrentHashMap<>();
+    private BufferedWriter imageIndex;
+
+    private FixtureArchive(Path pagesDir, Path imagesDir) {
+        this.pagesDir = pagesDir;
+        this.imagesDir = imagesDir;
+    }
+
+    /**
+     * Open an archive for replay. A directory without pages/ is read as a plain directory of saved pages.
+     */
+    public static FixtureArchive open(Path dir) throws IOException {
+        Path pages = dir.resolve("pages");
+        FixtureArchive archive = new FixtureArchive(Files.isDirectory(pages) ? pages : dir, dir.resolve("images"));
+        archive.loadImageIndex();
+        return archive;
+    }
+
+    /**
+     * Open an archive for recording, creating it when needed
+     */
+    public static FixtureArchive create(Path dir) throws IOException {
+        FixtureArchive archive = new FixtureArchive(dir.resolve("pages"), dir.resolve("images"));
+        Files.createDirectories(archive.pagesDir);
+        Files.createDirectories(archive.imagesDir);
+        archive.loadImageIndex();
+        archive.imageIndex = Files.newBufferedWriter(archive.imagesDir.resolve(IMAGE_INDEX), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return archive;
+    }
+
+    /**
+     * The process-wide recorder when -Dscraper.record.dir is set, otherwise null
+     */
+    public static synchronized FixtureArchive recorder() {
+        if (!recorderLoaded) {
+            recorderLoaded = true;
+            String dir = System.getProperty("scraper.record.dir");
+            if (dir != null && !dir.isEmpty()) {
+                try {
+                    recorder = create(Paths.get(dir));
+                    System.out.println("⏺️ Recording responses into " + dir);
+                } catch (IOException e) {
+                    System.err.println("Cannot record into " + dir + ": " + e.getMessage());
+                }
+            }
+        }
+        return recorder;
+    }
+
+    /**
+     * File name for a URL: readable, shortened when very long, and made unique with 64 bits of the
+     * URL's SHA-256. String.hashCode is too weak here: long URLs that share the kept prefix and end
+     * in "Aa" and "BB" would get the same name.
+     */
+    public static String fileName(String url) {
+        String name = legacyFileName(url);
+        if (name.length() > MAX_NAME_LENGTH) {
+            name = name.substring(0, MAX_NAME_LENGTH);
+        }
+        return name + "_" + ChangeDetector.fingerprint(url).substring(0, HASH_LENGTH);
+    }
+
+    /**
+     * The name used before hashes were added, e.g. in a directory of pages saved by hand
+     */
+    private static String legacyFileName(String url) {
+        return url.replaceAll("[^a-zA-Z0-9]", "_");
+    }
+
+    /**
+     * The recorded file for a URL under either naming, or null
+     */
+    private static Path find(Path dir, String url, String suffix) {
+        Path file = dir.resolve(fileName(url) + suffix);
+        if (Files.exists(file)) {
+            return file;
+        }
+        String legacy = legacyFileName(url);
+        if (legacy.length() > MAX_NAME_LENGTH) {
+            return null;
+        }
+        file = dir.resolve(legacy + suffix);
+        return Files.exists(file) ? file : null;
+    }
+
+    /**
+     * Saved page content for a URL, or null
+     */
+    public String getPage(String url) throws IOException {
+        Path page = find(pagesDir, url, ".html");
+        return page != null ? Files.readString(page, StandardCharsets.UTF_8) : null;
+    }
+
+    public void putPage(String url, String content) {
+        try {
+            writeAtomically(pagesDir.resolve(fileName(url) + ".html"), content.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("Could not record page " + url + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Pass page content through to the caller, saving it once it has been read to the end
+     */
+    public Reader recordPage(String url, Reader content) {
+        return new FilterReader(content) {
+            private final StringBuilder copy = new StringBuilder(64 * 1024);
+            private boolean complete;
+
+            @Override
+            public int read() throws IOException {
+                char[] single = new char[1];
+                return read(single, 0, 1) == -1 ? -1 : single[0];
+            }
+
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                int read = super.read(cbuf, off, len);
+                if (read == -1) {
+                    complete = true;
+                } else {
+                    copy.append(cbuf, off, read);
+                }
+                return read;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                char[] skipped = new char[(int) Math.min(n, 8192)];
+                int read = read(skipped, 0, skipped.length);
+                return Math.max(read, 0);
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                if (complete) {
+                    putPage(url, copy.toString());
+                }
+            }
+        };
+    }
+
+    public ImageEntry getImage(String url) {
+        return images.get(url);
+    }
+
+    /**
+     * Record an image response; body is the downloaded file, or null for HEAD probes and errors.
+     * A HEAD probe never replaces a recorded body.
+     */
+    public void recordImage(String url, int status, long length, Path body) {
+        try {
+            Path stored = null;
+            if (body != null) {
+                stored = imagesDir.resolve(fileName(url));
+                Files.copy(body, stored, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                ImageEntry existing = images.get(url);
+                if (existing != null && existing.body != null && status == 200) {
+                    return;
+                }
+            }
+            images.put(url, new ImageEntry(status, length, stored));
+            synchronized (this) {
+                imageIndex.write(status + "\t" + length + "\t" + url);
+                imageIndex.newLine();
+                imageIndex.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Could not record image " + url + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Later lines win, except that a URL with a saved body always replays it
+     */
+    private void loadImageIndex() throws IOException {
+        Path index = imagesDir.resolve(IMAGE_INDEX);
+        if (!Files.exists(index)) {
+            return;
+        }
+        List<String> lines = Files.readAllLines(index, StandardCharsets.UTF_8);
+        for (String line : lines) {
+            String[] fields = line.split("\t", 3);
+            if (fields.length < 3) {
+                continue;
+            }
+            try {
+                Path body = find(imagesDir, fields[2], "");
+                if (body != null) {
+                    images.put(fields[2], new ImageEntry(200, Files.size(body), body));
+                } else {
+                    images.put(fields[2], new ImageEntry(Integer.parseInt(fields[0]), Long.parseLong(fields[1]), null));
+                }
+            } catch (NumberFormatException e) {
+                System.err.println("Skipping bad image index line: " + line);
+            }
+        }
+    }
+
+    private static void writeAtomically(Path target, byte[] content) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        Files.write(temp, content);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
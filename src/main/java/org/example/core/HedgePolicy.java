@@ -0,0 +1,113 @@
+package org.example.core;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Decides when a slow Oxylabs request gets a duplicate ("hedge"). Latencies of successful
+ * requests are kept per page type, and once a request has been outstanding longer than the
+ * observed p95 for its type a second copy is sent; whichever answers first wins.
+ *
+ * Hedges cost real Oxylabs requests, so they are capped at a fraction of all requests
+ * (the budget) and never sent before enough latencies have been seen to trust the p95.
+ */
+public class HedgePolicy {
+    // Recent latencies kept per page type
+    private static final int WINDOW = 256;
+
+    private final double quantile;
+    private final double budget;
+    private final long minDelayMs;
+    private final int minSamples;
+    private final Map<ResponseCache.PageType, LatencyWindow> latencies = new EnumMap<>(ResponseCache.PageType.class);
+    private long requests;
+    private long hedges;
+
+    /**
+     * Ring buffer of the most recent latencies of one page type
+     */
+    private static class LatencyWindow {
+        final long[] samples = new long[WINDOW];
+        int count;
+        int next;
+
+        void add(long latencyMs) {
+            samples[next] = latencyMs;
+            next = (next + 1) % WINDOW;
+            count = Math.min(WINDOW, count + 1);
+        }
+
+        long percentile(double quantile) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[Math.max(0, (int) Math.ceil(quantile * count) - 1)];
+        }
+    }
+
+    public HedgePolicy(double quantile, double budget, long minDelayMs, int minSamples) {
+        this.quantile = quantile;
+        this.budget = budget;
+        this.minDelayMs = minDelayMs;
+        this.minSamples = Math.max(1, minSamples);
+        for (ResponseCache.PageType type : ResponseCache.PageType.values()) {
+            latencies.put(type, new LatencyWindow());
+        }
+    }
+
+    /**
+     * Build the policy from system properties, or return null unless -Dscraper.oxylabs.hedge.enabled=true
+     */
+    public static HedgePolicy fromSystemProperties() {
+        if (!Boolean.parseBoolean(System.getProperty("scraper.oxylabs.hedge.enabled", "false"))) {
+            return null;
+        }
+        double quantile = Double.parseDouble(System.getProperty("scraper.oxylabs.hedge.quantile", "0.95"));
+        double budget = Double.parseDouble(System.getProperty("scraper.oxylabs.hedge.budget", "0.05"));
+        long minDelayMs = Long.getLong("scraper.oxylabs.hedge.minDelayMs", 1000);
+        int minSamples = Integer.getInteger("scraper.oxylabs.hedge.minSamples", 20);
+        System.out.println("Hedging Oxylabs requests slower than p" + Math.round(quantile * 100)
+                + " per page type, budget " + Math.round(budget * 100) + "% of requests");
+        return new HedgePolicy(quantile, budget, minDelayMs, minSamples);
+    }
+
+    /**
+     * Count a request that may later be hedged
+     */
+    public synchronized void onRequest() {
+        requests++;
+    }
+
+    /**
+     * Record the latency of a successful response
+     */
+    public synchronized void recordLatency(ResponseCache.PageType type, long latencyMs) {
+        latencies.get(type).add(latencyMs);
+    }
+
+    /**
+     * How long to wait for a response before hedging it, or -1 while too few latencies are known
+     */
+    public synchronized long hedgeDelayMs(ResponseCache.PageType type) {
+        LatencyWindow window = latencies.get(type);
+        if (window.count < minSamples) {
+            return -1;
+        }
+        return Math.max(minDelayMs, window.percentile(quantile));
+    }
+
+    /**
+     * Spend one hedge from the budget; false once hedges would exceed the allowed fraction of requests
+     */
+    public synchronized boolean tryHedge() {
+        if (hedges + 1 > budget * requests) {
+            return false;
+        }
+        hedges++;
+        return true;
+    }
+
+    public synchronized String getStatus() {
+        return String.format("hedged %d of %d requests (budget %.0f%%)", hedges, requests, budget * 100);
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.core;
+
+import java.io.IOException;
+
+/**
+ * An upstream answered, but not with a 2xx; keeps the status so callers can tell 5xx from 4xx
+ */
+public class HttpStatusException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    public HttpStatusException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,161 @@
+package org.example.core;
+
+import okhttp3.*;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The one HTTP stack every outgoing request goes through: Oxylabs realtime and push-pull calls,
+ * image probes and image downloads.
+ *
+ * All clients are derived from a single OkHttp client, so they share one keep-alive connection
+ * pool and TLS session cache, negotiate HTTP/2 where the server offers it and ask for gzip (which
+ * OkHttp decompresses transparently). Each upstream still builds its own client from
+ * {@link #newBuilder(long)} with its own timeouts and dispatcher, which keeps the upstreams'
+ * concurrency limits apart. Response bodies larger than a limit are cut off with an IOException,
+ * so a broken or hostile response cannot exhaust memory or disk.
+ */
+public class HttpTransport {
+    private static HttpTransport shared;
+
+    private final OkHttpClient base;
+    private final long maxResponseBytes;
+    private final boolean prewarm;
+    private final int prewarmConnections;
+
+    public HttpTransport(int maxIdleConnections, long keepAliveMinutes, boolean http2, long maxResponseBytes,
+                         boolean prewarm, int prewarmConnections) {
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMinutes, TimeUnit.MINUTES))
+                .retryOnConnectionFailure(true);
+        if (http2) {
+            builder.protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1));
+        } else {
+            builder.protocols(List.of(Protocol.HTTP_1_1));
+        }
+        this.base = builder.build();
+        this.maxResponseBytes = maxResponseBytes;
+        this.prewarm = prewarm;
+        this.prewarmConnections = Math.max(1, prewarmConnections);
+    }
+
+    /**
+     * Process-wide transport, configured from -Dscraper.http.maxIdleConnections (64), -Dscraper.http.keepAliveMinutes (5),
+     * -Dscraper.http.http2 (true), -Dscraper.http.maxResponseBytes (32 MB), -Dscraper.http.prewarm (true)
+     * and -Dscraper.http.prewarmConnections (2)
+     */
+    public static synchronized HttpTransport shared() {
+        if (shared == null) {
+            shared = new HttpTransport(
+                    Integer.getInteger("scraper.http.maxIdleConnections", 64),
+                    Long.getLong("scraper.http.keepAliveMinutes", 5L),
+                    Boolean.parseBoolean(System.getProperty("scraper.http.http2", "true")),
+                    Long.getLong("scraper.http.maxResponseBytes", 32L * 1024 * 1024),
+                    Boolean.parseBoolean(System.getProperty("scraper.http.prewarm", "true")),
+                    Integer.getInteger("scraper.http.prewarmConnections", 2));
+        }
+        return shared;
+    }
+
+    /**
+     * A builder sharing the connection pool, with the default response size limit
+     */
+    public OkHttpClient.Builder newBuilder() {
+        return newBuilder(maxResponseBytes);
+    }
+
+    /**
+     * A builder sharing the connection pool; callers set their own timeouts and, for async calls, dispatcher
+     *
+     * @param maxResponseBytes largest response body accepted, 0 for no limit
+     */
+    public OkHttpClient.Builder newBuilder(long maxResponseBytes) {
+        OkHttpClient.Builder builder = base.newBuilder();
+        if (maxResponseBytes > 0) {
+            builder.addInterceptor(sizeLimit(maxResponseBytes));
+        }
+        return builder;
+    }
+
+    /**
+     * Open connections to the host of a URL in the background, so the first real requests skip
+     * the TCP and TLS handshakes. The HEAD requests go to the host root and their answers are ignored.
+     */
+    public void prewarm(String url) {
+        if (!prewarm) {
+            return;
+        }
+        HttpUrl parsed = HttpUrl.parse(url);
+        if (parsed == null) {
+            return;
+        }
+        HttpUrl root = parsed.newBuilder().encodedPath("/").query(null).build();
+        Request request = new Request.Builder().url(root).head().build();
+        System.out.println("Pre-warming " + prewarmConnections + " connections to " + root.host());
+        for (int i = 0; i < prewarmConnections; i++) {
+            base.newCall(request).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    System.err.println("Could not pre-warm connection to " + root.host() + ": " + e.getMessage());
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    response.close();
+                }
+            });
+        }
+    }
+
+    /**
+     * Idle connections in the shared pool, e.g. to check that pre-warming worked
+     */
+    public int getIdleConnections() {
+        return base.connectionPool().idleConnectionCount();
+    }
+
+    public int getConnections() {
+        return base.connectionPool().connectionCount();
+    }
+
+    /**
+     * Fail responses whose decompressed body is larger than {@code maxBytes}: at once when the
+     * Content-Length says so, otherwise as soon as that many bytes have been read
+     */
+    private static Interceptor sizeLimit(long maxBytes) {
+        return chain -> {
+            Response response = chain.proceed(chain.request());
+            ResponseBody body = response.body();
+            // A HEAD response announces the size of a body it does not carry
+            if (body == null || chain.request().method().equals("HEAD")) {
+                return response;
+            }
+            String host = chain.request().url().host();
+            if (body.contentLength() > maxBytes) {
+                response.close();
+                throw new IOException("Response of " + body.contentLength() + " bytes from " + host
+                        + " exceeds the limit of " + maxBytes + " bytes");
+            }
+            ForwardingSource limited = new ForwardingSource(body.source()) {
+                private long total;
+
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read > 0 && (total += read) > maxBytes) {
+                        throw new IOException("Response from " + host + " exceeds the limit of " + maxBytes + " bytes");
+                    }
+                    return read;
+                }
+            };
+            return response.newBuilder()
+                    .body(ResponseBody.create(Okio.buffer(limited), body.contentType(), body.contentLength()))
+                    .build();
+        };
+    }
+}
@@ -0,0 +1,224 @@
+package org.example.core;
+
+import okhttp3.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent image download engine shared by all phones.
+ *
+ * The client comes from the shared {@link HttpTransport}, so connections to the image CDN stay
+ * alive between downloads, and its own dispatcher caps how many requests run against a single
+ * host at once. Each image is streamed
+ * to a temp file next to its target and renamed into place only once it is complete.
+ */
+public class ImageDownloader {
+
+    /**
+     * Outcome of a single image download
+     */
+    public static class Result {
+        public final String url;
+        public final Path target;
+        public final long bytes;
+        public final long latencyMs;
+        // Null when the download succeeded
+        public final String error;
+
+        Result(String url, Path target, long bytes, long latencyMs, String error) {
+            this.url = url;
+            this.target = target;
+            this.bytes = bytes;
+            this.latencyMs = latencyMs;
+            this.error = error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    private static ImageDownloader shared;
+
+    private final OkHttpClient client;
+    // Null when -Dscraper.images.breaker.enabled=false
+    private final CircuitBreaker breaker;
+    private final ScrapeMetrics metrics = ScrapeMetrics.shared();
+    // Null unless -Dscraper.record.dir is set
+    private final FixtureArchive recorder = FixtureArchive.recorder();
+
+    public ImageDownloader(int maxRequests, int maxRequestsPerHost, long connectTimeoutMs, long readTimeoutMs) {
+        this(maxRequests, maxRequestsPerHost, connectTimeoutMs, readTimeoutMs, 0, null);
+    }
+
+    /**
+     * @param maxBytes largest image accepted, 0 for the transport's default
+     * @param breaker told about every response from the CDN, or null; callers check it before starting work
+     */
+    public ImageDownloader(int maxRequests, int maxRequestsPerHost, long connectTimeoutMs, long readTimeoutMs,
+                           long maxBytes, CircuitBreaker breaker) {
+        this.breaker = breaker;
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        HttpTransport transport = HttpTransport.shared();
+        this.client = (maxBytes > 0 ? transport.newBuilder(maxBytes) : transport.newBuilder())
+                .dispatcher(dispatcher)
+                .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Process-wide downloader, configured from -Dscraper.images.maxPerHost, -Dscraper.images.maxRequests,
+     * -Dscraper.images.connectTimeoutMs, -Dscraper.images.readTimeoutMs and -Dscraper.images.maxBytes (20 MB).
+     * Connections to the image CDN are pre-warmed as soon as it is created.
+     */
+    public static synchronized ImageDownloader shared() {
+        if (shared == null) {
+            shared = new ImageDownloader(
+                    Integer.getInteger("scraper.images.maxRequests", 32),
+                    Integer.getInteger("scraper.images.maxPerHost", 6),
+                    Long.getLong("scraper.images.connectTimeoutMs", 10_000L),
+                    Long.getLong("scraper.images.readTimeoutMs", 30_000L),
+                    Long.getLong("scraper.images.maxBytes", 20L * 1024 * 1024),
+                    CircuitBreaker.fromSystemProperties(ScrapeMetrics.IMAGES, "scraper.images.breaker"));
+            HttpTransport.shared().prewarm(ImageUtils.requestUrl(ImageUtils.CDN_BASE_URL));
+        }
+        return shared;
+    }
+
+    /**
+     * The pooled client, for other requests to the image CDN that should share its connections and host cap
+     */
+    OkHttpClient client() {
+        return client;
+    }
+
+    /**
+     * Circuit breaker guarding the image CDN, or null when disabled
+     */
+    public CircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+    /**
+     * Feed a CDN response into the breaker; 404s are a normal answer, only 5xx count against the CDN
+     */
+    void recordOutcome(int statusCode) {
+        if (breaker != null) {
+            if (statusCode >= 500) {
+                breaker.onFailure("HTTP " + statusCode);
+            } else {
+                breaker.onSuccess();
+            }
+        }
+    }
+
+    /**
+     * Record a timeout or dropped connection against the CDN
+     */
+    void recordFailure(IOException e) {
+        if (breaker != null) {
+            breaker.onFailure(e.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Download all URLs concurrently, url i going to targets i; blocks until every download finished
+     */
+    public List<Result> downloadAll(List<String> urls, List<Path> targets) {
+        List<CompletableFuture<Result>> futures = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            futures.add(download(urls.get(i), targets.get(i)));
+        }
+
+        List<Result> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<Result> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    /**
+     * Start downloading one image; the future always completes normally, failures are reported in the result
+     */
+    public CompletableFuture<Result> download(String url, Path target) {
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        long start = System.nanoTime();
+
+        Request request;
+        try {
+            request = new Request.Builder().url(ImageUtils.requestUrl(url)).get().build();
+        } catch (IllegalArgumentException e) {
+            future.complete(new Result(url, target, 0, 0, "Invalid URL: " + e.getMessage()));
+            return future;
+        }
+
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                metrics.recordRequest(ScrapeMetrics.IMAGES, e.getClass().getSimpleName());
+                recordFailure(e);
+                future.complete(new Result(url, target, 0, elapsedMs(start), e.getMessage()));
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                metrics.recordRequest(ScrapeMetrics.IMAGES, response.code());
+                recordOutcome(response.code());
+                try (response) {
+                    if (!response.isSuccessful() || response.body() == null) {
+                        if (recorder != null) {
+                            recorder.recordImage(url, response.code(), 0, null);
+                        }
+                        future.complete(new Result(url, target, 0, elapsedMs(start), "HTTP " + response.code()));
+                        return;
+                    }
+                    long bytes = writeAtomically(metrics.countBytesIn(response.body().byteStream(), ScrapeMetrics.IMAGES), target);
+                    metrics.recordStage("image_download", start);
+                    if (recorder != null) {
+                        recorder.recordImage(url, response.code(), bytes, target);
+                    }
+                    future.complete(new Result(url, target, bytes, elapsedMs(start), null));
+                } catch (Exception e) {
+                    // The body broke off halfway, as it does when the CDN stalls
+                    if (e instanceof IOException) {
+                        recordFailure((IOException) e);
+                    }
+                    future.complete(new Result(url, target, 0, elapsedMs(start), e.getMessage()));
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Stream into a temp file in the target directory and move it into place once complete
+     */
+    private static long writeAtomically(InputStream in, Path target) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, target.getFileName().toString(), ".part");
+        try {
+            long bytes = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return bytes;
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,345 @@
+package org.example.core;
+
+import okhttp3.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks guessed image URLs from {@link ImageUtils#generateImageCandidates} in parallel.
+ *
+ * All candidates are probed with concurrent HEAD requests, but the answer is the first few that
+ * work in candidate order, so the original priority is kept: a hit is only taken once every
+ * candidate before it has answered or timed out, each probe being cut off after the probe timeout.
+ * As soon as that answer is known the remaining requests are cancelled. Patterns that keep returning 404 for a brand and have never
+ * worked for it are remembered on disk and skipped for later phones of that brand.
+ */
+public class ImageProber {
+    private static final String PATTERN_FILE_HEADER = "# brand\tpattern\thits\tmisses";
+
+    private static ImageProber shared;
+
+    private final OkHttpClient client;
+    // Shares the downloader's view of the CDN's health
+    private final ImageDownloader downloader;
+    private final Path patternFile;
+    private final int missThreshold;
+    private final long timeoutMs;
+    // brand -> pattern id -> {hits, misses}
+    private final Map<String, Map<String, int[]>> patternStats = new HashMap<>();
+
+    public ImageProber(OkHttpClient client, Path patternFile, int missThreshold, long timeoutMs) {
+        this(client, null, patternFile, missThreshold, timeoutMs);
+    }
+
+    /**
+     * @param downloader whose circuit breaker is told about every probe response, or null
+     */
+    public ImageProber(OkHttpClient client, ImageDownloader downloader, Path patternFile, int missThreshold, long timeoutMs) {
+        this.client = client;
+        this.downloader = downloader;
+        this.patternFile = patternFile;
+        this.missThreshold = missThreshold;
+        this.timeoutMs = timeoutMs;
+        loadPatternStats();
+    }
+
+    /**
+     * Process-wide prober sharing the image download client; the negative cache lives in
+     * -Dscraper.images.patternCache (default .cache/image-patterns.tsv) and a pattern is skipped after
+     * -Dscraper.images.patternMisses (default 3) misses without a hit
+     */
+    public static synchronized ImageProber shared() {
+        if (shared == null) {
+            long timeoutMs = Long.getLong("scraper.images.probeTimeoutMs", 5000L);
+            OkHttpClient client = ImageDownloader.shared().client().newBuilder()
+                    .connectTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                    .readTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                    .build();
+            shared = new ImageProber(client, ImageDownloader.shared(),
+                    Paths.get(System.getProperty("scraper.images.patternCache", ".cache/image-patterns.tsv")),
+                    Integer.getInteger("scraper.images.patternMisses", 3),
+                    timeoutMs);
+        }
+        return shared;
+    }
+
+    /**
+     * Return up to {@code wanted} working URLs, in candidate order
+     */
+    public List<String> probe(List<ImageUtils.ImageCandidate> candidates, String brand, int wanted) {
+        List<ImageUtils.ImageCandidate> toProbe = new ArrayList<>();
+        for (ImageUtils.ImageCandidate candidate : candidates) {
+            if (isKnownMiss(brand, candidate.patternId)) {
+                System.out.println("Skipping image pattern " + candidate.patternId + " (never found for " + brand + ")");
+            } else {
+                toProbe.add(candidate);
+            }
+        }
+        if (toProbe.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        long start = System.nanoTime();
+        ProbeRound round = new ProbeRound(toProbe, brand, wanted);
+        round.start();
+        try {
+            // Every probe ends within timeoutMs of starting, but probes to one host may queue behind each other
+            if (!round.done.await(timeoutMs * (toProbe.size() + 1), TimeUnit.MILLISECONDS)) {
+                System.out.println("Image probing timed out, " + round.expire() + " unanswered candidates count as missing");
+            }
+        } catch (InterruptedException e) {
+            round.expire();
+            Thread.currentThread().interrupt();
+        }
+        round.cancelRemaining();
+        ScrapeMetrics.shared().recordStage("image_probe", start);
+        savePatternStats();
+        return round.workingUrls();
+    }
+
+    /**
+     * Check a single image URL with a HEAD request; false while the CDN's circuit is open
+     */
+    public boolean isAvailable(String imageUrl) {
+        CircuitBreaker breaker = downloader != null ? downloader.getBreaker() : null;
+        if (breaker != null && breaker.isOpen()) {
+            return false;
+        }
+        Request request;
+        try {
+            request = new Request.Builder().url(ImageUtils.requestUrl(imageUrl)).head().build();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        try (Response response = client.newCall(request).execute()) {
+            ScrapeMetrics.shared().recordRequest(ScrapeMetrics.IMAGES, response.code());
+            if (downloader != null) {
+                downloader.recordOutcome(response.code());
+            }
+            FixtureArchive recorder = FixtureArchive.recorder();
+            if (recorder != null) {
+                recorder.recordImage(imageUrl, response.code(), contentLength(response), null);
+            }
+            return response.code() == 200;
+        } catch (IOException e) {
+            ScrapeMetrics.shared().recordRequest(ScrapeMetrics.IMAGES, e.getClass().getSimpleName());
+            if (downloader != null) {
+                downloader.recordFailure(e);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * One probe of a phone's candidates
+     */
+    private class ProbeRound {
+        private static final int PENDING = 0;
+        private static final int FOUND = 1;
+        private static final int MISSING = 2;
+        private static final int TIMED_OUT = 3;
+
+        final List<ImageUtils.ImageCandidate> candidates;
+        final String brand;
+        final int wanted;
+        final int[] outcomes;
+        final List<Call> calls = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        ProbeRound(List<ImageUtils.ImageCandidate> candidates, String brand, int wanted) {
+            this.candidates = candidates;
+            this.brand = brand;
+            this.wanted = wanted;
+            this.outcomes = new int[candidates.size()];
+        }
+
+        void start() {
+            for (int i = 0; i < candidates.size(); i++) {
+                int index = i;
+                ImageUtils.ImageCandidate candidate = candidates.get(i);
+                System.out.println("Trying image URL: " + candidate.url);
+
+                Request request;
+                try {
+                    request = new Request.Builder().url(ImageUtils.requestUrl(candidate.url)).head().build();
+                } catch (IllegalArgumentException e) {
+                    finish(index, MISSING);
+                    continue;
+                }
+
+                Call call = client.newCall(request);
+                // The whole probe, connecting included, so an earlier candidate cannot hold up the round for long
+                call.timeout().timeout(timeoutMs, TimeUnit.MILLISECONDS);
+                synchronized (this) {
+                    calls.add(call);
+                }
+                call.enqueue(new Callback() {
+                    @Override
+                    public void onFailure(Call call, IOException e) {
+                        // Calls cancelled once the answer is known are not real failures
+                        if (!call.isCanceled()) {
+                            ScrapeMetrics.shared().recordRequest(ScrapeMetrics.IMAGES, e.getClass().getSimpleName());
+                            if (downloader != null) {
+                                downloader.recordFailure(e);
+                            }
+                        }
+                        finish(index, MISSING);
+                    }
+
+                    @Override
+                    public void onResponse(Call call, Response response) {
+                        response.close();
+                        ScrapeMetrics.shared().recordRequest(ScrapeMetrics.IMAGES, response.code());
+                        if (downloader != null) {
+                            downloader.recordOutcome(response.code());
+                        }
+                        FixtureArchive recorder = FixtureArchive.recorder();
+                        if (recorder != null) {
+                            recorder.recordImage(candidate.url, response.code(), contentLength(response), null);
+                        }
+                        if (response.code() == 200) {
+                            recordPattern(brand, candidate.patternId, true);
+                            System.out.println("✅ Found working image URL: " + candidate.url);
+                            finish(index, FOUND);
+                        } else {
+                            if (response.code() == 404) {
+                                recordPattern(brand, candidate.patternId, false);
+                            }
+                            finish(index, MISSING);
+                        }
+                    }
+                });
+            }
+        }
+
+        /**
+         * Record an outcome; the round is decided once the first {@code wanted} hits have no pending candidate before them
+         */
+        synchronized void finish(int index, int outcome) {
+            if (outcomes[index] != PENDING) {
+                // Timed out by expire(); a late answer no longer counts
+                return;
+            }
+            outcomes[index] = outcome;
+            int found = 0;
+            for (int result : outcomes) {
+                if (result == PENDING) {
+                    return;
+                }
+                if (result == FOUND && ++found >= wanted) {
+                    break;
+                }
+            }
+            done.countDown();
+        }
+
+        /**
+         * Give up on every candidate still pending, so the answer no longer depends on them;
+         * returns how many there were
+         */
+        synchronized int expire() {
+            int expired = 0;
+            for (int i = 0; i < outcomes.length; i++) {
+                if (outcomes[i] == PENDING) {
+                    outcomes[i] = TIMED_OUT;
+                    expired++;
+                }
+            }
+            return expired;
+        }
+
+        synchronized void cancelRemaining() {
+            for (Call call : calls) {
+                call.cancel();
+            }
+        }
+
+        synchronized List<String> workingUrls() {
+            List<String> urls = new ArrayList<>();
+            for (int i = 0; i < outcomes.length && urls.size() < wanted; i++) {
+                if (outcomes[i] == FOUND) {
+                    urls.add(candidates.get(i).url);
+                }
+            }
+            return urls;
+        }
+    }
+
+    /**
+     * Content-Length of a HEAD response, or -1 when the CDN did not send one
+     */
+    private static long contentLength(Response response) {
+        try {
+            return Long.parseLong(response.header("Content-Length", "-1"));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private synchronized boolean isKnownMiss(String brand, String patternId) {
+        // The page's own image is always worth a try
+        if (patternId.equals("original")) {
+            return false;
+        }
+        int[] stats = patternStats.getOrDefault(brand, Map.of()).get(patternId);
+        return stats != null && stats[0] == 0 && stats[1] >= missThreshold;
+    }
+
+    private synchronized void recordPattern(String brand, String patternId, boolean found) {
+        int[] stats = patternStats.computeIfAbsent(brand, b -> new HashMap<>()).computeIfAbsent(patternId, p -> new int[2]);
+        stats[found ? 0 : 1]++;
+    }
+
+    private synchronized void loadPatternStats() {
+        if (!Files.exists(patternFile)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(patternFile, StandardCharsets.UTF_8)) {
+                if (line.startsWith("#") || line.isBlank()) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                if (fields.length == 4) {
+                    int[] stats = {Integer.parseInt(fields[2]), Integer.parseInt(fields[3])};
+                    patternStats.computeIfAbsent(fields[0], b -> new HashMap<>()).put(fields[1], stats);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Ignoring image pattern cache " + patternFile + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized void savePatternStats() {
+        try {
+            Path dir = patternFile.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, patternFile.getFileName().toString(), ".tmp");
+            try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                out.write(PATTERN_FILE_HEADER);
+                out.newLine();
+                for (Map.Entry<String, Map<String, int[]>> brand : patternStats.entrySet()) {
+                    for (Map.Entry<String, int[]> pattern : brand.getValue().entrySet()) {
+                        out.write(brand.getKey() + "\t" + pattern.getKey() + "\t" + pattern.getValue()[0] + "\t" + pattern.getValue()[1]);
+                        out.newLine();
+                    }
+                }
+            }
+            Files.move(temp, patternFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not save image pattern cache: " + e.getMessage());
+        }
+    }
+}
@@ -9,11 +9,13 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class ImageUtils {
     // Brand mapping to handle brand name variations
@@ -39,6 +41,31 @@ public class ImageUtils {
     // Remove GSM_ARENA_BASE_URL if not used or keep it and use it
     // private static final String GSM_ARENA_BASE_URL = "https://www.gsmarena.com";
 
+    // Host serving GSMArena's phone images, pre-warmed by ImageDownloader
+    static final String CDN_BASE_URL = "https://fdn2.gsmarena.com/";
+
+    // -Dscraper.images.cdnUrl=http://localhost:8089/cdn sends image requests to OxylabsStandInServer instead
+    private static final String CDN_URL = System.getProperty("scraper.images.cdnUrl");
+
+    /**
+     * The URL to actually request for an image: itself, or its host and path under -Dscraper.images.cdnUrl.
+     * Saved phone data always keeps the original URL.
+     */
+    public static String requestUrl(String imageUrl) {
+        int schemeEnd = imageUrl.indexOf("://");
+        if (CDN_URL == null || schemeEnd < 0) {
+            return imageUrl;
+        }
+        return CDN_URL + "/" + imageUrl.substring(schemeEnd + 3);
+    }
+
+    /**
+     * Brand name variations mapped to the canonical brand, e.g. "pixel" to "google"
+     */
+    public static Map<String, String> getBrandAliases() {
+        return Collections.unmodifiableMap(BRAND_MAPPING);
+    }
+
     public static String getBrand(String phoneName) {
         String lowerName = phoneName.toLowerCase();
         
@@ -69,8 +96,30 @@ public class ImageUtils {
             
             // Use the universal source for better extraction
             String html = oxylabs.scrape(picturesUrl);
-            Document doc = Jsoup.parse(html);
-            
+            imageUrls = extractImagesFromPicturesHtml(html);
+        } catch (Exception e) {
+            System.err.println("Error extracting images from pictures page: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return imageUrls;
+    }
+    
+    /**
+     * Collect official product images from already fetched pictures page HTML
+     */
+    public static List<String> extractImagesFromPicturesHtml(String html) {
+        return extractImagesFromPicturesDocument(Jsoup.parse(html));
+    }
+    
+    /**
+     * Collect official product images from an already parsed pictures page
+     */
+    public static List<String> extractImagesFromPicturesDocument(Document doc) {
+        long start = System.nanoTime();
+        List<String> imageUrls = new ArrayList<>();
+        
+        try {
             // First look for all images in the pictures-list section which contains official images
             Element picturesListDiv = doc.selectFirst("div#pictures-list");
             if (picturesListDiv != null) {
@@ -122,17 +171,18 @@ public class ImageUtils {
                 System.out.println("No official images found on pictures page, trying alternative sources");
             }
         } catch (Exception e) {
-            System.err.println("Error extracting images from pictures page: " + e.getMessage());
+            System.err.println("Error parsing pictures page: " + e.getMessage());
             e.printStackTrace();
         }
         
+        ScrapeMetrics.shared().recordStage("parse_pictures", start);
         return imageUrls;
     }
     
     /**
      * Check if the URL is for an official product image rather than a lifestyle/review image
      */
-    private static boolean isOfficialProductImage(String url) {
+    public static boolean isOfficialProductImage(String url) {
         String lowerUrl = url.toLowerCase();
         
         // Official images are typically in these directories and don't contain "review" or "lifestyle"
@@ -155,11 +205,51 @@ public class ImageUtils {
                lowerUrl.contains("thumbnail");
     }
     
+    /**
+     * A guessed image URL together with the pattern that produced it
+     */
+    public static class ImageCandidate {
+        public final String patternId;
+        public final String url;
+
+        ImageCandidate(String patternId, String url) {
+            this.patternId = patternId;
+            this.url = url;
+        }
+    }
+    
     /**
      * Fallback method to generate image URLs based on patterns
      */
     public static List<String> generateImageUrlsFromPatterns(String originalUrl, String phoneModelId, String brand) {
         List<String> urls = new ArrayList<>();
+        for (ImageCandidate candidate : patternCandidates(originalUrl, phoneModelId, brand)) {
+            urls.add(candidate.url);
+        }
+        return urls;
+    }
+    
+    /**
+     * Generate image URLs based on patterns, most likely first, each tagged with a pattern id
+     * so results can be remembered per brand (see {@link ImageProber}). Unlike
+     * {@link #generateImageUrlsFromPatterns}, a URL produced by two patterns is listed once, under the first.
+     */
+    public static List<ImageCandidate> generateImageCandidates(String originalUrl, String phoneModelId, String brand) {
+        List<ImageCandidate> candidates = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (ImageCandidate candidate : patternCandidates(originalUrl, phoneModelId, brand)) {
+            if (seen.add(candidate.url)) {
+                candidates.add(candidate);
+            }
+        }
+        return candidates;
+    }
+    
+    /**
+     * Every URL the patterns produce, in order; some brands' patterns overlap
+     */
+    private static List<ImageCandidate> patternCandidates(String originalUrl, String phoneModelId, String brand) {
+        List<ImageCandidate> urls = new ArrayList<>();
         if (originalUrl.isEmpty()) return urls;
         
         // Get base domain
@@ -186,81 +276,80 @@ public class ImageUtils {
         }
         
         // Add patterns with numbered suffixes (0, 1, 2) as requested
-        urls.add(domain + "pics/" + brand + "/" + modelNameHyphen + "-0.jpg");
-        urls.add(domain + "pics/" + brand + "/" + modelNameHyphen + "-1.jpg");
-        urls.add(domain + "pics/" + brand + "/" + modelNameHyphen + "-2.jpg");
+        addCandidate(urls, "pics-0", domain + "pics/" + brand + "/" + modelNameHyphen + "-0.jpg");
+        addCandidate(urls, "pics-1", domain + "pics/" + brand + "/" + modelNameHyphen + "-1.jpg");
+        addCandidate(urls, "pics-2", domain + "pics/" + brand + "/" + modelNameHyphen + "-2.jpg");
         
         // For Samsung phones with specific model pattern
         if (brand.equals("samsung")) {
             if (baseModelName.contains("galaxy-s")) {
-                urls.add(domain + "pics/" + brand + "/" + brand + "-" + baseModelName + "-5g-sm-s" + modelNumber + "-0.jpg");
-                urls.add(domain + "pics/" + brand + "/" + brand + "-" + baseModelName + "-5g-sm-s" + modelNumber + "-1.jpg");
-                urls.add(domain + "pics/" + brand + "/" + brand + "-" + baseModelName + "-5g-sm-s" + modelNumber + "-2.jpg");
+                addCandidate(urls, "samsung-5g-sm-0", domain + "pics/" + brand + "/" + brand + "-" + baseModelName + "-5g-sm-s" + modelNumber + "-0.jpg");
+                addCandidate(urls, "samsung-5g-sm-1", domain + "pics/" + brand + "/" + brand + "-" + baseModelName + "-5g-sm-s" + modelNumber + "-1.jpg");
+                addCandidate(urls, "samsung-5g-sm-2", domain + "pics/" + brand + "/" + brand + "-" + baseModelName + "-5g-sm-s" + modelNumber + "-2.jpg");
             }
         }
         
         // Add additional general patterns
-        urls.add(domain + "pics/" + brand + "/" + modelNameHyphen + ".jpg");
+        addCandidate(urls, "pics-plain", domain + "pics/" + brand + "/" + modelNameHyphen + ".jpg");
         
         // Add model number specific pattern
         if (!modelNumber.isEmpty()) {
-            urls.add(domain + "pics/" + brand + "/" + modelNameHyphen + "-" + modelNumber + ".jpg");
+            addCandidate(urls, "pics-model-number", domain + "pics/" + brand + "/" + modelNameHyphen + "-" + modelNumber + ".jpg");
         }
         
         // Add BigPic pattern (used less frequently now)
-        urls.add(domain + "bigpic/" + modelNameHyphen + ".jpg");
+        addCandidate(urls, "bigpic", domain + "bigpic/" + modelNameHyphen + ".jpg");
         
         // Brand-specific patterns
         if (brand.equals("samsung")) {
-            urls.add(domain + "pics/samsung/samsung-" + baseModelName + "-0.jpg");
-            urls.add(domain + "pics/samsung/samsung-" + baseModelName + "-1.jpg");
+            addCandidate(urls, "brand-prefix-0", domain + "pics/samsung/samsung-" + baseModelName + "-0.jpg");
+            addCandidate(urls, "brand-prefix-1", domain + "pics/samsung/samsung-" + baseModelName + "-1.jpg");
         } else if (brand.equals("motorola")) {
-            urls.add(domain + "pics/motorola/motorola-" + baseModelName + "-0.jpg");
-            urls.add(domain + "pics/motorola/motorola-" + baseModelName + "-1.jpg");
+            addCandidate(urls, "brand-prefix-0", domain + "pics/motorola/motorola-" + baseModelName + "-0.jpg");
+            addCandidate(urls, "brand-prefix-1", domain + "pics/motorola/motorola-" + baseModelName + "-1.jpg");
         } else if (brand.equals("vivo") || brand.contains("iqoo")) {
-            urls.add(domain + "pics/vivo/vivo-" + baseModelName + "-0.jpg");
-            urls.add(domain + "pics/vivo/vivo-" + baseModelName + "-1.jpg");
-            urls.add(domain + "pics/iqoo/iqoo-" + baseModelName + "-0.jpg");
-            urls.add(domain + "pics/iqoo/iqoo-" + baseModelName + "-1.jpg");
+            addCandidate(urls, "brand-prefix-0", domain + "pics/vivo/vivo-" + baseModelName + "-0.jpg");
+            addCandidate(urls, "brand-prefix-1", domain + "pics/vivo/vivo-" + baseModelName + "-1.jpg");
+            addCandidate(urls, "iqoo-prefix-0", domain + "pics/iqoo/iqoo-" + baseModelName + "-0.jpg");
+            addCandidate(urls, "iqoo-prefix-1", domain + "pics/iqoo/iqoo-" + baseModelName + "-1.jpg");
         } else if (brand.equals("realme")) {
-            urls.add(domain + "pics/realme/realme-" + baseModelName + "-0.jpg");
-            urls.add(domain + "pics/realme/realme-" + baseModelName + "-1.jpg");
+            addCandidate(urls, "brand-prefix-0", domain + "pics/realme/realme-" + baseModelName + "-0.jpg");
+            addCandidate(urls, "brand-prefix-1", domain + "pics/realme/realme-" + baseModelName + "-1.jpg");
         } else if (brand.equals("nothing")) {
-            urls.add(domain + "pics/nothing/nothing-" + baseModelName + "-0.jpg");
-            urls.add(domain + "pics/nothing/nothing-" + baseModelName + "-1.jpg");
-            urls.add(domain + "pics/nothing/cmf-" + baseModelName + "-0.jpg");
-            urls.add(domain + "pics/nothing/cmf-" + baseModelName + "-1.jpg");
+            addCandidate(urls, "brand-prefix-0", domain + "pics/nothing/nothing-" + baseModelName + "-0.jpg");
+            addCandidate(urls, "brand-prefix-1", domain + "pics/nothing/nothing-" + baseModelName + "-1.jpg");
+            addCandidate(urls, "cmf-prefix-0", domain + "pics/nothing/cmf-" + baseModelName + "-0.jpg");
+            addCandidate(urls, "cmf-prefix-1", domain + "pics/nothing/cmf-" + baseModelName + "-1.jpg");
         }
         
         // Add original URL as last fallback
-        if (!urls.contains(originalUrl) && !originalUrl.isEmpty()) {
-            urls.add(originalUrl);
+        boolean hasOriginal = false;
+        for (ImageCandidate candidate : urls) {
+            hasOriginal |= candidate.url.equals(originalUrl);
+        }
+        if (!hasOriginal) {
+            addCandidate(urls, "original", originalUrl);
         }
         
         return urls;
     }
     
+    private static void addCandidate(List<ImageCandidate> candidates, String patternId, String url) {
+        candidates.add(new ImageCandidate(patternId, url));
+    }
+    
     public static boolean isImageAvailable(String imageUrl) {
-        try {
-            java.net.URL url = new java.net.URL(imageUrl);
-            java.net.HttpURLConnection connection = (java.net.HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("HEAD");
-            connection.setConnectTimeout(5000);
-            
-            int responseCode = connection.getResponseCode();
-            return (responseCode == 200);
-        } catch (Exception e) {
-            return false;
-        }
+        return ImageProber.shared().isAvailable(imageUrl);
     }
     
     /**
-     * Download multiple images of a phone
+     * Download multiple images of a phone, concurrently through the shared {@link ImageDownloader};
+     * returns how many were downloaded
      */
-    public static void downloadImages(List<String> imageUrls, String phoneName, String targetDir) {
+    public static int downloadImages(List<String> imageUrls, String phoneName, String targetDir) {
         if (imageUrls.isEmpty()) {
             System.out.println("No images to download for " + phoneName);
-            return;
+            return 0;
         }
         
         String phoneDir = targetDir + "/" + phoneName.replaceAll("[^a-zA-Z0-9]", "_");
@@ -268,47 +357,48 @@ public class ImageUtils {
         try {
             // Create directory for this phone
             Files.createDirectories(Paths.get(phoneDir));
-            
-            int successful = 0;
-            for (int i = 0; i < imageUrls.size(); i++) {
-                String imageUrl = imageUrls.get(i);
-                try {
-                    String filename = "image_" + (i + 1) + ".jpg";
-                    Path targetPath = Paths.get(phoneDir, filename);
-                    
-                    java.net.URL url = new java.net.URL(imageUrl);
-                    try (java.io.InputStream in = url.openStream()) {
-                        Files.copy(in, targetPath, StandardCopyOption.REPLACE_EXISTING);
-                        System.out.println("Image downloaded: " + targetPath);
-                        successful++;
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error downloading image " + (i + 1) + ": " + e.getMessage());
-                }
-            }
-            
-            System.out.println("Downloaded " + successful + " of " + imageUrls.size() + " images for " + phoneName);
-            
         } catch (IOException e) {
             System.err.println("Error creating directory for phone images: " + e.getMessage());
+            return 0;
+        }
+        
+        List<Path> targets = new ArrayList<>();
+        for (int i = 0; i < imageUrls.size(); i++) {
+            targets.add(Paths.get(phoneDir, "image_" + (i + 1) + ".jpg"));
         }
+        
+        int successful = 0;
+        long totalBytes = 0;
+        List<ImageDownloader.Result> results = ImageDownloader.shared().downloadAll(imageUrls, targets);
+        for (int i = 0; i < results.size(); i++) {
+            ImageDownloader.Result result = results.get(i);
+            if (result.isSuccess()) {
+                System.out.println("Image downloaded: " + result.target + " (" + result.bytes / 1024 + " KB in " + result.latencyMs + " ms)");
+                successful++;
+                totalBytes += result.bytes;
+            } else {
+                System.err.println("Error downloading image " + (i + 1) + ": " + result.error);
+            }
+        }
+        
+        System.out.println("Downloaded " + successful + " of " + imageUrls.size() + " images for " + phoneName
+                + " (" + totalBytes / 1024 + " KB)");
+        return successful;
     }
     
     /**
-     * Download a single image (for backward compatibility)
+     * Download a single image (for backward compatibility); returns whether it was downloaded
      */
-    public static void downloadImage(String imageUrl, String phoneName, String targetDir) {
-        try {
-            String safeFileName = phoneName.replaceAll("[^a-zA-Z0-9]", "_") + ".jpg";
-            java.net.URL url = new java.net.URL(imageUrl);
-            Path targetPath = Paths.get(targetDir, safeFileName);
-            
-            try (java.io.InputStream in = url.openStream()) {
-                Files.copy(in, targetPath, StandardCopyOption.REPLACE_EXISTING);
-                System.out.println("Image downloaded: " + targetPath);
-            }
-        } catch (Exception e) {
-            System.err.println("Error downloading image: " + e.getMessage());
+    public static boolean downloadImage(String imageUrl, String phoneName, String targetDir) {
+        String safeFileName = phoneName.replaceAll("[^a-zA-Z0-9]", "_") + ".jpg";
+        Path targetPath = Paths.get(targetDir, safeFileName);
+        
+        ImageDownloader.Result result = ImageDownloader.shared().download(imageUrl, targetPath).join();
+        if (result.isSuccess()) {
+            System.out.println("Image downloaded: " + targetPath + " (" + result.bytes / 1024 + " KB in " + result.latencyMs + " ms)");
+        } else {
+            System.err.println("Error downloading image: " + result.error);
         }
+        return result.isSuccess();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,72 @@
+package org.example.core;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves {@link ScrapeMetrics#shared()} on GET /metrics in the Prometheus text format, bound to
+ * localhost only. Enabled with -Dscraper.metrics.port=9464 (0 picks a free port).
+ */
+public class MetricsServer {
+    private final HttpServer server;
+    private final ScrapeMetrics metrics;
+
+    public MetricsServer(int port, ScrapeMetrics metrics) throws IOException {
+        this.metrics = metrics;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-server");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        this.server.createContext("/metrics", this::handleMetrics);
+    }
+
+    /**
+     * Start the endpoint when -Dscraper.metrics.port is set; returns null otherwise or when the port is taken
+     */
+    public static MetricsServer startFromSystemProperties() {
+        Integer port = Integer.getInteger("scraper.metrics.port");
+        if (port == null || port < 0) {
+            return null;
+        }
+        try {
+            MetricsServer metricsServer = new MetricsServer(port, ScrapeMetrics.shared());
+            metricsServer.server.start();
+            System.out.println("📈 Metrics on http://localhost:" + metricsServer.getPort() + "/metrics");
+            return metricsServer;
+        } catch (IOException e) {
+            System.err.println("Metrics endpoint unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = metrics.toPrometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package org.example.core;
+
+import okhttp3.*;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Oxylabs push-pull transport.
+ *
+ * URLs handed to {@link #submit(String)} are buffered and sent as one batch job, then a
+ * single poller checks job status and fetches results as they become ready. Futures complete
+ * out of order and no thread is held while a job is pending.
+ *
+ * Status checks are capped in number and back off per job while it stays pending, so a large
+ * catalog run does not turn into thousands of GETs per poll. A job that is not done within the
+ * job timeout, or whose status or results keep failing, is given up and its future fails.
+ */
+public class OxylabsBatchClient {
+    private static final String DEFAULT_BASE_URL = "https://data.oxylabs.io/v1";
+    private static final MediaType JSON = MediaType.parse("application/json");
+    // Consecutive failed status or result calls before a job is given up
+    private static final int MAX_CHECK_ERRORS = 5;
+    // A pending job is checked at most every pollIntervalMs << MAX_BACKOFF_SHIFT
+    private static final int MAX_BACKOFF_SHIFT = 3;
+
+    private static class PendingQuery {
+        final String url;
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        String jobId;
+        // Set while a status or result call for this job is in flight
+        final AtomicBoolean checking = new AtomicBoolean();
+        // Set once the job is accepted; only touched by the poller and the callbacks of its own checks
+        volatile long deadlineNanos;
+        volatile long nextCheckNanos;
+        volatile int pendingChecks;
+        volatile int errors;
+
+        PendingQuery(String url) {
+            this.url = url;
+        }
+    }
+
+    private final String baseUrl;
+    private final String auth;
+    private final String geoLocation;
+    private final AdaptiveThrottle throttle;
+    private final OkHttpClient client;
+    private final int batchSize;
+    private final long flushDelayMs;
+    private final long pollIntervalMs;
+    private final long jobTimeoutMs;
+    private final int maxConcurrentChecks;
+    private final AtomicInteger checksInFlight = new AtomicInteger();
+
+    private final List<PendingQuery> buffer = new ArrayList<>();
+    // Queries not yet completed by URL, so a URL submitted again joins the query already on its way
+    private final Map<String, PendingQuery> byUrl = new ConcurrentHashMap<>();
+    private final Map<String, PendingQuery> submitted = new ConcurrentHashMap<>();
+    // Shared with the realtime path of OxylabsClient; null when disabled
+    private final CircuitBreaker breaker;
+    private final ScheduledExecutorService scheduler;
+    // Submissions wait for the throttle here, so polling never stalls behind them
+    private final ExecutorService submitter;
+    private final ScrapeMetrics metrics = ScrapeMetrics.shared();
+
+    public OxylabsBatchClient(String username, String password, String geoLocation, AdaptiveThrottle throttle,
+                              String baseUrl, int batchSize, long flushDelayMs, long pollIntervalMs) {
+        this(username, password, geoLocation, throttle, baseUrl, batchSize, flushDelayMs, pollIntervalMs, 600_000L, 32, null);
+    }
+
+    /**
+     * @param jobTimeoutMs how long a submitted job may take before its future fails
+     * @param maxConcurrentChecks status and result calls in flight at once
+     * @param breaker told about every submit, status and result call, or null
+     */
+    public OxylabsBatchClient(String username, String password, String geoLocation, AdaptiveThrottle throttle,
+                              String baseUrl, int batchSize, long flushDelayMs, long pollIntervalMs,
+                              long jobTimeoutMs, int maxConcurrentChecks, CircuitBreaker breaker) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.auth = Credentials.basic(username, password);
+        this.geoLocation = geoLocation;
+        this.throttle = throttle;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushDelayMs = flushDelayMs;
+        this.pollIntervalMs = pollIntervalMs;
+        this.jobTimeoutMs = jobTimeoutMs;
+        this.maxConcurrentChecks = Math.max(1, maxConcurrentChecks);
+        this.breaker = breaker;
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(64);
+        dispatcher.setMaxRequestsPerHost(32);
+        this.client = HttpTransport.shared().newBuilder()
+                .dispatcher(dispatcher)
+                .connectTimeout(60, TimeUnit.SECONDS)
+                .writeTimeout(60, TimeUnit.SECONDS)
+                .readTimeout(60, TimeUnit.SECONDS)
+                .build();
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "oxylabs-push-pull");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.submitter = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "oxylabs-push-pull-submit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        HttpTransport.shared().prewarm(this.baseUrl);
+        scheduler.scheduleWithFixedDelay(this::flush, flushDelayMs, flushDelayMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::poll, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Configure from system properties such as -Dscraper.oxylabs.pushPullUrl=http://localhost:8089/v1,
+     * -Dscraper.oxylabs.jobTimeoutMs (default 600000) and -Dscraper.oxylabs.maxPolls (default 32)
+     */
+    public static OxylabsBatchClient fromSystemProperties(String username, String password, String geoLocation,
+                                                         AdaptiveThrottle throttle, CircuitBreaker breaker) {
+        return new OxylabsBatchClient(username, password, geoLocation, throttle,
+                System.getProperty("scraper.oxylabs.pushPullUrl", DEFAULT_BASE_URL),
+                Integer.getInteger("scraper.oxylabs.batchSize", 100),
+                Long.getLong("scraper.oxylabs.flushDelayMs", 500L),
+                Long.getLong("scraper.oxylabs.pollIntervalMs", 2000L),
+                Long.getLong("scraper.oxylabs.jobTimeoutMs", 600_000L),
+                Integer.getInteger("scraper.oxylabs.maxPolls", 32),
+                breaker);
+    }
+
+    /**
+     * Queue a URL for the next batch job; the future completes with the page content. A URL that is
+     * already queued or running is not sent again, its caller shares the outstanding job.
+     */
+    public CompletableFuture<String> submit(String url) {
+        PendingQuery query;
+        boolean flushNow;
+        synchronized (buffer) {
+            PendingQuery outstanding = byUrl.get(url);
+            if (outstanding != null) {
+                return outstanding.future.copy();
+            }
+            query = new PendingQuery(url);
+            byUrl.put(url, query);
+            buffer.add(query);
+            flushNow = buffer.size() >= batchSize;
+        }
+        PendingQuery added = query;
+        query.future.whenComplete((content, error) -> byUrl.remove(url, added));
+        if (flushNow) {
+            scheduler.execute(this::flush);
+        }
+        return query.future.copy();
+    }
+
+    public int getOutstanding() {
+        synchronized (buffer) {
+            return buffer.size() + submitted.size();
+        }
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        submitter.shutdownNow();
+        // The connection pool is shared with every other client, so it stays up
+        client.dispatcher().executorService().shutdown();
+    }
+
+    /**
+     * Hand everything buffered so far to the submitter as batch jobs of at most batchSize URLs
+     */
+    private void flush() {
+        while (true) {
+            List<PendingQuery> batch;
+            synchronized (buffer) {
+                if (buffer.isEmpty()) {
+                    return;
+                }
+                int count = Math.min(batchSize, buffer.size());
+                batch = new ArrayList<>(buffer.subList(0, count));
+                buffer.subList(0, count).clear();
+            }
+
+            submitter.execute(() -> {
+                try {
+                    submitBatch(batch);
+                } catch (Exception e) {
+                    System.err.println("Error submitting Oxylabs batch of " + batch.size() + " URLs: " + e.getMessage());
+                    for (PendingQuery query : batch) {
+                        query.future.completeExceptionally(e);
+                    }
+                }
+            });
+        }
+    }
+
+    private void submitBatch(List<PendingQuery> batch) throws IOException {
+        JSONArray urls = new JSONArray();
+        for (PendingQuery query : batch) {
+            urls.put(query.url);
+        }
+
+        JSONObject payload = new JSONObject();
+        payload.put("source", "universal");
+        payload.put("url", urls);
+        payload.put("geo_location", geoLocation);
+
+        byte[] payloadBytes = payload.toString().getBytes(StandardCharsets.UTF_8);
+        Request request = new Request.Builder()
+                .url(baseUrl + "/queries/batch")
+                .addHeader("Authorization", auth)
+                .post(RequestBody.create(payloadBytes, JSON))
+                .build();
+
+        long waitStart = System.nanoTime();
+        try {
+            throttle.acquire();
+            metrics.recordStage("oxylabs_throttle_wait", waitStart);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for Oxylabs throttle");
+        }
+
+        System.out.println("Submitting Oxylabs batch job with " + batch.size() + " URLs");
+        long start = System.nanoTime();
+        metrics.recordBytesOut(ScrapeMetrics.OXYLABS, payloadBytes.length);
+        JSONArray queries;
+        boolean released = false;
+        try (Response response = client.newCall(request).execute()) {
+            String body = response.body() != null ? response.body().string() : "";
+            released = true;
+            metrics.recordStage("oxylabs_submit", start);
+            metrics.recordRequest(ScrapeMetrics.OXYLABS, response.code());
+            metrics.recordBytesIn(ScrapeMetrics.OXYLABS, body.length());
+            recordOutcome(response.code());
+            if (!response.isSuccessful()) {
+                if (response.code() == 429 || response.code() >= 500) {
+                    throttle.onOverload("HTTP " + response.code());
+                } else {
+                    throttle.onIgnore();
+                }
+                throw new HttpStatusException(response.code(), "Batch submission failed: HTTP " + response.code());
+            }
+            throttle.onSuccess(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            queries = new JSONObject(body).getJSONArray("queries");
+        } catch (IOException e) {
+            if (!released) {
+                throttle.onOverload(e.getClass().getSimpleName());
+                recordFailure(e.getClass().getSimpleName());
+                metrics.recordRequest(ScrapeMetrics.OXYLABS, e.getClass().getSimpleName());
+            }
+            throw e;
+        }
+
+        // Jobs come back in submission order, but match by URL in case Oxylabs reorders them; submit()
+        // collapses duplicates, so every URL appears once per batch
+        List<PendingQuery> unmatched = new ArrayList<>(batch);
+        for (int i = 0; i < queries.length(); i++) {
+            JSONObject job = queries.getJSONObject(i);
+            String jobUrl = job.optString("url", "");
+            Iterator<PendingQuery> it = unmatched.iterator();
+            while (it.hasNext()) {
+                PendingQuery query = it.next();
+                if (query.url.equals(jobUrl)) {
+                    long now = System.nanoTime();
+                    query.deadlineNanos = now + TimeUnit.MILLISECONDS.toNanos(jobTimeoutMs);
+                    query.nextCheckNanos = now + TimeUnit.MILLISECONDS.toNanos(pollIntervalMs);
+                    query.jobId = job.getString("id");
+                    submitted.put(query.jobId, query);
+                    it.remove();
+                    break;
+                }
+            }
+        }
+
+        for (PendingQuery query : unmatched) {
+            query.future.completeExceptionally(new IOException("Batch job did not accept URL: " + query.url));
+        }
+    }
+
+    /**
+     * Check outstanding jobs that are due, at most maxConcurrentChecks at a time; ready ones have their
+     * results fetched, and jobs past their deadline are given up
+     */
+    private void poll() {
+        long now = System.nanoTime();
+        for (PendingQuery query : submitted.values()) {
+            if (now - query.deadlineNanos > 0) {
+                if (query.checking.compareAndSet(false, true)) {
+                    fail(query, new IOException("Oxylabs job " + query.jobId + " for " + query.url
+                            + " not done after " + jobTimeoutMs + " ms"));
+                }
+                continue;
+            }
+            if (now - query.nextCheckNanos < 0 || checksInFlight.get() >= maxConcurrentChecks
+                    || !query.checking.compareAndSet(false, true)) {
+                continue;
+            }
+            checksInFlight.incrementAndGet();
+
+            Request request = new Request.Builder()
+                    .url(baseUrl + "/queries/" + query.jobId)
+                    .addHeader("Authorization", auth)
+                    .get()
+                    .build();
+
+            client.newCall(request).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    // Transient; try again on the next poll
+                    metrics.recordRequest(ScrapeMetrics.OXYLABS, e.getClass().getSimpleName());
+                    recordFailure(e.getClass().getSimpleName());
+                    checkFailed(query, e);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    metrics.recordRequest(ScrapeMetrics.OXYLABS, response.code());
+                    recordOutcome(response.code());
+                    try (response) {
+                        if (response.code() == 404) {
+                            checkDone();
+                            fail(query, new IOException("Oxylabs job " + query.jobId + " not found for " + query.url));
+                            return;
+                        }
+                        if (!response.isSuccessful() || response.body() == null) {
+                            checkFailed(query, new HttpStatusException(response.code(), "HTTP " + response.code()));
+                            return;
+                        }
+                        String body = response.body().string();
+                        metrics.recordBytesIn(ScrapeMetrics.OXYLABS, body.length());
+                        String status = new JSONObject(body).optString("status", "pending");
+                        if (status.equals("done")) {
+                            fetchResult(query);
+                        } else if (status.equals("faulted")) {
+                            checkDone();
+                            fail(query, new IOException("Oxylabs job " + query.jobId + " faulted for " + query.url));
+                        } else {
+                            // Still pending: look again later, a little later each time
+                            query.errors = 0;
+                            int checks = ++query.pendingChecks;
+                            long backoffMs = pollIntervalMs << Math.min(checks, MAX_BACKOFF_SHIFT);
+                            query.nextCheckNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs);
+                            checkDone();
+                            query.checking.set(false);
+                        }
+                    } catch (Exception e) {
+                        checkFailed(query, new IOException("Unreadable status: " + e.getMessage(), e));
+                    }
+                }
+            });
+        }
+    }
+
+    private void fetchResult(PendingQuery query) {
+        Request request = new Request.Builder()
+                .url(baseUrl + "/queries/" + query.jobId + "/results")
+                .addHeader("Authorization", auth)
+                .get()
+                .build();
+
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                metrics.recordRequest(ScrapeMetrics.OXYLABS, e.getClass().getSimpleName());
+                recordFailure(e.getClass().getSimpleName());
+                checkFailed(query, e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                metrics.recordRequest(ScrapeMetrics.OXYLABS, response.code());
+                recordOutcome(response.code());
+                try (response) {
+                    if (response.code() == 404) {
+                        checkDone();
+                        fail(query, new IOException("No results for Oxylabs job " + query.jobId + " (" + query.url + ")"));
+                        return;
+                    }
+                    if (!response.isSuccessful() || response.body() == null) {
+                        checkFailed(query, new HttpStatusException(response.code(), "HTTP " + response.code()));
+                        return;
+                    }
+                    String content;
+                    try (Reader reader = OxylabsContentReader.open(new InputStreamReader(
+                            metrics.countBytesIn(response.body().byteStream(), ScrapeMetrics.OXYLABS), StandardCharsets.UTF_8))) {
+                        content = OxylabsClient.readFully(reader);
+                    } catch (IOException e) {
+                        // A body cut off mid-read is as transient as a failed call; fetch it again
+                        checkFailed(query, new IOException("Bad result for Oxylabs job " + query.jobId + ": " + e.getMessage(), e));
+                        return;
+                    }
+                    checkDone();
+                    submitted.remove(query.jobId);
+                    query.future.complete(content);
+                } catch (Exception e) {
+                    checkFailed(query, e instanceof IOException ? (IOException) e : new IOException(e));
+                }
+            }
+        });
+    }
+
+    /**
+     * A status or result call finished; frees its place under maxConcurrentChecks
+     */
+    private void checkDone() {
+        checksInFlight.decrementAndGet();
+    }
+
+    /**
+     * A status or result call failed: retry on a later poll, or give up on the job after repeated failures
+     */
+    private void checkFailed(PendingQuery query, IOException error) {
+        checkDone();
+        if (++query.errors >= MAX_CHECK_ERRORS) {
+            fail(query, new IOException("Giving up on Oxylabs job " + query.jobId + " for " + query.url
+                    + " after " + query.errors + " failed checks, last: " + error.getMessage(), error));
+            return;
+        }
+        query.nextCheckNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pollIntervalMs);
+        query.checking.set(false);
+    }
+
+    /**
+     * Feed a response into the breaker; only 5xx count against Oxylabs' health
+     */
+    private void recordOutcome(int statusCode) {
+        if (breaker == null) {
+            return;
+        }
+        if (statusCode >= 500) {
+            breaker.onFailure("HTTP " + statusCode);
+        } else {
+            breaker.onSuccess();
+        }
+    }
+
+    private void recordFailure(String reason) {
+        if (breaker != null) {
+            breaker.onFailure(reason);
+        }
+    }
+
+    private void fail(PendingQuery query, IOException error) {
+        submitted.remove(query.jobId);
+        query.future.completeExceptionally(error);
+    }
+}
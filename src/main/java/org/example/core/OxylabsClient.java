@@ -2,163 +2,551 @@ package org.example.core;
 
 import okhttp3.*;
 import org.json.JSONObject;
-import org.json.JSONArray;
 
-import java.io.BufferedReader;
+import java.io.FilterReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.util.Base64;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class OxylabsClient {
     private static final String OXYLABS_API_URL = "https://realtime.oxylabs.io/v1/queries";
+    private static final String GEO_LOCATION = "India";
+    private final String realtimeUrl;
     private final String username;
     private final String password;
     private final OkHttpClient client;
+    private final AdaptiveThrottle throttle;
+    private final ResponseCache cache;
+    // Only set when -Dscraper.oxylabs.transport=push-pull
+    private final OxylabsBatchClient batchClient;
+    // Bounded pool for realtime calls, so a slow Oxylabs cannot take an unbounded number of threads
+    private final ExecutorService realtimeExecutor;
+    // Null unless -Dscraper.oxylabs.hedge.enabled=true
+    private final HedgePolicy hedging;
+    // Runs both halves of a hedged pair while a realtime thread waits, so at most two per realtime thread; null without hedging
+    private final ExecutorService hedgeExecutor;
+    // Null when -Dscraper.oxylabs.breaker.enabled=false
+    private final CircuitBreaker breaker;
+    private final ScrapeMetrics metrics = ScrapeMetrics.shared();
+    // Null unless -Dscraper.record.dir is set
+    private final FixtureArchive recorder = FixtureArchive.recorder();
 
     public OxylabsClient(String username, String password) {
+        this(username, password, AdaptiveThrottle.fromSystemProperties("Oxylabs", "scraper.oxylabs"),
+                ResponseCache.fromSystemProperties());
+    }
+
+    /**
+     * @param cache response cache, or null to always go to the network
+     */
+    public OxylabsClient(String username, String password, AdaptiveThrottle throttle, ResponseCache cache) {
         this.username = username;
         this.password = password;
+        this.throttle = throttle;
+        this.cache = cache;
+        this.realtimeUrl = System.getProperty("scraper.oxylabs.realtimeUrl", OXYLABS_API_URL);
+        this.breaker = CircuitBreaker.fromSystemProperties(ScrapeMetrics.OXYLABS, "scraper.oxylabs.breaker");
+        this.batchClient = "push-pull".equalsIgnoreCase(System.getProperty("scraper.oxylabs.transport", "realtime"))
+                ? OxylabsBatchClient.fromSystemProperties(username, password, GEO_LOCATION, throttle, breaker)
+                : null;
+        this.hedging = HedgePolicy.fromSystemProperties();
+        this.realtimeExecutor = Executors.newFixedThreadPool(Integer.getInteger("scraper.oxylabs.workers", 64), runnable -> {
+            Thread thread = new Thread(runnable, "oxylabs-realtime");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.hedgeExecutor = hedging == null ? null : Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "oxylabs-hedge");
+            thread.setDaemon(true);
+            return thread;
+        });
         
-        this.client = new OkHttpClient.Builder()
+        this.client = HttpTransport.shared().newBuilder()
                 .connectTimeout(60, TimeUnit.SECONDS)
                 .writeTimeout(60, TimeUnit.SECONDS)
                 .readTimeout(180, TimeUnit.SECONDS)
                 .build();
+        if (batchClient == null) {
+            HttpTransport.shared().prewarm(realtimeUrl);
+        }
     }
     
     /**
      * Main scrape method using the simplified approach as suggested by Oxylabs support
      */
     public String scrape(String url) throws IOException {
+        try (Reader reader = scrapeReader(url)) {
+            return readFully(reader);
+        }
+    }
+    
+    /**
+     * Like {@link #scrape(String)}, but streams the page content straight out of the Oxylabs
+     * response instead of materializing the response and its JSON tree first.
+     * The caller must close the returned Reader.
+     */
+    public Reader scrapeReader(String url) throws IOException {
+        Reader cached = openCached(url);
+        if (cached != null) {
+            return recorded(url, cached);
+        }
+        
         // Create the request body based on Oxylabs representative's example
         JSONObject payload = new JSONObject();
         payload.put("source", "universal");
         payload.put("url", url);
-        payload.put("geo_location", "India");
+        payload.put("geo_location", GEO_LOCATION);
         
         MediaType mediaType = MediaType.parse("application/json");
-        RequestBody body = RequestBody.create(payload.toString(), mediaType);
+        byte[] payloadBytes = payload.toString().getBytes(StandardCharsets.UTF_8);
+        RequestBody body = RequestBody.create(payloadBytes, mediaType);
         
         String auth = Credentials.basic(username, password);
         
         Request request = new Request.Builder()
-                .url(OXYLABS_API_URL)
+                .url(realtimeUrl)
                 .addHeader("Authorization", auth)
                 .addHeader("Content-Type", "application/json")
                 .post(body)
                 .build();
         
-        // Execute the request
+        // Execute the request; an open circuit fails fast before taking a throttle slot
+        if (breaker != null) {
+            breaker.check();
+        }
+        acquireThrottle();
         System.out.println("Sending Oxylabs request for: " + url);
-        try (Response response = client.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                System.err.println("Error: " + response.code() + " - " + response.message());
-                throw new IOException("Unexpected response: " + response);
+        long start = System.nanoTime();
+        ResponseCache.PageType pageType = ResponseCache.PageType.of(url);
+        Response response = hedging != null
+                ? executeHedged(client.newCall(request), url, pageType)
+                : execute(client.newCall(request), pageType);
+        
+        if (!response.isSuccessful()) {
+            System.err.println("Error: " + response.code() + " - " + response.message());
+            response.close();
+            throw new HttpStatusException(response.code(), "Unexpected response: " + response);
+        }
+        
+        if (response.body() == null) {
+            response.close();
+            throw new IOException("Empty response body");
+        }
+        
+        // Walk the JSON up to results[0].content and hand the rest of the stream to the caller
+        Reader content;
+        try {
+            content = OxylabsContentReader.open(new InputStreamReader(
+                    metrics.countBytesIn(response.body().byteStream(), ScrapeMetrics.OXYLABS), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("Unexpected result format for " + url + ": " + e.getMessage());
+            throw e;
+        }
+        System.out.println("Successfully retrieved content in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        content = recorded(url, content);
+        return cache != null ? new CachingReader(content, cache.openWriter(url, GEO_LOCATION)) : content;
+    }
+
+    /**
+     * Fetch a page without blocking the caller. With the push-pull transport the URL joins the
+     * next batch job and the future completes whenever Oxylabs has the result, in any order;
+     * otherwise the realtime endpoint is called on a background thread.
+     */
+    public CompletableFuture<String> scrapeAsync(String url) {
+        return scrapeReaderAsync(url).thenApply(reader -> {
+            try (reader) {
+                return readFully(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-            
-            if (response.body() == null) {
-                throw new IOException("Empty response body");
+        });
+    }
+
+    /**
+     * Asynchronous variant of {@link #scrapeReader(String)}; the page is read by whoever consumes the Reader
+     */
+    public CompletableFuture<Reader> scrapeReaderAsync(String url) {
+        Reader cached = openCached(url);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(recorded(url, cached));
+        }
+
+        if (batchClient != null) {
+            // Batch jobs report to the same breaker, so an unhealthy Oxylabs turns new pages away here too
+            if (breaker != null) {
+                try {
+                    breaker.check();
+                } catch (CircuitOpenException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }
+            return batchClient.submit(url).thenApply(content -> {
+                System.out.println("Successfully retrieved batch result for: " + url);
+                return new StringReader(recorded(url, putCached(url, content)));
+            });
+        }
+
+        CompletableFuture<Reader> future = new CompletableFuture<>();
+        realtimeExecutor.execute(() -> {
+            try {
+                future.complete(scrapeReader(url));
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    public boolean isPushPull() {
+        return batchClient != null;
+    }
+
+    /**
+     * Stop the realtime and hedge pools and the push-pull poller; the shared connection pool stays up
+     */
+    public void shutdown() {
+        realtimeExecutor.shutdown();
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdown();
+        }
+        if (batchClient != null) {
+            batchClient.shutdown();
+        }
+    }
+
+    /**
+     * Current rate limit and concurrency window, e.g. for progress output
+     */
+    public String getThrottleStatus() {
+        return throttle.getStatus();
+    }
+
+    /**
+     * Hedged request budget, or null when hedging is off
+     */
+    public HedgePolicy getHedging() {
+        return hedging;
+    }
+
+    /**
+     * Circuit breaker guarding Oxylabs, or null when disabled
+     */
+    public CircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+    public AdaptiveThrottle getThrottle() {
+        return throttle;
+    }
+
+    private Reader openCached(String url) {
+        if (cache == null) {
+            return null;
+        }
+        Reader cached = cache.openReader(url, GEO_LOCATION);
+        if (cached != null) {
+            System.out.println("Cache hit for: " + url);
+            metrics.recordCacheHit();
+        }
+        return cached;
+    }
+
+    private Reader recorded(String url, Reader content) {
+        return recorder != null ? recorder.recordPage(url, content) : content;
+    }
+
+    private String recorded(String url, String content) {
+        if (recorder != null) {
+            recorder.putPage(url, content);
+        }
+        return content;
+    }
+
+    static String readFully(Reader reader) throws IOException {
+        StringBuilder content = new StringBuilder(64 * 1024);
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            content.append(buffer, 0, read);
+        }
+        return content.toString();
+    }
+
+    /**
+     * Copies content into a cache entry while it is being read; the entry is only
+     * committed when the content was read to the end
+     */
+    private static class CachingReader extends FilterReader {
+        private final ResponseCache.EntryWriter entry;
+        private boolean complete;
+
+        CachingReader(Reader content, ResponseCache.EntryWriter entry) {
+            super(content);
+            this.entry = entry;
+        }
+
+        @Override
+        public int read() throws IOException {
+            char[] single = new char[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0];
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            int read = super.read(cbuf, off, len);
+            if (read == -1) {
+                complete = true;
+            } else {
+                entry.write(cbuf, off, read);
             }
-            
-            // Parse the response
-            String responseBody = response.body().string();
-            JSONObject json = new JSONObject(responseBody);
-            
-            if (json.has("results") && json.getJSONArray("results").length() > 0) {
-                JSONObject result = json.getJSONArray("results").getJSONObject(0);
-                if (result.has("content")) {
-                    System.out.println("Successfully retrieved content");
-                    return result.getString("content");
-                } else if (result.has("body")) {
-                    System.out.println("Successfully retrieved body");
-                    return result.getString("body");
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            char[] skipped = new char[(int) Math.min(n, 8192)];
+            int read = read(skipped, 0, skipped.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (complete) {
+                    try {
+                        entry.close();
+                    } catch (IOException e) {
+                        System.err.println("Could not cache response: " + e.getMessage());
+                    }
                 } else {
-                    // Print the full result to see what we got
-                    System.err.println("Unexpected result format: " + result.toString(2));
-                    throw new IOException("No content or body in response");
+                    entry.abort();
                 }
             }
-            
-            throw new IOException("No results in response: " + json.toString(2));
         }
     }
 
+    private String putCached(String url, String content) {
+        if (cache != null) {
+            cache.put(url, GEO_LOCATION, content);
+        }
+        return content;
+    }
+
     /**
-     * Scrape a URL using the universal source, which may provide better extraction for complex pages
+     * Send one Oxylabs request on a throttle slot the caller already holds, and release the slot
      */
-    public String scrapeUniversal(String url) throws IOException {
-        // Structure the payload similar to the Python example
-        JSONObject payload = new JSONObject();
-        payload.put("source", "universal");
-        payload.put("url", url);
-        payload.put("geo_location", "India"); // Use location suggested by Oxylabs support
-        
-        String requestBody = payload.toString();
-        
-        // Create the HTTP request
-        URL apiUrl = new URL("https://realtime.oxylabs.io/v1/queries");
-        HttpURLConnection connection = (HttpURLConnection) apiUrl.openConnection();
-        connection.setRequestMethod("POST");
-        connection.setRequestProperty("Content-Type", "application/json");
-        connection.setRequestProperty("Accept", "application/json");
-        
-        // Set up Basic Authentication
-        String auth = username + ":" + password;
-        String encodedAuth = Base64.getEncoder().encodeToString(auth.getBytes());
-        connection.setRequestProperty("Authorization", "Basic " + encodedAuth);
-        
-        // Enable output for POST
-        connection.setDoOutput(true);
-        
-        // Send the request
-        try (OutputStream os = connection.getOutputStream()) {
-            byte[] input = requestBody.getBytes("utf-8");
-            os.write(input, 0, input.length);
+    private Response execute(Call call, ResponseCache.PageType pageType) throws IOException {
+        long start = System.nanoTime();
+        RequestBody body = call.request().body();
+        metrics.recordBytesOut(ScrapeMetrics.OXYLABS, body != null ? body.contentLength() : 0);
+        Response response;
+        try {
+            response = call.execute();
+        } catch (IOException e) {
+            if (call.isCanceled()) {
+                // The losing half of a hedged pair says nothing about Oxylabs' health
+                throttle.onIgnore();
+                metrics.recordRequest(ScrapeMetrics.OXYLABS, "cancelled");
+            } else {
+                // Timeouts and dropped connections are treated as an overload signal
+                throttle.onOverload(e.getClass().getSimpleName());
+                recordFailure(e.getClass().getSimpleName());
+                metrics.recordRequest(ScrapeMetrics.OXYLABS, e.getClass().getSimpleName());
+            }
+            throw e;
         }
-        
-        // Get response
-        int responseCode = connection.getResponseCode();
-        
-        if (responseCode == HttpURLConnection.HTTP_OK) {
-            // Read the response
-            try (BufferedReader br = new BufferedReader(new InputStreamReader(connection.getInputStream(), "utf-8"))) {
-                StringBuilder response = new StringBuilder();
-                String responseLine;
-                while ((responseLine = br.readLine()) != null) {
-                    response.append(responseLine.trim());
+        releaseThrottle(response.code(), start);
+        recordOutcome(response.code());
+        metrics.recordStage("oxylabs_request", start);
+        metrics.recordRequest(ScrapeMetrics.OXYLABS, response.code());
+        if (hedging != null && response.isSuccessful()) {
+            hedging.recordLatency(pageType, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return response;
+    }
+
+    /**
+     * Send a request and, if it is still outstanding after the p95 latency of its page type, a
+     * duplicate. The first successful response wins and the other call is cancelled. A hedge is
+     * only sent while the budget allows it and the throttle has a slot and a permit free right
+     * now, so hedging never queues behind regular traffic.
+     */
+    private Response executeHedged(Call primary, String url, ResponseCache.PageType pageType) throws IOException {
+        hedging.onRequest();
+        CompletableFuture<Response> primaryResult = executeAsync(primary, pageType);
+        Call hedge = null;
+        CompletableFuture<Response> hedgeResult = null;
+        try {
+            long delayMs = hedging.hedgeDelayMs(pageType);
+            if (delayMs < 0) {
+                return await(primaryResult);
+            }
+            try {
+                return await(primaryResult, delayMs);
+            } catch (TimeoutException e) {
+                // Slower than the p95 for this kind of page, hedge it if we can afford to
+            }
+            if (!throttle.tryAcquire()) {
+                return await(primaryResult);
+            }
+            if (!hedging.tryHedge()) {
+                throttle.onIgnore();
+                return await(primaryResult);
+            }
+            System.out.println("🔀 Hedging Oxylabs request for " + url + " after " + delayMs + " ms (" + hedging.getStatus() + ")");
+            metrics.recordHedge("sent");
+            hedge = primary.clone();
+            hedgeResult = executeAsync(hedge, pageType);
+
+            while (true) {
+                if (succeeded(primaryResult)) {
+                    discard(hedge, hedgeResult);
+                    metrics.recordHedge("lost");
+                    return primaryResult.join();
                 }
-                
-                // Parse JSON response to extract the content
-                JSONObject jsonResponse = new JSONObject(response.toString());
-                
-                // The structure is different for universal source
-                if (jsonResponse.has("results")) {
-                    JSONArray results = jsonResponse.getJSONArray("results");
-                    if (results.length() > 0) {
-                        JSONObject result = results.getJSONObject(0);
-                        if (result.has("content")) {
-                            System.out.println("Successfully retrieved content using universal source");
-                            return result.getString("content");
-                        }
-                    }
+                if (succeeded(hedgeResult)) {
+                    discard(primary, primaryResult);
+                    metrics.recordHedge("won");
+                    return hedgeResult.join();
                 }
-                
-                throw new IOException("No content in response from universal source");
-            }
-        } else {
-            // Handle error response
-            try (BufferedReader br = new BufferedReader(new InputStreamReader(connection.getErrorStream(), "utf-8"))) {
-                StringBuilder response = new StringBuilder();
-                String responseLine;
-                while ((responseLine = br.readLine()) != null) {
-                    response.append(responseLine.trim());
+                if (primaryResult.isDone() && hedgeResult.isDone()) {
+                    discard(hedge, hedgeResult);
+                    metrics.recordHedge("failed");
+                    return await(primaryResult);
+                }
+                CompletableFuture<?> pending = primaryResult.isDone() ? hedgeResult
+                        : hedgeResult.isDone() ? primaryResult
+                        : CompletableFuture.anyOf(primaryResult, hedgeResult);
+                try {
+                    pending.get();
+                } catch (ExecutionException e) {
+                    // Looked at on the next pass
                 }
-                throw new IOException("HTTP error " + responseCode + ": " + response.toString());
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            discard(primary, primaryResult);
+            if (hedge != null) {
+                discard(hedge, hedgeResult);
+            }
+            throw new InterruptedIOException("Interrupted while waiting for Oxylabs");
         }
     }
+
+    private CompletableFuture<Response> executeAsync(Call call, ResponseCache.PageType pageType) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return execute(call, pageType);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, hedgeExecutor);
+    }
+
+    private static boolean succeeded(CompletableFuture<Response> result) {
+        return result.isDone() && !result.isCompletedExceptionally() && result.join().isSuccessful();
+    }
+
+    /**
+     * Cancel the losing call and close its response, whether it has arrived yet or not
+     */
+    private static void discard(Call call, CompletableFuture<Response> result) {
+        call.cancel();
+        result.thenAccept(Response::close);
+    }
+
+    private static Response await(CompletableFuture<Response> result) throws IOException, InterruptedException {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw asIOException(e.getCause());
+        }
+    }
+
+    private static Response await(CompletableFuture<Response> result, long timeoutMs)
+            throws IOException, InterruptedException, TimeoutException {
+        try {
+            return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw asIOException(e.getCause());
+        }
+    }
+
+    private static IOException asIOException(Throwable cause) {
+        return cause instanceof IOException ? (IOException) cause : new IOException(cause);
+    }
+
+    /**
+     * Feed a response into the circuit breaker; only 5xx count against Oxylabs' health, 429 is the throttle's business
+     */
+    private void recordOutcome(int statusCode) {
+        if (breaker == null) {
+            return;
+        }
+        if (statusCode >= 500) {
+            breaker.onFailure("HTTP " + statusCode);
+        } else {
+            breaker.onSuccess();
+        }
+    }
+
+    private void recordFailure(String reason) {
+        if (breaker != null) {
+            breaker.onFailure(reason);
+        }
+    }
+
+    private void acquireThrottle() throws IOException {
+        long start = System.nanoTime();
+        try {
+            throttle.acquire();
+            metrics.recordStage("oxylabs_throttle_wait", start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for Oxylabs throttle");
+        }
+    }
+
+    /**
+     * Feed the outcome of a request back into the AIMD controller
+     */
+    private void releaseThrottle(int statusCode, long startNanos) {
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (statusCode == 429 || statusCode >= 500) {
+            throttle.onOverload("HTTP " + statusCode);
+        } else if (statusCode >= 400) {
+            throttle.onIgnore();
+        } else {
+            throttle.onSuccess(latencyMs);
+        }
+    }
+
+    /**
+     * Scrape a URL using the universal source, which may provide better extraction for complex pages.
+     * {@link #scrape(String)} sends the same universal-source request, so this shares its transport,
+     * throttle, cache and circuit breaker and keeps the page byte for byte.
+     */
+    public String scrapeUniversal(String url) throws IOException {
+        String content = scrape(url);
+        System.out.println("Successfully retrieved content using universal source");
+        return content;
+    }
 }
@@ -0,0 +1,254 @@
+package org.example.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams {@code results[0].content} out of an Oxylabs JSON response without building the
+ * whole response in memory.
+ *
+ * {@link #open(Reader)} walks the JSON just far enough to reach the content string and returns
+ * a Reader that decodes the string's escape sequences on the fly, so the page arrives at the
+ * HTML parser as a single copy. Closing the returned Reader closes the underlying response.
+ */
+public class OxylabsContentReader {
+
+    private OxylabsContentReader() {
+    }
+
+    /**
+     * Position the response at the page content. Falls back to {@code results[0].body}
+     * when no content field is present.
+     */
+    public static Reader open(Reader response) throws IOException {
+        BufferedReader in = response instanceof BufferedReader ? (BufferedReader) response : new BufferedReader(response, 16 * 1024);
+        List<String> topLevelKeys = new ArrayList<>();
+        try {
+            expect(in, '{');
+            while (true) {
+                int c = nextNonWhitespace(in);
+                if (c == '}') {
+                    break;
+                }
+                if (c == ',') {
+                    c = nextNonWhitespace(in);
+                }
+                if (c != '"') {
+                    throw new IOException("Malformed Oxylabs response, expected key but got '" + (char) c + "'");
+                }
+                String key = readString(in);
+                topLevelKeys.add(key);
+                expect(in, ':');
+
+                if (key.equals("results")) {
+                    Reader content = openFirstResult(in);
+                    if (content != null) {
+                        return content;
+                    }
+                    throw new IOException("No content or body in response");
+                }
+                skipValue(in, nextNonWhitespace(in));
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+
+        in.close();
+        throw new IOException("No results in response (keys: " + topLevelKeys + ")");
+    }
+
+    private static Reader openFirstResult(BufferedReader in) throws IOException {
+        expect(in, '[');
+        int c = nextNonWhitespace(in);
+        if (c == ']') {
+            return null;
+        }
+        if (c != '{') {
+            throw new IOException("Malformed Oxylabs response, expected result object");
+        }
+
+        String body = null;
+        while (true) {
+            c = nextNonWhitespace(in);
+            if (c == '}') {
+                break;
+            }
+            if (c == ',') {
+                c = nextNonWhitespace(in);
+            }
+            if (c != '"') {
+                throw new IOException("Malformed Oxylabs response, expected key but got '" + (char) c + "'");
+            }
+            String key = readString(in);
+            expect(in, ':');
+            int valueStart = nextNonWhitespace(in);
+
+            if (key.equals("content") && valueStart == '"') {
+                return new JsonStringReader(in);
+            } else if (key.equals("body") && valueStart == '"') {
+                // Only kept in case no content field follows
+                body = readString(in);
+            } else {
+                skipValue(in, valueStart);
+            }
+        }
+
+        if (body != null) {
+            in.close();
+            return new StringReader(body);
+        }
+        return null;
+    }
+
+    /**
+     * Reader over a JSON string value, decoding escapes as it goes and stopping at the closing quote
+     */
+    private static class JsonStringReader extends Reader {
+        private final BufferedReader in;
+        private boolean finished;
+
+        JsonStringReader(BufferedReader in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (finished) {
+                return -1;
+            }
+            int count = 0;
+            while (count < len) {
+                int c = in.read();
+                if (c == -1) {
+                    throw new IOException("Truncated Oxylabs response inside content");
+                }
+                if (c == '"') {
+                    finished = true;
+                    break;
+                }
+                cbuf[off + count++] = c == '\\' ? readEscape(in) : (char) c;
+                // Hand out what we have once the buffer has nothing more ready
+                if (!in.ready()) {
+                    break;
+                }
+            }
+            return count == 0 && finished ? -1 : count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static char readEscape(BufferedReader in) throws IOException {
+        int c = in.read();
+        switch (c) {
+            case '"': return '"';
+            case '\\': return '\\';
+            case '/': return '/';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(in.read(), 16);
+                    if (digit < 0) {
+                        throw new IOException("Invalid \\u escape in Oxylabs response");
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            default:
+                throw new IOException("Invalid escape in Oxylabs response: \\" + (char) c);
+        }
+    }
+
+    private static String readString(BufferedReader in) throws IOException {
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            int c = in.read();
+            if (c == -1) {
+                throw new IOException("Truncated Oxylabs response inside string");
+            }
+            if (c == '"') {
+                return value.toString();
+            }
+            value.append(c == '\\' ? readEscape(in) : (char) c);
+        }
+    }
+
+    /**
+     * Skip over a JSON value whose first character has already been consumed
+     */
+    private static void skipValue(BufferedReader in, int first) throws IOException {
+        if (first == '"') {
+            skipString(in);
+        } else if (first == '{' || first == '[') {
+            int depth = 1;
+            while (depth > 0) {
+                int c = in.read();
+                if (c == -1) {
+                    throw new IOException("Truncated Oxylabs response");
+                }
+                if (c == '"') {
+                    skipString(in);
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            }
+        } else {
+            // Number, true, false or null: runs until a delimiter
+            while (true) {
+                in.mark(1);
+                int c = in.read();
+                if (c == -1 || c == ',' || c == '}' || c == ']' || Character.isWhitespace(c)) {
+                    in.reset();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void skipString(BufferedReader in) throws IOException {
+        while (true) {
+            int c = in.read();
+            if (c == -1) {
+                throw new IOException("Truncated Oxylabs response inside string");
+            }
+            if (c == '\\') {
+                in.read();
+            } else if (c == '"') {
+                return;
+            }
+        }
+    }
+
+    private static int nextNonWhitespace(BufferedReader in) throws IOException {
+        int c;
+        do {
+            c = in.read();
+        } while (c != -1 && Character.isWhitespace(c));
+        if (c == -1) {
+            throw new IOException("Truncated Oxylabs response");
+        }
+        return c;
+    }
+
+    private static void expect(BufferedReader in, char expected) throws IOException {
+        int c = nextNonWhitespace(in);
+        if (c != expected) {
+            throw new IOException("Malformed Oxylabs response, expected '" + expected + "' but got '" + (char) c + "'");
+        }
+    }
+}
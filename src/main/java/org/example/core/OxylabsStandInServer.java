@@ -0,0 +1,402 @@
+package org.example.core;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local stand-in for the Oxylabs realtime and push-pull endpoints and for the GSMArena image CDN.
+ *
+ * Pages are served from a {@link FixtureArchive} recorded with -Dscraper.record.dir, or from a
+ * directory of saved HTML files named the same way; anything missing gets a small synthetic
+ * GSMArena-like page. Batch jobs finish after a random delay, so results come back out of order
+ * just like the real service. Images are served under /cdn/{host}/{path}: recorded ones as
+ * recorded, and without an archive every image exists as -Dscraper.standin.imageKB (48) KB of zeros.
+ *
+ * Latency, error rate and bandwidth are set per upstream with a {@link Profile}, e.g.
+ * -Dscraper.standin.oxylabs.latencyMs=5000 -Dscraper.standin.oxylabs.latencyP99Ms=30000
+ * -Dscraper.standin.cdn.errorRate=0.01 -Dscraper.standin.cdn.bandwidthKBps=2000
+ *
+ * Usage: java org.example.core.OxylabsStandInServer [port] [archiveDir] [minJobDelayMs] [maxJobDelayMs]
+ * then run the scraper with -Dscraper.oxylabs.realtimeUrl=http://localhost:8089/v1/queries
+ * and/or -Dscraper.oxylabs.transport=push-pull -Dscraper.oxylabs.pushPullUrl=http://localhost:8089/v1,
+ * plus -Dscraper.images.cdnUrl=http://localhost:8089/cdn
+ */
+public class OxylabsStandInServer {
+    private static final int SYNTHETIC_PAGES_PER_BRAND = 3;
+    private static final int SYNTHETIC_DEVICES_PER_PAGE = 4;
+    private static final int SYNTHETIC_IMAGE_BYTES = Integer.getInteger("scraper.standin.imageKB", 48) * 1024;
+    // z for the 99th percentile of a standard normal distribution
+    private static final double Z_99 = 2.326;
+
+    /**
+     * How one upstream behaves: log-normal latency given by its median and 99th percentile,
+     * a share of requests failing with an error status, and a per-response bandwidth cap
+     */
+    public static class Profile {
+        public long latencyMs;
+        public long latencyP99Ms;
+        public double errorRate;
+        public int errorStatus = 503;
+        // Bytes per second per response, 0 for unlimited
+        public long bandwidthBytesPerSecond;
+
+        /**
+         * Read -D{prefix}.latencyMs, .latencyP99Ms, .errorRate, .errorStatus and .bandwidthKBps
+         */
+        public static Profile fromSystemProperties(String prefix) {
+            Profile profile = new Profile();
+            profile.latencyMs = Long.getLong(prefix + ".latencyMs", profile.latencyMs);
+            profile.latencyP99Ms = Long.getLong(prefix + ".latencyP99Ms", profile.latencyMs);
+            profile.errorRate = Double.parseDouble(System.getProperty(prefix + ".errorRate", String.valueOf(profile.errorRate)));
+            profile.errorStatus = Integer.getInteger(prefix + ".errorStatus", profile.errorStatus);
+            profile.bandwidthBytesPerSecond = Long.getLong(prefix + ".bandwidthKBps", 0L) * 1024;
+            return profile;
+        }
+
+        long sampleLatencyMs() {
+            if (latencyMs <= 0) {
+                return 0;
+            }
+            double sigma = latencyP99Ms > latencyMs ? Math.log((double) latencyP99Ms / latencyMs) / Z_99 : 0;
+            return Math.round(latencyMs * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+        }
+
+        boolean sampleError() {
+            return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+        }
+    }
+
+    private static class Job {
+        final String id = UUID.randomUUID().toString();
+        final String url;
+        final long readyAt;
+
+        Job(String url, long readyAt) {
+            this.url = url;
+            this.readyAt = readyAt;
+        }
+    }
+
+    private final HttpServer server;
+    // Null when every page and image is synthetic
+    private final FixtureArchive archive;
+    private final long minJobDelayMs;
+    private final long maxJobDelayMs;
+    private final Profile oxylabsProfile;
+    private final Profile cdnProfile;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public OxylabsStandInServer(int port, Path archiveDir, long minJobDelayMs, long maxJobDelayMs) throws IOException {
+        this(port, archiveDir, minJobDelayMs, maxJobDelayMs,
+                Profile.fromSystemProperties("scraper.standin.oxylabs"), Profile.fromSystemProperties("scraper.standin.cdn"));
+    }
+
+    public OxylabsStandInServer(int port, Path archiveDir, long minJobDelayMs, long maxJobDelayMs,
+                                Profile oxylabsProfile, Profile cdnProfile) throws IOException {
+        this.archive = archiveDir != null ? FixtureArchive.open(archiveDir) : null;
+        this.minJobDelayMs = minJobDelayMs;
+        this.maxJobDelayMs = Math.max(minJobDelayMs, maxJobDelayMs);
+        this.oxylabsProfile = oxylabsProfile;
+        this.cdnProfile = cdnProfile;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.createContext("/v1/queries", this::handle);
+        this.server.createContext("/cdn/", this::handleCdn);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        Path archiveDir = args.length > 1 ? Paths.get(args[1]) : null;
+        long minDelay = args.length > 2 ? Long.parseLong(args[2]) : 200;
+        long maxDelay = args.length > 3 ? Long.parseLong(args[3]) : 3000;
+
+        OxylabsStandInServer standIn = new OxylabsStandInServer(port, archiveDir, minDelay, maxDelay);
+        standIn.start();
+        System.out.println("Oxylabs stand-in listening on http://localhost:" + standIn.getPort() + "/v1");
+        System.out.println("Image CDN stand-in on http://localhost:" + standIn.getPort() + "/cdn");
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+
+            if (method.equals("POST") && path.equals("/v1/queries")) {
+                JSONObject payload = readJson(exchange);
+                if (delayOrFail(exchange, oxylabsProfile)) {
+                    return;
+                }
+                JSONObject result = new JSONObject().put("content", pageFor(payload.getString("url"))).put("status_code", 200);
+                send(exchange, 200, new JSONObject().put("results", new JSONArray().put(result)));
+            } else if (method.equals("POST") && path.equals("/v1/queries/batch")) {
+                submitBatch(exchange);
+            } else if (method.equals("GET") && path.startsWith("/v1/queries/")) {
+                jobStatusOrResults(exchange, path.substring("/v1/queries/".length()));
+            } else {
+                send(exchange, 404, new JSONObject().put("message", "Not found"));
+            }
+        } catch (Exception e) {
+            send(exchange, 500, new JSONObject().put("message", String.valueOf(e.getMessage())));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void submitBatch(HttpExchange exchange) throws IOException {
+        JSONArray urls = readJson(exchange).getJSONArray("url");
+        JSONArray queries = new JSONArray();
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < urls.length(); i++) {
+            long delay = ThreadLocalRandom.current().nextLong(minJobDelayMs, maxJobDelayMs + 1);
+            Job job = new Job(urls.getString(i), now + delay);
+            jobs.put(job.id, job);
+            queries.put(new JSONObject().put("id", job.id).put("url", job.url).put("status", "pending"));
+        }
+
+        send(exchange, 200, new JSONObject().put("queries", queries));
+    }
+
+    private void jobStatusOrResults(HttpExchange exchange, String rest) throws IOException {
+        boolean wantsResults = rest.endsWith("/results");
+        String id = wantsResults ? rest.substring(0, rest.length() - "/results".length()) : rest;
+        Job job = jobs.get(id);
+        if (job == null) {
+            send(exchange, 404, new JSONObject().put("message", "Unknown job " + id));
+            return;
+        }
+
+        boolean done = System.currentTimeMillis() >= job.readyAt;
+        if (!wantsResults) {
+            send(exchange, 200, new JSONObject().put("id", id).put("status", done ? "done" : "pending"));
+        } else if (!done) {
+            send(exchange, 204, null);
+        } else if (!delayOrFail(exchange, oxylabsProfile)) {
+            jobs.remove(id);
+            JSONObject result = new JSONObject().put("content", pageFor(job.url)).put("status_code", 200);
+            send(exchange, 200, new JSONObject().put("results", new JSONArray().put(result)));
+        }
+    }
+
+    /**
+     * Serve /cdn/{host}/{path} as the image at https://{host}/{path}
+     */
+    private void handleCdn(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            boolean head = method.equals("HEAD");
+            if (!head && !method.equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            if (delayOrFail(exchange, cdnProfile)) {
+                return;
+            }
+
+            String url = "https://" + exchange.getRequestURI().getRawPath().substring("/cdn/".length());
+            FixtureArchive.ImageEntry entry = archive != null ? archive.getImage(url) : null;
+            byte[] body;
+            if (entry != null && entry.body != null) {
+                body = Files.readAllBytes(entry.body);
+            } else if (entry != null && entry.status == 200) {
+                // Only a HEAD probe was recorded; stand in a body of the recorded size
+                body = new byte[(int) (entry.length > 0 ? entry.length : SYNTHETIC_IMAGE_BYTES)];
+            } else if (entry == null && archive == null) {
+                body = new byte[SYNTHETIC_IMAGE_BYTES];
+            } else {
+                exchange.sendResponseHeaders(entry != null ? entry.status : 404, -1);
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "image/jpeg");
+            if (head) {
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(body.length));
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                write(out, body, cdnProfile);
+            }
+        } catch (Exception e) {
+            System.err.println("Stand-in CDN error: " + e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Sleep for a sampled latency, then maybe answer with the profile's error; true when the error was sent
+     */
+    private static boolean delayOrFail(HttpExchange exchange, Profile profile) throws IOException {
+        pause(profile.sampleLatencyMs());
+        if (!profile.sampleError()) {
+            return false;
+        }
+        exchange.sendResponseHeaders(profile.errorStatus, -1);
+        return true;
+    }
+
+    /**
+     * Write a body in chunks, pausing between them to stay under the profile's bandwidth
+     */
+    private static void write(OutputStream out, byte[] body, Profile profile) throws IOException {
+        if (profile.bandwidthBytesPerSecond <= 0) {
+            out.write(body);
+            return;
+        }
+        int chunk = (int) Math.max(1024, Math.min(64 * 1024, profile.bandwidthBytesPerSecond / 10));
+        long start = System.nanoTime();
+        for (int offset = 0; offset < body.length; offset += chunk) {
+            int length = Math.min(chunk, body.length - offset);
+            out.write(body, offset, length);
+            long dueNanos = (offset + length) * 1_000_000_000L / profile.bandwidthBytesPerSecond;
+            pause((dueNanos - (System.nanoTime() - start)) / 1_000_000);
+        }
+    }
+
+    private static void pause(long millis) throws IOException {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while simulating latency");
+        }
+    }
+
+    /**
+     * Look up a recorded page for the URL, or synthesize a minimal one with the structure the parsers expect
+     */
+    String pageFor(String url) throws IOException {
+        String recorded = archive != null ? archive.getPage(url) : null;
+        return recorded != null ? recorded : syntheticPage(url);
+    }
+
+    static String syntheticPage(String url) {
+        String path = url.substring(url.indexOf("gsmarena.com/") + "gsmarena.com/".length());
+
+        if (path.startsWith("results.php3")) {
+            String query = URLDecoder.decode(path.substring(path.indexOf("sName=") + "sName=".length()), StandardCharsets.UTF_8);
+            String slug = query.toLowerCase().trim().replaceAll("[^a-z0-9]+", "_");
+            int id = Math.abs(slug.hashCode() % 100000);
+            return "<html><body><div class=\"makers\"><ul><li><a href=\"" + slug + "-" + id + ".php\">"
+                    + "<img src=\"https://fdn2.gsmarena.com/vv/bigpic/" + slug.replace('_', '-') + ".jpg\">"
+                    + "<strong><span>" + query + "</span></strong></a></li></ul></div></body></html>";
+        }
+
+        if (path.startsWith("makers.php3")) {
+            StringBuilder html = new StringBuilder("<html><body><div class=\"st-text\"><table><tr>");
+            for (String brand : new String[]{"Acme", "Globex", "Initech"}) {
+                html.append("<td><a href=\"").append(brand.toLowerCase()).append("-phones-").append(brand.length()).append(".php\">")
+                        .append(brand).append("<br><span>").append(SYNTHETIC_PAGES_PER_BRAND * SYNTHETIC_DEVICES_PER_PAGE)
+                        .append(" devices</span></a></td>");
+            }
+            return html.append("</tr></table></div></body></html>").toString();
+        }
+
+        if (path.contains("-phones-")) {
+            // Brand listing: acme-phones-4.php is page 1, acme-phones-f-4-0-p2.php page 2 and so on
+            String brand = path.substring(0, path.indexOf("-phones-"));
+            int brandId = brand.length();
+            int page = path.matches(".*-p\\d+\\.php") ? Integer.parseInt(path.replaceAll(".*-p(\\d+)\\.php", "$1")) : 1;
+            StringBuilder html = new StringBuilder("<html><body><div class=\"makers\"><ul>");
+            for (int i = 0; i < SYNTHETIC_DEVICES_PER_PAGE; i++) {
+                int number = (page - 1) * SYNTHETIC_DEVICES_PER_PAGE + i + 1;
+                String slug = brand + "_phone_" + number;
+                html.append("<li><a href=\"").append(slug).append('-').append(brandId * 1000 + number).append(".php\">")
+                        .append("<img src=\"https://fdn2.gsmarena.com/vv/bigpic/").append(slug.replace('_', '-')).append(".jpg\">")
+                        .append("<strong><span>Phone ").append(number).append("</span></strong></a></li>");
+            }
+            html.append("</ul></div><div class=\"nav-pages\">");
+            for (int p = 1; p <= SYNTHETIC_PAGES_PER_BRAND; p++) {
+                String href = p == 1 ? brand + "-phones-" + brandId + ".php" : brand + "-phones-f-" + brandId + "-0-p" + p + ".php";
+                html.append(p == page ? "<strong>" + p + "</strong>" : "<a href=\"" + href + "\">" + p + "</a>");
+            }
+            return html.append("</div></body></html>").toString();
+        }
+
+        String slug = path.replace(".php", "");
+        if (slug.contains("-pictures-")) {
+            String base = slug.substring(0, slug.indexOf("-pictures-")).replace('_', '-');
+            String brand = base.contains("-") ? base.substring(0, base.indexOf('-')) : base;
+            StringBuilder html = new StringBuilder("<html><body><div id=\"pictures-list\">");
+            for (int i = 0; i < 3; i++) {
+                html.append("<img src=\"https://fdn2.gsmarena.com/vv/pics/").append(brand).append('/')
+                        .append(base).append('-').append(i).append(".jpg\">");
+            }
+            return html.append("</div></body></html>").toString();
+        }
+
+        String model = slug.contains("-") ? slug.substring(0, slug.lastIndexOf('-')) : slug;
+        String name = model.replace('_', ' ');
+        return "<html><body>"
+                + "<h1 class=\"specs-phone-name-title\">" + name + "</h1>"
+                + "<div class=\"specs-photo-main\"><img src=\"https://fdn2.gsmarena.com/vv/bigpic/" + model.replace('_', '-') + ".jpg\"></div>"
+                + "<ul class=\"specs-spotlight-features\"><li><span data-spec=\"batsize-hl\">5000</span></li></ul>"
+                + "<div id=\"specs-list\">"
+                + "<table><tr><th rowspan=\"2\">Display</th><td class=\"ttl\">Size</td><td class=\"nfo\">6.7 inches</td></tr></table>"
+                + "<table><tr><th>Battery</th><td class=\"ttl\">Type</td><td class=\"nfo\">5000 mAh</td></tr></table>"
+                + "</div></body></html>";
+    }
+
+    private static JSONObject readJson(HttpExchange exchange) throws IOException {
+        return new JSONObject(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    private void send(HttpExchange exchange, int status, JSONObject body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        // Compressed when the client asks for it
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            write(out, bytes, oxylabsProfile);
+        }
+    }
+}
@@ -5,19 +5,78 @@ import org.json.JSONObject;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
 import org.jsoup.select.Elements;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
 public class PhoneDataParser {
+    // -Dscraper.parser=dom parses whole detail pages instead of only the spec sections
+    private static final boolean STREAMING_SPECS = !"dom".equalsIgnoreCase(System.getProperty("scraper.parser", "streaming"));
 
     /**
      * Parse phone details from the GSM Arena page HTML
      */
     public static JSONObject parsePhoneDetails(String html) {
+        try {
+            return parsePhoneDetails(parseSpecDocument(new StringReader(html)));
+        } catch (Exception e) {
+            System.err.println("Error parsing phone details: " + e.getMessage());
+            e.printStackTrace();
+            return new JSONObject();
+        }
+    }
+    
+    /**
+     * Parse phone details straight from a stream, e.g. {@link OxylabsClient#scrapeReader(String)}
+     */
+    public static JSONObject parsePhoneDetails(Reader html) {
+        try {
+            return parsePhoneDetails(parseSpecDocument(html));
+        } catch (Exception e) {
+            System.err.println("Error parsing phone details: " + e.getMessage());
+            e.printStackTrace();
+            return new JSONObject();
+        }
+    }
+    
+    /**
+     * Parse a page from a stream; jsoup needs mark support, so small buffering is added when missing
+     */
+    public static Document parseDocument(Reader html) {
+        Reader input = html.markSupported() ? html : new BufferedReader(html, 32 * 1024);
+        return Parser.htmlParser().parseInput(input, "");
+    }
+    
+    /**
+     * Parse a phone detail page keeping only the sections {@link #parsePhoneDetails(Document)} reads,
+     * see {@link StreamingSpecParser}. Falls back to a full parse with -Dscraper.parser=dom.
+     */
+    public static Document parseSpecDocument(Reader html) throws IOException {
+        if (!STREAMING_SPECS) {
+            return parseDocument(html);
+        }
+        return Jsoup.parse(StreamingSpecParser.extractSpecSections(html));
+    }
+    
+    /**
+     * Whether detail pages are reduced to their spec sections before parsing (false with -Dscraper.parser=dom)
+     */
+    public static boolean isStreamingSpecs() {
+        return STREAMING_SPECS;
+    }
+    
+    /**
+     * Parse phone details from an already parsed GSM Arena page
+     */
+    public static JSONObject parsePhoneDetails(Document doc) {
+        long start = System.nanoTime();
         JSONObject phoneDetails = new JSONObject();
         
         try {
-            Document doc = Jsoup.parse(html);
-            
             // Extract phone name
             Element phoneNameElem = doc.selectFirst("h1.specs-phone-name-title");
             if (phoneNameElem != null) {
@@ -120,11 +179,15 @@ public class PhoneDataParser {
                 }
             }
             
+            // Typed values with units resolved, so consumers don't have to re-parse the strings above
+            phoneDetails.put("normalized", SpecNormalizer.normalize(phoneDetails).toJson());
+            
         } catch (Exception e) {
             System.err.println("Error parsing phone details: " + e.getMessage());
             e.printStackTrace();
         }
         
+        ScrapeMetrics.shared().recordStage("parse_details", start);
         return phoneDetails;
     }
     
@@ -134,7 +197,14 @@ public class PhoneDataParser {
      * @return JSON array with parsed phone list
      */
     public static JSONArray parsePhoneList(String html) {
-        Document doc = Jsoup.parse(html);
+        return parsePhoneList(Jsoup.parse(html));
+    }
+    
+    /**
+     * Parse phone list from an already parsed brand page
+     */
+    public static JSONArray parsePhoneList(Document doc) {
+        long start = System.nanoTime();
         JSONArray phones = new JSONArray();
         
         Elements phoneElements = doc.select("div.makers > ul > li");
@@ -161,6 +231,7 @@ public class PhoneDataParser {
             }
         }
         
+        ScrapeMetrics.shared().recordStage("parse_list", start);
         return phones;
     }
 }
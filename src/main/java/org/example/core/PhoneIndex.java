@@ -0,0 +1,440 @@
+package org.example.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Query indexes over a {@link CompactCatalog}.
+ *
+ * Every spec value is split into lower-case words, and each word gets a sorted posting list of
+ * the phones that contain it, both per field ("Platform/Chipset" contains "dimensity") and across
+ * all fields. Exact values get posting lists per (field id, value id). The numeric spotlight
+ * fields (battery mAh, display inches, RAM GB) get range indexes: phones sorted by value, so a
+ * range is two binary searches. Queries intersect posting lists smallest first, then filter and
+ * sort the survivors. An index is immutable once built.
+ */
+public class PhoneIndex {
+
+    /**
+     * A numeric field, read from the spotlight section of the detail page
+     */
+    public enum Numeric {
+        BATTERY("batsize-hl"),
+        DISPLAY("displaysize-hl"),
+        RAM("ramsize-hl");
+
+        final String field;
+
+        Numeric(String field) {
+            this.field = field;
+        }
+
+        public static Numeric fromName(String name) {
+            return valueOf(name.toUpperCase());
+        }
+    }
+
+    /**
+     * Filter, sort and limit; fields left null or empty do not restrict the result
+     */
+    public static class Query {
+        // Words that must appear somewhere in the phone's specs
+        public final List<String> words = new ArrayList<>();
+        // "Category/Title" (or a top-level field) -> word its value must contain
+        public final List<String[]> fieldWords = new ArrayList<>();
+        // "Category/Title" -> exact value
+        public final List<String[]> fieldEquals = new ArrayList<>();
+        public final Map<Numeric, float[]> ranges = new HashMap<>();
+        public Numeric sortBy;
+        public boolean sortByName;
+        public boolean descending;
+        public int limit = 20;
+
+        public Query range(Numeric numeric, float min, float max) {
+            ranges.put(numeric, new float[]{min, max});
+            return this;
+        }
+    }
+
+    /**
+     * Matching phones in result order, plus how many matched before the limit
+     */
+    public static class Result {
+        public final int[] phones;
+        public final int total;
+
+        Result(int[] phones, int total) {
+            this.phones = phones;
+            this.total = total;
+        }
+    }
+
+    private static final int[] NONE = new int[0];
+
+    private final CompactCatalog catalog;
+    private final Map<String, int[]> wordPostings;
+    // Key is fieldId + ":" + word
+    private final Map<String, int[]> fieldWordPostings;
+    // Key is (long) fieldId << 32 | valueId
+    private final Map<Long, int[]> valuePostings;
+    // Per numeric field: value per phone (NaN when missing), and phones with a value sorted by it
+    private final Map<Numeric, float[]> numericValues = new HashMap<>();
+    private final Map<Numeric, int[]> numericOrder = new HashMap<>();
+    private final int[] nameRank;
+
+    public PhoneIndex(CompactCatalog catalog) {
+        this.catalog = catalog;
+        Map<String, PostingBuilder> words = new HashMap<>();
+        Map<String, PostingBuilder> fieldWords = new HashMap<>();
+        Map<Long, PostingBuilder> values = new HashMap<>();
+
+        for (int phone = 0; phone < catalog.size(); phone++) {
+            int[] record = catalog.record(phone);
+            for (int i = 0; i < record.length; i += 2) {
+                int fieldId = record[i];
+                int valueId = record[i + 1];
+                values.computeIfAbsent(((long) fieldId << 32) | valueId, key -> new PostingBuilder()).add(phone);
+                for (String word : words(catalog.value(valueId))) {
+                    words.computeIfAbsent(word, key -> new PostingBuilder()).add(phone);
+                    fieldWords.computeIfAbsent(fieldId + ":" + word, key -> new PostingBuilder()).add(phone);
+                }
+            }
+        }
+        this.wordPostings = build(words);
+        this.fieldWordPostings = build(fieldWords);
+        this.valuePostings = build(values);
+
+        for (Numeric numeric : Numeric.values()) {
+            buildRange(numeric);
+        }
+
+        Integer[] byName = new Integer[catalog.size()];
+        for (int phone = 0; phone < byName.length; phone++) {
+            byName[phone] = phone;
+        }
+        String[] names = new String[catalog.size()];
+        for (int phone = 0; phone < names.length; phone++) {
+            String name = catalog.get(phone, null, "name");
+            names[phone] = name != null ? name.toLowerCase() : catalog.key(phone).toLowerCase();
+        }
+        Arrays.sort(byName, (a, b) -> names[a].compareTo(names[b]));
+        this.nameRank = new int[byName.length];
+        for (int rank = 0; rank < byName.length; rank++) {
+            nameRank[byName[rank]] = rank;
+        }
+    }
+
+    public CompactCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Numeric field value of a phone, NaN when it has none
+     */
+    public float numeric(int phone, Numeric numeric) {
+        return numericValues.get(numeric)[phone];
+    }
+
+    public Result search(Query query) {
+        // Posting lists first, smallest first so the intersection shrinks quickly
+        List<int[]> postings = new ArrayList<>();
+        // A word filter without any letter or digit matches nothing rather than everything
+        for (String word : query.words) {
+            List<String> parts = words(word);
+            if (parts.isEmpty()) {
+                postings.add(NONE);
+            }
+            for (String part : parts) {
+                postings.add(wordPostings.getOrDefault(part, NONE));
+            }
+        }
+        for (String[] fieldWord : query.fieldWords) {
+            int fieldId = fieldId(fieldWord[0]);
+            List<String> parts = words(fieldWord[1]);
+            if (parts.isEmpty()) {
+                postings.add(NONE);
+            }
+            for (String part : parts) {
+                postings.add(fieldId < 0 ? NONE : fieldWordPostings.getOrDefault(fieldId + ":" + part, NONE));
+            }
+        }
+        for (String[] fieldEquals : query.fieldEquals) {
+            int fieldId = fieldId(fieldEquals[0]);
+            int valueId = catalog.valueId(fieldEquals[1]);
+            postings.add(fieldId < 0 || valueId < 0 ? NONE : valuePostings.getOrDefault(((long) fieldId << 32) | valueId, NONE));
+        }
+        postings.sort((a, b) -> Integer.compare(a.length, b.length));
+
+        int[] candidates = null;
+        for (int[] posting : postings) {
+            candidates = candidates == null ? posting : intersect(candidates, posting);
+            if (candidates.length == 0) {
+                return new Result(NONE, 0);
+            }
+        }
+
+        // Without word filters the first range comes straight from its range index
+        for (Map.Entry<Numeric, float[]> range : query.ranges.entrySet()) {
+            float[] bounds = range.getValue();
+            if (candidates == null) {
+                candidates = rangePhones(range.getKey(), bounds[0], bounds[1]);
+                continue;
+            }
+            float[] phoneValues = numericValues.get(range.getKey());
+            int kept = 0;
+            int[] filtered = new int[candidates.length];
+            for (int phone : candidates) {
+                float value = phoneValues[phone];
+                if (value >= bounds[0] && value <= bounds[1]) {
+                    filtered[kept++] = phone;
+                }
+            }
+            candidates = Arrays.copyOf(filtered, kept);
+        }
+
+        if (candidates == null) {
+            candidates = new int[catalog.size()];
+            for (int phone = 0; phone < candidates.length; phone++) {
+                candidates[phone] = phone;
+            }
+        }
+        return new Result(sortAndLimit(candidates, query), candidates.length);
+    }
+
+    /**
+     * Sort by packing a sortable key and the phone into one long, so no boxing is needed
+     */
+    private int[] sortAndLimit(int[] candidates, Query query) {
+        int limit = query.limit > 0 ? Math.min(query.limit, candidates.length) : candidates.length;
+        if (query.sortBy == null && !query.sortByName) {
+            return Arrays.copyOf(candidates, limit);
+        }
+        float[] phoneValues = query.sortBy != null ? numericValues.get(query.sortBy) : null;
+        long[] keys = new long[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            int phone = candidates[i];
+            int sortKey;
+            if (phoneValues != null) {
+                float value = phoneValues[phone];
+                // Phones without a value go last either way
+                sortKey = Float.isNaN(value) ? Integer.MAX_VALUE : sortableBits(query.descending ? -value : value);
+            } else {
+                sortKey = query.descending ? -nameRank[phone] : nameRank[phone];
+            }
+            keys[i] = ((long) sortKey << 32) | (phone & 0xffffffffL);
+        }
+        long[] top = smallest(keys, limit);
+        int[] sorted = new int[limit];
+        for (int i = 0; i < limit; i++) {
+            sorted[i] = (int) top[i];
+        }
+        return sorted;
+    }
+
+    /**
+     * The k smallest keys in order; a bounded max-heap when k is small, a full sort otherwise
+     */
+    private static long[] smallest(long[] keys, int k) {
+        if (k * 8 >= keys.length) {
+            Arrays.sort(keys);
+            return keys;
+        }
+        long[] heap = new long[k];
+        int size = 0;
+        for (long key : keys) {
+            if (size < k) {
+                // Sift up
+                int child = size++;
+                heap[child] = key;
+                while (child > 0 && heap[(child - 1) / 2] < heap[child]) {
+                    int parent = (child - 1) / 2;
+                    long swap = heap[parent];
+                    heap[parent] = heap[child];
+                    heap[child] = swap;
+                    child = parent;
+                }
+            } else if (key < heap[0]) {
+                // Replace the largest and sift down
+                heap[0] = key;
+                int parent = 0;
+                while (true) {
+                    int largest = parent;
+                    int left = 2 * parent + 1;
+                    int right = left + 1;
+                    if (left < k && heap[left] > heap[largest]) {
+                        largest = left;
+                    }
+                    if (right < k && heap[right] > heap[largest]) {
+                        largest = right;
+                    }
+                    if (largest == parent) {
+                        break;
+                    }
+                    long swap = heap[parent];
+                    heap[parent] = heap[largest];
+                    heap[largest] = swap;
+                    parent = largest;
+                }
+            }
+        }
+        Arrays.sort(heap, 0, size);
+        return heap;
+    }
+
+    /**
+     * Float bits that sort like the float as a signed int
+     */
+    private static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits >= 0 ? bits : bits ^ 0x7fffffff;
+    }
+
+    private int[] rangePhones(Numeric numeric, float min, float max) {
+        float[] phoneValues = numericValues.get(numeric);
+        int[] order = numericOrder.get(numeric);
+        int from = lowerBound(order, phoneValues, min);
+        int to = lowerBound(order, phoneValues, Math.nextUp(max));
+        int[] phones = Arrays.copyOfRange(order, from, Math.max(from, to));
+        // Back to phone order so later steps see a sorted list
+        Arrays.sort(phones);
+        return phones;
+    }
+
+    private static int lowerBound(int[] order, float[] phoneValues, float value) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (phoneValues[order[mid]] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void buildRange(Numeric numeric) {
+        float[] phoneValues = new float[catalog.size()];
+        int withValue = 0;
+        for (int phone = 0; phone < phoneValues.length; phone++) {
+            phoneValues[phone] = leadingNumber(catalog.get(phone, null, numeric.field));
+            if (!Float.isNaN(phoneValues[phone])) {
+                withValue++;
+            }
+        }
+        long[] keys = new long[withValue];
+        int next = 0;
+        for (int phone = 0; phone < phoneValues.length; phone++) {
+            if (!Float.isNaN(phoneValues[phone])) {
+                keys[next++] = ((long) sortableBits(phoneValues[phone]) << 32) | phone;
+            }
+        }
+        Arrays.sort(keys);
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = (int) keys[i];
+        }
+        numericValues.put(numeric, phoneValues);
+        numericOrder.put(numeric, order);
+    }
+
+    private int fieldId(String field) {
+        int slash = field.indexOf('/');
+        return slash < 0
+                ? catalog.fieldId(null, field)
+                : catalog.fieldId(field.substring(0, slash), field.substring(slash + 1));
+    }
+
+    /**
+     * First number in a spotlight value such as "5000", "6.7\"" or "8/12"
+     */
+    static float leadingNumber(String text) {
+        if (text == null) {
+            return Float.NaN;
+        }
+        int start = 0;
+        while (start < text.length() && !Character.isDigit(text.charAt(start))) {
+            start++;
+        }
+        int end = start;
+        while (end < text.length() && (Character.isDigit(text.charAt(end)) || text.charAt(end) == '.')) {
+            end++;
+        }
+        try {
+            return end > start ? Float.parseFloat(text.substring(start, end)) : Float.NaN;
+        } catch (NumberFormatException e) {
+            return Float.NaN;
+        }
+    }
+
+    /**
+     * Lower-case letter/digit runs; "Li-Po 5000 mAh" gives li, po, 5000, mah
+     */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static <K> Map<K, int[]> build(Map<K, PostingBuilder> builders) {
+        Map<K, int[]> postings = new HashMap<>(builders.size() * 2);
+        for (Map.Entry<K, PostingBuilder> entry : builders.entrySet()) {
+            postings.put(entry.getKey(), entry.getValue().toArray());
+        }
+        return postings;
+    }
+
+    /**
+     * Growable sorted int list; phones are added in increasing order, repeats are dropped
+     */
+    private static class PostingBuilder {
+        int[] phones = new int[4];
+        int size;
+
+        void add(int phone) {
+            if (size > 0 && phones[size - 1] == phone) {
+                return;
+            }
+            if (size == phones.length) {
+                phones = Arrays.copyOf(phones, size * 2);
+            }
+            phones[size++] = phone;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(phones, size);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package org.example.core;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local HTTP query service over scraped phones.
+ *
+ * Loads the scraper output (the PhoneStore in {@code <phonesDir>/store} when there is one,
+ * otherwise the per-phone JSON files) into a {@link CompactCatalog}, indexes it with
+ * {@link PhoneIndex} and answers queries from memory. The directory is watched, and once writes
+ * have been quiet for {@code scraper.query.reloadDelayMs} a new index is built in the background
+ * and swapped in; queries keep using the old one until then.
+ *
+ * Endpoints:
+ *   GET /phones?q=5000+dimensity&where=Platform/Chipset:dimensity&eq=Comms/NFC:Yes
+ *               &battery=5000..&display=..6.7&ram=8..12&sort=battery&order=desc&limit=10&full=true
+ *   GET /phones/{key}   full JSON of one phone
+ *   GET /stats          catalog size and reload info
+ *
+ * Usage: java org.example.core.PhoneQueryServer [port] [phonesDir]
+ */
+public class PhoneQueryServer {
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Path phonesDir;
+    private final long reloadDelayMs;
+
+    private volatile PhoneIndex index;
+    private volatile String source;
+    private volatile long loadedAt;
+    private volatile long loadMillis;
+    private volatile int reloads;
+    private WatchService watchService;
+
+    public PhoneQueryServer(int port, Path phonesDir) throws IOException {
+        this.phonesDir = phonesDir;
+        this.reloadDelayMs = Long.getLong("scraper.query.reloadDelayMs", 500L);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.executor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        this.server.setExecutor(executor);
+        this.server.createContext("/phones", this::handlePhones);
+        this.server.createContext("/stats", this::handleStats);
+        reload();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8090;
+        Path phonesDir = Paths.get(args.length > 1 ? args[1] : "final_data/phones");
+
+        PhoneQueryServer queryServer = new PhoneQueryServer(port, phonesDir);
+        queryServer.start();
+        System.out.println("Phone query server listening on http://localhost:" + queryServer.getPort() + "/phones");
+    }
+
+    public void start() throws IOException {
+        watch();
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        // HttpServer.stop leaves the executor to its owner; its threads would keep the JVM alive
+        executor.shutdownNow();
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing directory watch: " + e.getMessage());
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public PhoneIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Load the scraper output and swap in a freshly built index
+     */
+    public synchronized void reload() throws IOException {
+        long start = System.currentTimeMillis();
+        Path storeDir = phonesDir.resolve("store");
+        CompactCatalog catalog;
+        String loadedFrom;
+        if (Files.isDirectory(storeDir)) {
+            try (PhoneStore store = PhoneStore.openReadOnly(storeDir)) {
+                catalog = CompactCatalog.fromStore(store);
+            }
+            loadedFrom = storeDir.toString();
+        } else if (Files.isDirectory(phonesDir)) {
+            catalog = CompactCatalog.fromDirectory(phonesDir);
+            loadedFrom = phonesDir.toString();
+        } else {
+            catalog = new CompactCatalog();
+            loadedFrom = phonesDir + " (missing)";
+        }
+        PhoneIndex built = new PhoneIndex(catalog);
+
+        index = built;
+        source = loadedFrom;
+        loadedAt = System.currentTimeMillis();
+        loadMillis = loadedAt - start;
+        reloads++;
+        System.out.println("Query index: " + catalog.getStats() + " from " + loadedFrom + " in " + loadMillis + " ms");
+    }
+
+    /**
+     * Watch the phones directory (and the store inside it) and reload once writes go quiet
+     */
+    private void watch() throws IOException {
+        if (!Files.isDirectory(phonesDir)) {
+            System.err.println("Not watching " + phonesDir + ": directory does not exist");
+            return;
+        }
+        watchService = phonesDir.getFileSystem().newWatchService();
+        register(phonesDir);
+        Path storeDir = phonesDir.resolve("store");
+        if (Files.isDirectory(storeDir)) {
+            register(storeDir);
+        }
+
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    boolean relevant = drain(key, storeDir);
+                    // Debounce: keep collecting events until the writer has been quiet for a while
+                    while ((key = watchService.poll(reloadDelayMs, TimeUnit.MILLISECONDS)) != null) {
+                        relevant |= drain(key, storeDir);
+                    }
+                    if (relevant) {
+                        try {
+                            reload();
+                        } catch (Exception e) {
+                            System.err.println("Reload failed, still serving the previous index: " + e.getMessage());
+                        }
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Server stopped
+            }
+        }, "query-reload");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void register(Path dir) throws IOException {
+        dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    /**
+     * Consume a key's events; true when one of them touches phone data
+     */
+    private boolean drain(WatchKey key, Path storeDir) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                relevant = true;
+                continue;
+            }
+            Path dir = (Path) key.watchable();
+            Path changed = dir.resolve((Path) event.context());
+            String name = changed.getFileName().toString();
+            if (changed.equals(storeDir) && event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                try {
+                    register(storeDir);
+                } catch (IOException e) {
+                    System.err.println("Cannot watch " + storeDir + ": " + e.getMessage());
+                }
+                relevant = true;
+            } else if (name.endsWith(".json") || name.endsWith(".jsonl") || name.equals("index.tsv")) {
+                // Temp files, fingerprints and the journal do not change what is served
+                relevant |= !name.equals("progress.jsonl") && !name.equals("delta.json") && !name.equals("summary.json");
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+
+    private void handlePhones(HttpExchange exchange) throws IOException {
+        try {
+            PhoneIndex current = index;
+            String path = exchange.getRequestURI().getPath();
+            if (path.length() > "/phones/".length() && path.startsWith("/phones/")) {
+                String key = URLDecoder.decode(path.substring("/phones/".length()), StandardCharsets.UTF_8);
+                int phone = current.getCatalog().indexOf(key);
+                if (phone < 0) {
+                    send(exchange, 404, new JSONObject().put("message", "Unknown phone " + key));
+                } else {
+                    send(exchange, 200, current.getCatalog().toJson(phone));
+                }
+                return;
+            }
+
+            PhoneIndex.Query query = parseQuery(exchange.getRequestURI().getRawQuery());
+            boolean full = "true".equals(param(exchange, "full"));
+            long start = System.nanoTime();
+            PhoneIndex.Result result = current.search(query);
+            long tookMicros = (System.nanoTime() - start) / 1000;
+
+            JSONArray phones = new JSONArray();
+            for (int phone : result.phones) {
+                phones.put(full ? current.getCatalog().toJson(phone).put("key", current.getCatalog().key(phone)) : summary(current, phone));
+            }
+            send(exchange, 200, new JSONObject()
+                    .put("total", result.total)
+                    .put("tookMicros", tookMicros)
+                    .put("phones", phones));
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, new JSONObject().put("message", String.valueOf(e.getMessage())));
+        } catch (Exception e) {
+            send(exchange, 500, new JSONObject().put("message", String.valueOf(e.getMessage())));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            CompactCatalog catalog = index.getCatalog();
+            send(exchange, 200, new JSONObject()
+                    .put("phones", catalog.size())
+                    .put("fields", catalog.fieldCount())
+                    .put("estimatedBytes", catalog.estimatedBytes())
+                    .put("source", source)
+                    .put("loadedAt", loadedAt)
+                    .put("loadMillis", loadMillis)
+                    .put("reloads", reloads));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static JSONObject summary(PhoneIndex index, int phone) {
+        CompactCatalog catalog = index.getCatalog();
+        JSONObject summary = new JSONObject();
+        summary.put("key", catalog.key(phone));
+        summary.putOpt("name", catalog.get(phone, null, "name"));
+        for (PhoneIndex.Numeric numeric : PhoneIndex.Numeric.values()) {
+            float value = index.numeric(phone, numeric);
+            if (!Float.isNaN(value)) {
+                summary.put(numeric.name().toLowerCase(), value);
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Build a query from parameters; repeated q, where and eq parameters are combined with AND
+     */
+    static PhoneIndex.Query parseQuery(String rawQuery) {
+        PhoneIndex.Query query = new PhoneIndex.Query();
+        for (Map.Entry<String, List<String>> param : params(rawQuery).entrySet()) {
+            for (String value : param.getValue()) {
+                switch (param.getKey()) {
+                    case "q":
+                        query.words.add(withWords("q", value));
+                        break;
+                    case "where":
+                        String[] fieldWord = fieldAndValue(value);
+                        withWords("where", fieldWord[1]);
+                        query.fieldWords.add(fieldWord);
+                        break;
+                    case "eq":
+                        query.fieldEquals.add(fieldAndValue(value));
+                        break;
+                    case "battery":
+                    case "display":
+                    case "ram":
+                        query.ranges.put(PhoneIndex.Numeric.fromName(param.getKey()), parseRange(value));
+                        break;
+                    case "sort":
+                        if (value.equals("name")) {
+                            query.sortByName = true;
+                        } else {
+                            query.sortBy = PhoneIndex.Numeric.fromName(value);
+                        }
+                        break;
+                    case "order":
+                        query.descending = value.equalsIgnoreCase("desc");
+                        break;
+                    case "limit":
+                        query.limit = Integer.parseInt(value);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return query;
+    }
+
+    /**
+     * "5000..", "..6.7", "8..12", or a single number for an exact value
+     */
+    private static float[] parseRange(String value) {
+        int dots = value.indexOf("..");
+        if (dots < 0) {
+            float exact = Float.parseFloat(value);
+            return new float[]{exact, exact};
+        }
+        String min = value.substring(0, dots).trim();
+        String max = value.substring(dots + 2).trim();
+        return new float[]{
+                min.isEmpty() ? Float.NEGATIVE_INFINITY : Float.parseFloat(min),
+                max.isEmpty() ? Float.POSITIVE_INFINITY : Float.parseFloat(max)};
+    }
+
+    /**
+     * Reject text without a letter or digit, which would otherwise filter nothing
+     */
+    private static String withWords(String name, String value) {
+        if (PhoneIndex.words(value).isEmpty()) {
+            throw new IllegalArgumentException(name + " has no words to search for: \"" + value + "\"");
+        }
+        return value;
+    }
+
+    private static String[] fieldAndValue(String value) {
+        int colon = value.indexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Expected Category/Title:value but got " + value);
+        }
+        return new String[]{value.substring(0, colon), value.substring(colon + 1)};
+    }
+
+    private static String param(HttpExchange exchange, String name) {
+        List<String> values = params(exchange.getRequestURI().getRawQuery()).get(name);
+        return values != null && !values.isEmpty() ? values.get(0) : null;
+    }
+
+    private static Map<String, List<String>> params(String rawQuery) {
+        Map<String, List<String>> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            params.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+        }
+        return params;
+    }
+
+    private static void send(HttpExchange exchange, int status, JSONObject body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.example.core;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Normalized, typed view of a phone's key specifications.
+ *
+ * Values are kept in primitive fields with units already resolved, so consumers can compare and
+ * filter without re-parsing GSMArena's free-form strings. Missing values are NaN for floats and
+ * 0 for ints. Built by {@link SpecNormalizer}.
+ */
+public class PhoneSpec {
+    public String name;
+    public String brand;
+    public float displayInches = Float.NaN;
+    public int batteryMah;
+    // Memory variants, index i of both arrays is one variant; ramGb is NaN when a variant lists no RAM
+    public float[] storageGb = new float[0];
+    public float[] ramGb = new float[0];
+    // Release date parts; month and day are 0 when the page only gives a coarser date
+    public int releaseYear;
+    public int releaseMonth;
+    public int releaseDay;
+    public float weightGrams = Float.NaN;
+    public String chipset;
+    // Process node in nanometres, 0 when not listed
+    public int chipsetNm;
+
+    /**
+     * Release date as yyyy, yyyy-MM or yyyy-MM-dd depending on what is known, or null
+     */
+    public String getReleaseDate() {
+        if (releaseYear == 0) {
+            return null;
+        }
+        if (releaseMonth == 0) {
+            return String.valueOf(releaseYear);
+        }
+        if (releaseDay == 0) {
+            return String.format("%04d-%02d", releaseYear, releaseMonth);
+        }
+        return String.format("%04d-%02d-%02d", releaseYear, releaseMonth, releaseDay);
+    }
+
+    public float getMaxRamGb() {
+        float max = Float.NaN;
+        for (float ram : ramGb) {
+            if (!Float.isNaN(ram) && (Float.isNaN(max) || ram > max)) {
+                max = ram;
+            }
+        }
+        return max;
+    }
+
+    public float getMaxStorageGb() {
+        float max = Float.NaN;
+        for (float storage : storageGb) {
+            if (!Float.isNaN(storage) && (Float.isNaN(max) || storage > max)) {
+                max = storage;
+            }
+        }
+        return max;
+    }
+
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.putOpt("name", name);
+        json.putOpt("brand", brand);
+        if (!Float.isNaN(displayInches)) {
+            json.put("displayInches", displayInches);
+        }
+        if (batteryMah > 0) {
+            json.put("batteryMah", batteryMah);
+        }
+        if (storageGb.length > 0) {
+            JSONArray variants = new JSONArray();
+            for (int i = 0; i < storageGb.length; i++) {
+                JSONObject variant = new JSONObject();
+                if (!Float.isNaN(storageGb[i])) {
+                    variant.put("storageGb", storageGb[i]);
+                }
+                if (!Float.isNaN(ramGb[i])) {
+                    variant.put("ramGb", ramGb[i]);
+                }
+                variants.put(variant);
+            }
+            json.put("memoryVariants", variants);
+        }
+        json.putOpt("releaseDate", getReleaseDate());
+        if (!Float.isNaN(weightGrams)) {
+            json.put("weightGrams", weightGrams);
+        }
+        json.putOpt("chipset", chipset);
+        if (chipsetNm > 0) {
+            json.put("chipsetNm", chipsetNm);
+        }
+        return json;
+    }
+
+    /**
+     * Read back a spec written by {@link #toJson()}
+     */
+    public static PhoneSpec fromJson(JSONObject json) {
+        PhoneSpec spec = new PhoneSpec();
+        spec.name = json.optString("name", null);
+        spec.brand = json.optString("brand", null);
+        spec.displayInches = json.optFloat("displayInches", Float.NaN);
+        spec.batteryMah = json.optInt("batteryMah", 0);
+
+        JSONArray variants = json.optJSONArray("memoryVariants");
+        if (variants != null) {
+            spec.storageGb = new float[variants.length()];
+            spec.ramGb = new float[variants.length()];
+            for (int i = 0; i < variants.length(); i++) {
+                JSONObject variant = variants.getJSONObject(i);
+                spec.storageGb[i] = variant.optFloat("storageGb", Float.NaN);
+                spec.ramGb[i] = variant.optFloat("ramGb", Float.NaN);
+            }
+        }
+
+        String releaseDate = json.optString("releaseDate", "");
+        String[] parts = releaseDate.isEmpty() ? new String[0] : releaseDate.split("-");
+        spec.releaseYear = parts.length > 0 ? Integer.parseInt(parts[0]) : 0;
+        spec.releaseMonth = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+        spec.releaseDay = parts.length > 2 ? Integer.parseInt(parts[2]) : 0;
+
+        spec.weightGrams = json.optFloat("weightGrams", Float.NaN);
+        spec.chipset = json.optString("chipset", null);
+        spec.chipsetNm = json.optInt("chipsetNm", 0);
+        return spec;
+    }
+
+    @Override
+    public String toString() {
+        return toJson().toString();
+    }
+}
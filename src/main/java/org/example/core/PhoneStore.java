@@ -0,0 +1,407 @@
+package org.example.core;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Append-only store for scraped phones, replacing one pretty-printed file per phone.
+ *
+ * Phones are appended as compact JSON lines to numbered segment files; a new segment is started
+ * once the current one reaches {@code segmentBytes}. An in-memory index maps each key (the file
+ * name a phone would otherwise get) to the offset of its latest record, and reads go through
+ * memory-mapped segments. The index is snapshotted to {@code index.tsv} at checkpoints so opening
+ * the store only has to scan what was appended since. Records replaced by newer ones are garbage;
+ * once they make up {@code compactRatio} of the store, a checkpoint rewrites the live records into
+ * fresh segments. {@link #export(Path)} writes the classic per-phone JSON files on demand.
+ */
+public class PhoneStore implements AutoCloseable {
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".jsonl";
+    private static final String INDEX_FILE = "index.tsv";
+
+    /**
+     * Where the latest record of a phone lives
+     */
+    private static class Location {
+        final int segment;
+        final long offset;
+        // Record length in bytes, without the newline
+        final int length;
+        final String fingerprint;
+
+        Location(int segment, long offset, int length, String fingerprint) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final double compactRatio;
+    // Opened by a reader next to a running scraper: nothing is written, truncated or deleted
+    private final boolean readOnly;
+
+    private final Map<String, Location> index = new HashMap<>();
+    // Segment id -> size in bytes, for every segment still in use
+    private final TreeMap<Integer, Long> segments = new TreeMap<>();
+    private final Map<Integer, MappedByteBuffer> mapped = new HashMap<>();
+    private long liveBytes;
+    private int activeSegment;
+    private FileChannel active;
+
+    public PhoneStore(Path dir, long segmentBytes, double compactRatio) throws IOException {
+        this(dir, segmentBytes, compactRatio, false);
+    }
+
+    private PhoneStore(Path dir, long segmentBytes, double compactRatio, boolean readOnly) throws IOException {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.compactRatio = compactRatio;
+        this.readOnly = readOnly;
+        if (!readOnly) {
+            Files.createDirectories(dir);
+        }
+        load();
+        if (!readOnly) {
+            openActive(segments.isEmpty() ? 1 : segments.lastKey());
+        }
+    }
+
+    /**
+     * Open the store in {@code dir}, with -Dscraper.store.segmentMb (default 64) and
+     * -Dscraper.store.compactRatio (default 0.5)
+     */
+    public static PhoneStore fromSystemProperties(Path dir) throws IOException {
+        long segmentBytes = Long.getLong("scraper.store.segmentMb", 64L) * 1024 * 1024;
+        double compactRatio = Double.parseDouble(System.getProperty("scraper.store.compactRatio", "0.5"));
+        return new PhoneStore(dir, segmentBytes, compactRatio);
+    }
+
+    /**
+     * Open a store for reading only, e.g. while a scraper is still appending to it. Records
+     * written after opening are not seen, and a record still being written is ignored.
+     */
+    public static PhoneStore openReadOnly(Path dir) throws IOException {
+        return new PhoneStore(dir, Long.MAX_VALUE, 1.0, true);
+    }
+
+    /**
+     * Append a phone, replacing any earlier record with the same key
+     */
+    public synchronized void put(String key, String fingerprint, JSONObject details) throws IOException {
+        checkWritable();
+        JSONObject record = new JSONObject();
+        record.put("key", key);
+        record.putOpt("fp", fingerprint);
+        record.put("data", details);
+        append(key, record.toString(), fingerprint);
+    }
+
+    /**
+     * Latest details stored for the key, or null
+     */
+    public synchronized JSONObject get(String key) throws IOException {
+        Location location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        return new JSONObject(read(location)).getJSONObject("data");
+    }
+
+    public synchronized boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * Spec fingerprint stored with the key's latest record, see {@link ChangeDetector}
+     */
+    public synchronized String fingerprint(String key) {
+        Location location = index.get(key);
+        return location != null ? location.fingerprint : null;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Keys of all stored phones, sorted
+     */
+    public synchronized List<String> keys() {
+        return new ArrayList<>(new TreeSet<>(index.keySet()));
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    /**
+     * Make appended records durable, snapshot the index and compact if enough garbage piled up
+     */
+    public synchronized void checkpoint() throws IOException {
+        checkWritable();
+        active.force(false);
+        long total = totalBytes();
+        if (total > 0 && 1.0 - (double) liveBytes / total >= compactRatio) {
+            compact();
+        } else {
+            writeIndex();
+        }
+    }
+
+    /**
+     * Rewrite the live records into fresh segments and drop the old ones
+     */
+    public synchronized void compact() throws IOException {
+        checkWritable();
+        long before = totalBytes();
+        List<Integer> oldSegments = new ArrayList<>(segments.keySet());
+        Map<String, Location> live = new TreeMap<>(index);
+
+        active.force(false);
+        active.close();
+        int firstNew = activeSegment + 1;
+        openActive(firstNew);
+        index.clear();
+        liveBytes = 0;
+        for (Map.Entry<String, Location> entry : live.entrySet()) {
+            append(entry.getKey(), read(entry.getValue()), entry.getValue().fingerprint);
+        }
+        active.force(false);
+
+        // The index names the first new segment, so older ones are ignored even if deleting them fails
+        for (Integer segment : oldSegments) {
+            segments.remove(segment);
+            mapped.remove(segment);
+        }
+        writeIndex();
+        for (Integer segment : oldSegments) {
+            Files.deleteIfExists(segmentPath(segment));
+        }
+        System.out.println("Compacted phone store " + dir + ": " + (before / 1024) + " KB -> " + (totalBytes() / 1024)
+                + " KB, " + index.size() + " phones");
+    }
+
+    /**
+     * Write every phone as pretty-printed {@code <key>.json} into outDir, the layout used without the store
+     */
+    public synchronized int export(Path outDir) throws IOException {
+        Files.createDirectories(outDir);
+        int exported = 0;
+        for (String key : keys()) {
+            Path target = outDir.resolve(key + ".json");
+            Path temp = Files.createTempFile(outDir, key, ".tmp");
+            Files.writeString(temp, get(key).toString(2), StandardCharsets.UTF_8);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            exported++;
+        }
+        return exported;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!readOnly) {
+            checkpoint();
+            active.close();
+        }
+        mapped.clear();
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new IllegalStateException("Phone store " + dir + " is open read-only");
+        }
+    }
+
+    /**
+     * Write one record line to the active segment, starting a new segment when it is full
+     */
+    private void append(String key, String record, String fingerprint) throws IOException {
+        byte[] bytes = (record + "\n").getBytes(StandardCharsets.UTF_8);
+        if (active.size() > 0 && active.size() + bytes.length > segmentBytes) {
+            active.force(false);
+            active.close();
+            openActive(activeSegment + 1);
+        }
+        long offset = active.size();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            active.write(buffer, offset + buffer.position());
+        }
+        segments.put(activeSegment, offset + bytes.length);
+        track(key, new Location(activeSegment, offset, bytes.length - 1, fingerprint));
+    }
+
+    private void track(String key, Location location) {
+        Location previous = index.put(key, location);
+        if (previous != null) {
+            liveBytes -= previous.length + 1;
+        }
+        liveBytes += location.length + 1;
+    }
+
+    private long totalBytes() {
+        long total = 0;
+        for (long size : segments.values()) {
+            total += size;
+        }
+        return total;
+    }
+
+    private String read(Location location) throws IOException {
+        MappedByteBuffer buffer = mapped.get(location.segment);
+        if (buffer == null || buffer.capacity() < location.offset + location.length) {
+            // The active segment grows, so it is mapped again once reads go past the old mapping
+            try (FileChannel channel = FileChannel.open(segmentPath(location.segment), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            mapped.put(location.segment, buffer);
+        }
+        ByteBuffer slice = buffer.duplicate();
+        slice.position((int) location.offset);
+        slice.limit((int) location.offset + location.length);
+        return StandardCharsets.UTF_8.decode(slice).toString();
+    }
+
+    private void openActive(int segment) throws IOException {
+        activeSegment = segment;
+        active = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments.putIfAbsent(segment, active.size());
+    }
+
+    private Path segmentPath(int segment) {
+        return dir.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Load the index snapshot, then scan whatever was appended after it
+     */
+    private void load() throws IOException {
+        int base = 0;
+        Map<Integer, Long> covered = new HashMap<>();
+        Path indexFile = dir.resolve(INDEX_FILE);
+        if (Files.exists(indexFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t", -1);
+                    if (fields[0].equals("#base") && fields.length == 2) {
+                        base = Integer.parseInt(fields[1]);
+                    } else if (fields[0].equals("#segment") && fields.length == 3) {
+                        covered.put(Integer.parseInt(fields[1]), Long.parseLong(fields[2]));
+                    } else if (fields.length == 5) {
+                        track(fields[0], new Location(Integer.parseInt(fields[1]), Long.parseLong(fields[2]),
+                                Integer.parseInt(fields[3]), fields[4].isEmpty() ? null : fields[4]));
+                    }
+                }
+            }
+        }
+
+        List<Integer> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                found.add(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        found.sort(null);
+
+        int scanned = 0;
+        for (int segment : found) {
+            if (segment < base) {
+                if (readOnly) {
+                    continue;
+                }
+                // Left behind by a compaction that was interrupted before it could delete them
+                Files.deleteIfExists(segmentPath(segment));
+                continue;
+            }
+            long from = covered.getOrDefault(segment, 0L);
+            segments.put(segment, Files.size(segmentPath(segment)));
+            scanned += scan(segment, from, segment == found.get(found.size() - 1));
+        }
+        System.out.println("Phone store: " + index.size() + " phones in " + segments.size() + " segments at " + dir
+                + (scanned > 0 ? " (" + scanned + " records recovered after the last checkpoint)" : ""));
+    }
+
+    /**
+     * Index the records of a segment from the given offset; a torn record at the end of the last
+     * segment is cut off so new records start on a clean line
+     */
+    private int scan(int segment, long from, boolean last) throws IOException {
+        int records = 0;
+        try (FileChannel channel = readOnly
+                ? FileChannel.open(segmentPath(segment), StandardOpenOption.READ)
+                : FileChannel.open(segmentPath(segment), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (from >= size) {
+                return 0;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            long start = from;
+            for (long i = from; i < size; i++) {
+                if (buffer.get((int) i) != '\n') {
+                    continue;
+                }
+                ByteBuffer slice = buffer.duplicate();
+                slice.position((int) start);
+                slice.limit((int) i);
+                try {
+                    JSONObject record = new JSONObject(StandardCharsets.UTF_8.decode(slice).toString());
+                    track(record.getString("key"), new Location(segment, start, (int) (i - start), record.optString("fp", null)));
+                    records++;
+                } catch (JSONException e) {
+                    System.err.println("Skipping damaged record in " + segmentPath(segment) + " at offset " + start);
+                }
+                start = i + 1;
+            }
+            if (start < size && last && !readOnly) {
+                System.err.println("Dropping incomplete record at the end of " + segmentPath(segment));
+                channel.truncate(start);
+                segments.put(segment, start);
+            }
+        }
+        return records;
+    }
+
+    private void writeIndex() throws IOException {
+        Path target = dir.resolve(INDEX_FILE);
+        Path temp = Files.createTempFile(dir, "index", ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write("#base\t" + segments.firstKey());
+            writer.newLine();
+            for (Map.Entry<Integer, Long> segment : segments.entrySet()) {
+                writer.write("#segment\t" + segment.getKey() + "\t" + segment.getValue());
+                writer.newLine();
+            }
+            for (Map.Entry<String, Location> entry : index.entrySet()) {
+                Location location = entry.getValue();
+                writer.write(entry.getKey() + "\t" + location.segment + "\t" + location.offset + "\t" + location.length
+                        + "\t" + (location.fingerprint != null ? location.fingerprint : ""));
+                writer.newLine();
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
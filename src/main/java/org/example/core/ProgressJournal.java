@@ -0,0 +1,169 @@
+package org.example.core;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Append-only record of batch progress, one JSON object per line.
+ *
+ * Every stage a phone enters, and its final success or failure, is appended as it happens, so
+ * after a crash the journal tells which phones are already done. Replaying the file keeps only
+ * the latest event per phone; a line cut short by the crash is ignored.
+ */
+public class ProgressJournal implements AutoCloseable {
+
+    /**
+     * Latest known state of one phone
+     */
+    public static class PhoneState {
+        public final String event;
+        public final String stage;
+        public final String detail;
+        public final long timestamp;
+
+        PhoneState(String event, String stage, String detail, long timestamp) {
+            this.event = event;
+            this.stage = stage;
+            this.detail = detail;
+            this.timestamp = timestamp;
+        }
+
+        public boolean isCompleted() {
+            return event.equals("completed");
+        }
+
+        public boolean isFailed() {
+            return event.equals("failed");
+        }
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final OutputStream out;
+    private final Map<String, PhoneState> states = new LinkedHashMap<>();
+
+    public ProgressJournal(Path file) throws IOException {
+        this.file = file;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        replay();
+        // Single writer, so appending is just writing from the current end of the file
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+        this.out = Channels.newOutputStream(channel);
+        terminateLastLine();
+    }
+
+    /**
+     * Forget all recorded progress, e.g. for -Dscraper.resume=false
+     */
+    public synchronized void reset() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        states.clear();
+    }
+
+    public void stage(String phoneName, String stage) {
+        append(phoneName, "stage", stage, null, false);
+    }
+
+    public void completed(String phoneName, String savedFile) {
+        append(phoneName, "completed", null, savedFile, true);
+    }
+
+    public void failed(String phoneName, String stage, String error) {
+        append(phoneName, "failed", stage, error, true);
+    }
+
+    public synchronized PhoneState get(String phoneName) {
+        return states.get(phoneName);
+    }
+
+    public synchronized boolean isCompleted(String phoneName) {
+        PhoneState state = states.get(phoneName);
+        return state != null && state.isCompleted();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    private synchronized void append(String phoneName, String event, String stage, String detail, boolean sync) {
+        long now = System.currentTimeMillis();
+        JSONObject record = new JSONObject();
+        record.put("ts", now);
+        record.put("phone", phoneName);
+        record.put("event", event);
+        record.putOpt("stage", stage);
+        record.putOpt("detail", detail);
+
+        states.put(phoneName, new PhoneState(event, stage, detail, now));
+        try {
+            out.write((record.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+            // Outcomes are what a restart relies on, so make those durable right away
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write progress journal " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Make sure a line cut short by a crash is not glued to the next record
+     */
+    private void terminateLastLine() throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return;
+        }
+        ByteBuffer last = ByteBuffer.allocate(1);
+        channel.read(last, size - 1);
+        if (last.get(0) != '\n') {
+            out.write('\n');
+        }
+    }
+
+    private void replay() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        int lines = 0;
+        // A crash can also cut a multi-byte character in half; decode leniently so that line is just skipped
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    JSONObject record = new JSONObject(line);
+                    states.put(record.getString("phone"), new PhoneState(record.getString("event"),
+                            record.optString("stage", null), record.optString("detail", null), record.optLong("ts")));
+                    lines++;
+                } catch (JSONException e) {
+                    System.err.println("Skipping damaged progress journal line: " + line);
+                }
+            }
+        }
+        System.out.println("Progress journal: replayed " + lines + " events for " + states.size() + " phones from " + file);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.core;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simple token bucket used to keep a steady request rate towards an upstream
+ * instead of sleeping a fixed amount of time after every phone.
+ */
+public class RateLimiter {
+    private double permitsPerSecond;
+    private final double maxPermits;
+    private double storedPermits;
+    private long lastRefillNanos;
+
+    public RateLimiter(double permitsPerSecond, double burst) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive: " + permitsPerSecond);
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.maxPermits = Math.max(1.0, burst);
+        this.storedPermits = this.maxPermits;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Block until a single permit is available
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (storedPermits >= 1.0) {
+                    storedPermits -= 1.0;
+                    return;
+                }
+                waitNanos = (long) ((1.0 - storedPermits) / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+    }
+
+    /**
+     * Take a permit only if one is available right now
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (storedPermits >= 1.0) {
+            storedPermits -= 1.0;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    /**
+     * Change the refill rate; permits already stored in the bucket are kept
+     */
+    public synchronized void setPermitsPerSecond(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive: " + permitsPerSecond);
+        }
+        refill();
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        storedPermits = Math.min(maxPermits, storedPermits + elapsedSeconds * permitsPerSecond);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,165 @@
+package org.example.core;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persistent map from a phone query to the GSMArena device it resolved to.
+ *
+ * A search for "Pixel 8" always lands on the same device page, so once resolved the search
+ * request can be skipped. The whole index is held in a HashMap; new resolutions are appended to
+ * a tab-separated log as they happen, and the last line for a query wins when it is loaded.
+ */
+public class ResolutionIndex {
+
+    /**
+     * Where a query resolved to
+     */
+    public static class Resolution {
+        public final String slug;
+        public final String deviceId;
+        public final String foundPhoneName;
+        // Output name; entries from before ranked matching may differ from the query
+        public final String saveName;
+        public final boolean exactModelSearch;
+
+        public Resolution(String slug, String deviceId, String foundPhoneName, String saveName, boolean exactModelSearch) {
+            this.slug = slug;
+            this.deviceId = deviceId;
+            this.foundPhoneName = foundPhoneName;
+            this.saveName = saveName;
+            this.exactModelSearch = exactModelSearch;
+        }
+
+        /**
+         * Detail page URL relative to the GSMArena root, e.g. google_pixel_8-12546.php
+         */
+        public String getPhoneUrl() {
+            return slug + "-" + deviceId + ".php";
+        }
+    }
+
+    private final Path file;
+    private final Map<String, Resolution> resolutions = new HashMap<>();
+    private final BufferedWriter out;
+
+    public ResolutionIndex(Path file) throws IOException {
+        this.file = file;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        boolean endsWithNewline = load();
+        this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        if (!endsWithNewline) {
+            // A line cut short by a crash must not be glued to the next one
+            out.newLine();
+        }
+    }
+
+    /**
+     * Open the index in -Dscraper.resolution.file (default .cache/resolutions.tsv), or return null
+     * when -Dscraper.resolution.enabled=false
+     */
+    public static ResolutionIndex fromSystemProperties() {
+        if (!Boolean.parseBoolean(System.getProperty("scraper.resolution.enabled", "true"))) {
+            return null;
+        }
+        Path file = Paths.get(System.getProperty("scraper.resolution.file", ".cache/resolutions.tsv"));
+        try {
+            ResolutionIndex index = new ResolutionIndex(file);
+            System.out.println("Resolution index: " + index.size() + " known phones in " + file);
+            return index;
+        } catch (IOException e) {
+            System.err.println("Resolution index disabled, cannot use " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public synchronized Resolution get(String query) {
+        return resolutions.get(normalize(query));
+    }
+
+    /**
+     * Remember a resolution; phoneUrl is the relative detail URL such as google_pixel_8-12546.php
+     */
+    public synchronized void put(String query, String phoneUrl, String foundPhoneName, String saveName, boolean exactModelSearch) {
+        int dash = phoneUrl.lastIndexOf('-');
+        int dot = phoneUrl.lastIndexOf('.');
+        if (dash < 0 || dot < dash) {
+            return;
+        }
+        Resolution resolution = new Resolution(phoneUrl.substring(0, dash), phoneUrl.substring(dash + 1, dot),
+                foundPhoneName, saveName, exactModelSearch);
+        String key = normalize(query);
+        resolutions.put(key, resolution);
+        append(key + "\t" + resolution.slug + "\t" + resolution.deviceId + "\t" + clean(foundPhoneName) + "\t"
+                + clean(saveName) + "\t" + exactModelSearch);
+    }
+
+    /**
+     * Forget a resolution that turned out to be wrong, e.g. because the device page is gone
+     */
+    public synchronized void remove(String query) {
+        String key = normalize(query);
+        if (resolutions.remove(key) != null) {
+            append(key + "\t-");
+        }
+    }
+
+    public synchronized int size() {
+        return resolutions.size();
+    }
+
+    /**
+     * Lower-case, single spaces, and "Pro +" spelled the same as "Pro+"
+     */
+    static String normalize(String query) {
+        return query.toLowerCase().replaceAll("\\s*\\+", "+").replaceAll("\\s+", " ").trim();
+    }
+
+    private static String clean(String value) {
+        return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ');
+    }
+
+    private void append(String line) {
+        try {
+            out.write(line);
+            out.newLine();
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Could not write resolution index " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Read the log into memory; returns false when its last line is unterminated
+     */
+    private boolean load() throws IOException {
+        if (!Files.exists(file) || Files.size(file) == 0) {
+            return true;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length == 2 && fields[1].equals("-")) {
+                    resolutions.remove(fields[0]);
+                } else if (fields.length == 6) {
+                    resolutions.put(fields[0], new Resolution(fields[1], fields[2], fields[3], fields[4],
+                            Boolean.parseBoolean(fields[5])));
+                }
+            }
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "r")) {
+            raw.seek(raw.length() - 1);
+            return raw.read() == '\n';
+        }
+    }
+}
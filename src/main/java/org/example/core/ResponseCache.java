@@ -0,0 +1,368 @@
+package org.example.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persistent on-disk cache for Oxylabs responses.
+ *
+ * Entries are keyed by the normalized target URL plus geo location and stored gzip-compressed,
+ * one file per entry. Search, spec and pictures pages have their own TTL, and the cache is kept
+ * under a byte budget by evicting the least recently used entries.
+ */
+public class ResponseCache {
+
+    /**
+     * Kind of GSMArena page, used to pick a TTL
+     */
+    public enum PageType {
+        SEARCH, SPEC, PICTURES, OTHER;
+
+        public static PageType of(String url) {
+            String lowerUrl = url.toLowerCase();
+            if (lowerUrl.contains("results.php3")) {
+                return SEARCH;
+            } else if (lowerUrl.contains("-pictures-")) {
+                return PICTURES;
+            } else if (lowerUrl.matches(".*/[a-z0-9_]+-\\d+\\.php.*")) {
+                return SPEC;
+            }
+            return OTHER;
+        }
+    }
+
+    private static class Entry {
+        final long size;
+        final long storedAt;
+
+        Entry(long size, long storedAt) {
+            this.size = size;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private final Path cacheDir;
+    private final long maxBytes;
+    private final Map<PageType, Long> ttlMillis;
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    public ResponseCache(Path cacheDir, long maxBytes, Map<PageType, Long> ttlMillis) throws IOException {
+        this.cacheDir = cacheDir;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+        Files.createDirectories(cacheDir);
+        loadIndex();
+    }
+
+    /**
+     * Build the cache from system properties, or return null when -Dscraper.cache.enabled=false
+     */
+    public static ResponseCache fromSystemProperties() {
+        if (!Boolean.parseBoolean(System.getProperty("scraper.cache.enabled", "true"))) {
+            return null;
+        }
+
+        Map<PageType, Long> ttl = new LinkedHashMap<>();
+        ttl.put(PageType.SEARCH, hours("scraper.cache.ttl.search", 24 * 7));
+        ttl.put(PageType.SPEC, hours("scraper.cache.ttl.spec", 24));
+        ttl.put(PageType.PICTURES, hours("scraper.cache.ttl.pictures", 24 * 7));
+        ttl.put(PageType.OTHER, hours("scraper.cache.ttl.other", 24));
+
+        Path dir = Paths.get(System.getProperty("scraper.cache.dir", ".cache/oxylabs"));
+        long maxBytes = Long.getLong("scraper.cache.maxBytes", 256L * 1024 * 1024);
+        try {
+            ResponseCache cache = new ResponseCache(dir, maxBytes, ttl);
+            System.out.println("Response cache: " + cache.size() + " entries in " + dir);
+            return cache;
+        } catch (IOException e) {
+            System.err.println("Response cache disabled, cannot use " + dir + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Return the cached body for a URL, or null when missing or expired
+     */
+    public String get(String url, String geoLocation) {
+        Reader reader = openReader(url, geoLocation);
+        if (reader == null) {
+            return null;
+        }
+        try (reader) {
+            StringBuilder body = new StringBuilder();
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                body.append(buffer, 0, read);
+            }
+            return body.toString();
+        } catch (IOException e) {
+            // Entry vanished or is corrupt, forget about it
+            remove(key(url, geoLocation));
+            return null;
+        }
+    }
+
+    /**
+     * Stream the cached body for a URL, or return null when missing or expired
+     */
+    public Reader openReader(String url, String geoLocation) {
+        String key = key(url, geoLocation);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            return null;
+        }
+
+        long ttl = ttlMillis.getOrDefault(PageType.of(url), 0L);
+        if (System.currentTimeMillis() - entry.storedAt > ttl) {
+            return null;
+        }
+
+        try {
+            InputStream in = new GZIPInputStream(Files.newInputStream(file(key)), 16 * 1024);
+            return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 16 * 1024);
+        } catch (IOException e) {
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Store a response body; failures are logged and otherwise ignored
+     */
+    public void put(String url, String geoLocation, String body) {
+        try (EntryWriter writer = openWriter(url, geoLocation)) {
+            writer.write(body);
+        } catch (IOException e) {
+            System.err.println("Could not cache response for " + url + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Start writing an entry. It becomes visible when the writer is closed; call
+     * {@link EntryWriter#abort()} instead if the body turned out incomplete.
+     */
+    public EntryWriter openWriter(String url, String geoLocation) throws IOException {
+        String key = key(url, geoLocation);
+        Path temp = Files.createTempFile(cacheDir, key, ".tmp");
+        return new EntryWriter(key, temp);
+    }
+
+    /**
+     * Writer for a single cache entry, committed atomically on close
+     */
+    public class EntryWriter extends Writer {
+        private final String key;
+        private final Path temp;
+        private final Writer out;
+        private boolean done;
+
+        EntryWriter(String key, Path temp) throws IOException {
+            this.key = key;
+            this.temp = temp;
+            this.out = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(temp), 16 * 1024), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        /**
+         * Discard the entry
+         */
+        public void abort() {
+            if (done) {
+                return;
+            }
+            done = true;
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // Discarding anyway
+            }
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Best effort
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (done) {
+                return;
+            }
+            done = true;
+            try {
+                out.close();
+                Path target = file(key);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                long size = Files.size(target);
+                synchronized (ResponseCache.this) {
+                    Entry previous = entries.put(key, new Entry(size, System.currentTimeMillis()));
+                    totalBytes += size - (previous != null ? previous.size : 0);
+                    evict();
+                }
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Normalize a URL so trivially different spellings share a cache entry:
+     * lower-case scheme and host, no default port or fragment, sorted query parameters.
+     */
+    static String normalizeUrl(String url) {
+        try {
+            URI uri = new URI(url.trim());
+            String scheme = uri.getScheme() == null ? "https" : uri.getScheme().toLowerCase();
+            String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase();
+            int port = uri.getPort();
+            boolean defaultPort = port == -1 || (scheme.equals("https") && port == 443) || (scheme.equals("http") && port == 80);
+
+            StringBuilder normalized = new StringBuilder(scheme).append("://").append(host);
+            if (!defaultPort) {
+                normalized.append(':').append(port);
+            }
+            normalized.append(uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath());
+
+            String query = uri.getRawQuery();
+            if (query != null && !query.isEmpty()) {
+                String[] params = query.split("&");
+                Arrays.sort(params);
+                normalized.append('?').append(String.join("&", params));
+            }
+            return normalized.toString();
+        } catch (URISyntaxException e) {
+            return url.trim();
+        }
+    }
+
+    private static String key(String url, String geoLocation) {
+        String raw = normalizeUrl(url) + "|" + (geoLocation == null ? "" : geoLocation.toLowerCase());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest(raw.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private Path file(String key) {
+        return cacheDir.resolve(key + ".gz");
+    }
+
+    private synchronized void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            totalBytes -= entry.size;
+        }
+        try {
+            Files.deleteIfExists(file(key));
+        } catch (IOException ignored) {
+            // Best effort
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getValue().size;
+            try {
+                Files.deleteIfExists(file(eldest.getKey()));
+            } catch (IOException e) {
+                System.err.println("Could not evict cache entry " + eldest.getKey() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rebuild the in-memory index from the files on disk, oldest first
+     */
+    private void loadIndex() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir, "*.gz")) {
+            for (Path path : stream) {
+                files.add(path);
+            }
+        }
+        files.sort(Comparator.comparingLong(ResponseCache::lastModified));
+
+        synchronized (this) {
+            for (Path path : files) {
+                String name = path.getFileName().toString();
+                long size = Files.size(path);
+                entries.put(name.substring(0, name.length() - 3), new Entry(size, lastModified(path)));
+                totalBytes += size;
+            }
+            evict();
+        }
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            FileTime time = Files.getLastModifiedTime(path);
+            return time.toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static long hours(String property, long defaultHours) {
+        return TimeUnit.HOURS.toMillis(Long.getLong(property, defaultHours));
+    }
+}
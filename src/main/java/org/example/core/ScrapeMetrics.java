@@ -0,0 +1,277 @@
+package org.example.core;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters and latency histograms for a scrape, rendered in the Prometheus text
+ * format by {@link MetricsServer}.
+ *
+ * Stage timings cover both the pipeline stages (search, detail, pictures, probe, download, from
+ * the moment a job is taken until it is handed on) and the work inside them: waiting for the
+ * Oxylabs throttle, Oxylabs requests, parsing, image probes, image downloads and writes.
+ * Everything is lock-free, so recording from the hot paths costs a few atomic adds.
+ */
+public class ScrapeMetrics {
+    // Upper bounds in seconds; Oxylabs realtime requests commonly take 5 to 60 s, parsing a few ms
+    private static final double[] BUCKETS = {0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120};
+
+    public static final String OXYLABS = "oxylabs";
+    public static final String IMAGES = "images";
+
+    private static ScrapeMetrics shared;
+
+    /**
+     * Latency histogram of one stage
+     */
+    static class Histogram {
+        final LongAdder[] buckets = new LongAdder[BUCKETS.length];
+        final LongAdder count = new LongAdder();
+        final LongAdder sumNanos = new LongAdder();
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void observe(long nanos) {
+            double seconds = nanos / 1e9;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                if (seconds <= BUCKETS[i]) {
+                    buckets[i].increment();
+                    break;
+                }
+            }
+            count.increment();
+            sumNanos.add(nanos);
+        }
+    }
+
+    private final long startedAt = System.currentTimeMillis();
+    private final Map<String, Histogram> stages = new ConcurrentHashMap<>();
+    // Keyed by label values joined with a tab
+    private final Map<String, LongAdder> requests = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> bytes = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> phones = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> hedges = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> circuits = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> parked = new ConcurrentHashMap<>();
+    private final LongAdder cacheHits = new LongAdder();
+
+    public static synchronized ScrapeMetrics shared() {
+        if (shared == null) {
+            shared = new ScrapeMetrics();
+        }
+        return shared;
+    }
+
+    /**
+     * Record the time since {@code startNanos} (from {@link System#nanoTime()}) against a stage
+     */
+    public void recordStage(String stage, long startNanos) {
+        stages.computeIfAbsent(stage, s -> new Histogram()).observe(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Count a request to an upstream by outcome: the HTTP status, or the exception name when there was no response
+     */
+    public void recordRequest(String upstream, String status) {
+        increment(requests, upstream + "\t" + status, 1);
+    }
+
+    public void recordRequest(String upstream, int status) {
+        recordRequest(upstream, String.valueOf(status));
+    }
+
+    public void recordBytesIn(String upstream, long count) {
+        increment(bytes, upstream + "\tin", count);
+    }
+
+    public void recordBytesOut(String upstream, long count) {
+        increment(bytes, upstream + "\tout", count);
+    }
+
+    public void recordError(String stage) {
+        increment(errors, stage, 1);
+    }
+
+    /**
+     * Count a finished phone: "saved", "unchanged" or "failed"
+     */
+    public void recordPhone(String outcome) {
+        increment(phones, outcome, 1);
+    }
+
+    /**
+     * Count a hedged Oxylabs request: "sent", then "won" or "lost" against the original, or "failed" when both failed
+     */
+    public void recordHedge(String outcome) {
+        increment(hedges, outcome, 1);
+    }
+
+    /**
+     * Count a circuit breaker changing to "open", "half_open" or "closed"
+     */
+    public void recordCircuit(String upstream, String state) {
+        increment(circuits, upstream + "\t" + state, 1);
+    }
+
+    /**
+     * Count a phone set aside in a stage until its upstream's circuit lets requests through again
+     */
+    public void recordParked(String stage) {
+        increment(parked, stage, 1);
+    }
+
+    public void recordCacheHit() {
+        cacheHits.increment();
+    }
+
+    /**
+     * Wrap a response stream so every byte read is counted as coming in from the upstream
+     */
+    public InputStream countBytesIn(InputStream in, String upstream) {
+        LongAdder counter = bytes.computeIfAbsent(upstream + "\tin", k -> new LongAdder());
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    counter.increment();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int off, int len) throws IOException {
+                int read = super.read(buffer, off, len);
+                if (read > 0) {
+                    counter.add(read);
+                }
+                return read;
+            }
+        };
+    }
+
+    /**
+     * Requests sent to an upstream so far, whatever their outcome
+     */
+    public long requestCount(String upstream) {
+        return sumPrefix(requests, upstream + "\t");
+    }
+
+    public long phoneCount(String outcome) {
+        return sum(phones, outcome);
+    }
+
+    /**
+     * Oxylabs requests sent per phone saved or found unchanged; cache hits cost nothing and are not counted
+     */
+    public double oxylabsRequestsPerPhone() {
+        long succeeded = sum(phones, "saved") + sum(phones, "unchanged");
+        return succeeded == 0 ? 0 : (double) requestCount(OXYLABS) / succeeded;
+    }
+
+    /**
+     * One line per stage with its count, mean and total time, for the end of a run
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder("Stage timings:");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(stages).entrySet()) {
+            Histogram histogram = entry.getValue();
+            long count = histogram.count.sum();
+            long totalMs = TimeUnit.NANOSECONDS.toMillis(histogram.sumNanos.sum());
+            summary.append(String.format("%n  %-22s %7d x %9.1f ms avg = %9.1f s",
+                    entry.getKey(), count, count == 0 ? 0.0 : (double) totalMs / count, totalMs / 1000.0));
+        }
+        summary.append(String.format("%nOxylabs requests per phone: %.2f", oxylabsRequestsPerPhone()));
+        return summary.toString();
+    }
+
+    /**
+     * All metrics in the Prometheus text exposition format, version 0.0.4
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder(4096);
+
+        header(out, "scraper_stage_duration_seconds", "histogram", "Time spent per pipeline stage and per operation inside one");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(stages).entrySet()) {
+            String stage = "stage=\"" + escape(entry.getKey()) + "\"";
+            Histogram histogram = entry.getValue();
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                cumulative += histogram.buckets[i].sum();
+                out.append("scraper_stage_duration_seconds_bucket{").append(stage).append(",le=\"").append(BUCKETS[i]).append("\"} ")
+                        .append(cumulative).append('\n');
+            }
+            long count = histogram.count.sum();
+            out.append("scraper_stage_duration_seconds_bucket{").append(stage).append(",le=\"+Inf\"} ").append(count).append('\n');
+            out.append("scraper_stage_duration_seconds_sum{").append(stage).append("} ").append(histogram.sumNanos.sum() / 1e9).append('\n');
+            out.append("scraper_stage_duration_seconds_count{").append(stage).append("} ").append(count).append('\n');
+        }
+
+        counters(out, "scraper_requests_total", "Requests to upstreams by outcome", requests, "upstream", "status");
+        counters(out, "scraper_bytes_total", "Bytes exchanged with upstreams", bytes, "upstream", "direction");
+        counters(out, "scraper_errors_total", "Failures by stage", errors, "stage");
+        counters(out, "scraper_phones_total", "Finished phones by outcome", phones, "outcome");
+        counters(out, "scraper_hedges_total", "Hedged Oxylabs requests by outcome", hedges, "outcome");
+        counters(out, "scraper_circuit_transitions_total", "Circuit breaker state changes", circuits, "upstream", "state");
+        counters(out, "scraper_parked_total", "Phones parked while an upstream's circuit was open", parked, "stage");
+
+        header(out, "scraper_cache_hits_total", "counter", "Oxylabs responses served from the response cache");
+        out.append("scraper_cache_hits_total ").append(cacheHits.sum()).append('\n');
+        header(out, "scraper_oxylabs_requests_per_phone", "gauge", "Oxylabs requests sent per phone saved or found unchanged");
+        out.append("scraper_oxylabs_requests_per_phone ").append(oxylabsRequestsPerPhone()).append('\n');
+        header(out, "scraper_start_time_seconds", "gauge", "Start time of the process since the epoch");
+        out.append("scraper_start_time_seconds ").append(startedAt / 1000).append('\n');
+        return out.toString();
+    }
+
+    private static void increment(Map<String, LongAdder> counters, String key, long amount) {
+        counters.computeIfAbsent(key, k -> new LongAdder()).add(amount);
+    }
+
+    private static long sum(Map<String, LongAdder> counters, String key) {
+        LongAdder counter = counters.get(key);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    private static long sumPrefix(Map<String, LongAdder> counters, String prefix) {
+        long total = 0;
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                total += entry.getValue().sum();
+            }
+        }
+        return total;
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void counters(StringBuilder out, String name, String help, Map<String, LongAdder> counters, String... labels) {
+        header(out, name, "counter", help);
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+            String[] values = entry.getKey().split("\t", -1);
+            out.append(name).append('{');
+            for (int i = 0; i < labels.length; i++) {
+                out.append(i > 0 ? "," : "").append(labels[i]).append("=\"").append(escape(values[i])).append('"');
+            }
+            out.append("} ").append(entry.getValue().sum()).append('\n');
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
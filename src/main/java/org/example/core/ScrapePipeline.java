@@ -0,0 +1,756 @@
+package org.example.core;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Staged scraping engine used by the batch mode.
+ *
+ * Every phone moves through search, detail, pictures, probe and download stages.
+ * Each stage owns a bounded queue and a limit on jobs in flight, so many phones are
+ * in flight at once while politeness towards Oxylabs comes from the client's adaptive throttle.
+ * Oxylabs stages are asynchronous, which lets push-pull batch results arrive in any order.
+ *
+ * The first three stages depend on Oxylabs and the last two on the image CDN, each guarded by
+ * its own {@link CircuitBreaker}. A phone that fails while its stage's upstream is down is
+ * parked rather than failed: it gives up its place in the stage and is queued again once the
+ * breaker lets trial requests through, so the stages of the healthy upstream keep going.
+ *
+ * A pipeline can run several times; {@link #close()} stops its parse threads and closes the phone store.
+ */
+public class ScrapePipeline implements AutoCloseable {
+    private static final String GSM_ARENA_BASE_URL = "https://www.gsmarena.com";
+    private static final String SEARCH_URL = GSM_ARENA_BASE_URL + "/results.php3?sQuickSearch=yes&sName=";
+    // Journal detail for phones kept in the PhoneStore rather than in a file
+    private static final String STORE_PREFIX = "store:";
+
+    /**
+     * Per-stage concurrency and queue sizes; the request rate is owned by OxylabsClient
+     */
+    public static class Config {
+        public int searchConcurrency = 2;
+        public int detailConcurrency = 2;
+        public int picturesConcurrency = 2;
+        public int probeConcurrency = 4;
+        public int downloadConcurrency = 4;
+        public int queueCapacity = 16;
+        // Phones waiting longer than this for a sick upstream are marked failed
+        public long maxParkMinutes = 30;
+        // Skip phones whose spec sheet fingerprint matches the last run
+        public boolean changeDetection = true;
+        // "files" for one JSON file per phone, "store" for the append-only PhoneStore
+        public String storage = "files";
+
+        /**
+         * Read overrides such as -Dscraper.detail.concurrency=4
+         */
+        public static Config fromSystemProperties() {
+            Config config = new Config();
+            config.searchConcurrency = Integer.getInteger("scraper.search.concurrency", config.searchConcurrency);
+            config.detailConcurrency = Integer.getInteger("scraper.detail.concurrency", config.detailConcurrency);
+            config.picturesConcurrency = Integer.getInteger("scraper.pictures.concurrency", config.picturesConcurrency);
+            config.probeConcurrency = Integer.getInteger("scraper.probe.concurrency", config.probeConcurrency);
+            config.downloadConcurrency = Integer.getInteger("scraper.download.concurrency", config.downloadConcurrency);
+            config.queueCapacity = Integer.getInteger("scraper.queue.capacity", config.queueCapacity);
+            config.maxParkMinutes = Long.getLong("scraper.park.maxMinutes", config.maxParkMinutes);
+            config.changeDetection = Boolean.parseBoolean(System.getProperty("scraper.changeDetection", String.valueOf(config.changeDetection)));
+            config.storage = System.getProperty("scraper.storage", config.storage);
+            return config;
+        }
+    }
+
+    /**
+     * State of a single phone as it travels through the stages
+     */
+    private static class PhoneJob {
+        final int index;
+        final String phoneName;
+        // Name used for output files; index entries from older runs may carry a different one
+        String saveName;
+        // The matcher picked a result other than GSMArena's first
+        boolean exactModelSearch;
+        String phoneUrl;
+        String foundPhoneName;
+        JSONObject phoneDetails;
+        List<String> imageUrls;
+        // Last stage entered and the error that stopped the job, for the progress journal
+        String stage;
+        String error;
+        String savedFile;
+        // Fingerprint of the spec sections, stored once the phone is saved
+        String fingerprint;
+        boolean resolvedFromIndex;
+        // When the job entered its first stage
+        long startNanos;
+        // When the job was first parked for the current outage, 0 when it is not waiting on one
+        long parkedSinceNanos;
+
+        PhoneJob(int index, String phoneName) {
+            this.index = index;
+            this.phoneName = phoneName;
+            this.saveName = phoneName;
+        }
+    }
+
+    private interface StageHandler {
+        /**
+         * Start processing the job; the future yields the stage it should move to, or null when the job finished
+         */
+        CompletableFuture<Stage> handle(PhoneJob job) throws Exception;
+    }
+
+    private interface BlockingStageHandler {
+        Stage handle(PhoneJob job) throws Exception;
+    }
+
+    /**
+     * A pipeline stage. The dispatcher takes jobs from the bounded queue as long as fewer than
+     * {@code concurrency} jobs are in flight. Oxylabs stages complete asynchronously and hold no
+     * thread while waiting; blocking stages run on the stage's own worker pool.
+     */
+    private class Stage {
+        final String name;
+        final BlockingQueue<PhoneJob> queue;
+        final Semaphore permits;
+        final ExecutorService workers;
+        // Blocking hand-offs into this stage when its queue is full, so callback threads never block
+        final ExecutorService handoff;
+        final int concurrency;
+        // Breaker of the upstream this stage depends on, or null
+        final CircuitBreaker breaker;
+        StageHandler handler;
+        Thread dispatcher;
+
+        Stage(String name, int concurrency, CircuitBreaker breaker) {
+            this.name = name;
+            this.concurrency = Math.max(1, concurrency);
+            this.breaker = breaker;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, config.queueCapacity));
+            this.permits = new Semaphore(this.concurrency);
+            this.workers = Executors.newFixedThreadPool(this.concurrency, daemonThreads(name));
+            this.handoff = Executors.newSingleThreadExecutor(daemonThreads(name + "-handoff"));
+        }
+
+        void start() {
+            dispatcher = new Thread(this::dispatch, name + "-dispatcher");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+
+        void submit(PhoneJob job) throws InterruptedException {
+            queue.put(job);
+        }
+
+        void shutdown() {
+            dispatcher.interrupt();
+            workers.shutdownNow();
+            handoff.shutdownNow();
+        }
+
+        StageHandler blocking(BlockingStageHandler blockingHandler) {
+            return job -> {
+                CompletableFuture<Stage> future = new CompletableFuture<>();
+                workers.execute(() -> {
+                    try {
+                        future.complete(blockingHandler.handle(job));
+                    } catch (Exception e) {
+                        future.completeExceptionally(e);
+                    }
+                });
+                return future;
+            };
+        }
+
+        private void dispatch() {
+            while (!Thread.currentThread().isInterrupted()) {
+                PhoneJob job;
+                try {
+                    permits.acquire();
+                    job = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                job.stage = name;
+                if (job.startNanos == 0) {
+                    job.startNanos = System.nanoTime();
+                }
+                if (journal != null) {
+                    journal.stage(job.phoneName, name);
+                }
+
+                long start = System.nanoTime();
+                CompletableFuture<Stage> future;
+                try {
+                    future = handler.handle(job);
+                } catch (Exception e) {
+                    future = CompletableFuture.failedFuture(e);
+                }
+                future.whenComplete((next, error) -> {
+                    metrics.recordStage(name, start);
+                    finish(job, next, error);
+                });
+            }
+        }
+
+        private void finish(PhoneJob job, Stage next, Throwable error) {
+            if (error != null && isUpstreamDown(error, breaker)) {
+                park(job, error);
+                permits.release();
+            } else if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                System.out.println("❌ Error processing " + job.phoneName + " in " + name + " stage: " + cause.getMessage());
+                cause.printStackTrace();
+                job.error = String.valueOf(cause.getMessage());
+                metrics.recordError(name);
+                complete(job, false);
+                permits.release();
+            } else if (next == null || next.queue.offer(job)) {
+                job.parkedSinceNanos = 0;
+                permits.release();
+            } else {
+                job.parkedSinceNanos = 0;
+                // Keep our permit until the next stage accepts the job; that is the backpressure
+                next.handoff.execute(() -> {
+                    try {
+                        next.queue.put(job);
+                    } catch (InterruptedException e) {
+                        complete(job, false);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+
+        /**
+         * Set the job aside without holding a permit and queue it again here once the breaker
+         * lets requests through; it fails only after waiting longer than the configured maximum
+         */
+        private void park(PhoneJob job, Throwable error) {
+            long now = System.nanoTime();
+            if (job.parkedSinceNanos == 0) {
+                job.parkedSinceNanos = now;
+            }
+            String upstream = breaker != null ? breaker.getUpstream() : CircuitOpenException.find(error).getUpstream();
+            if (now - job.parkedSinceNanos > TimeUnit.MINUTES.toNanos(config.maxParkMinutes)) {
+                System.out.println("❌ Giving up on " + job.phoneName + " in " + name + " stage: " + upstream
+                        + " unavailable for over " + config.maxParkMinutes + " min");
+                job.error = upstream + " unavailable";
+                metrics.recordError(name);
+                complete(job, false);
+                return;
+            }
+
+            CircuitOpenException open = CircuitOpenException.find(error);
+            long retryAfterMs = open != null ? open.getRetryAfterMs() : breaker.retryAfterMs();
+            // Spread the retries so parked phones do not all hit the trial requests at once
+            long delayMs = retryAfterMs + ThreadLocalRandom.current().nextLong(1000);
+            System.out.println("⏸️ Parked " + job.phoneName + " in " + name + " stage (" + upstream
+                    + " circuit open), retrying in " + Math.max(1, delayMs / 1000) + " s");
+            metrics.recordParked(name);
+            CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS, handoff).execute(() -> {
+                try {
+                    queue.put(job);
+                } catch (InterruptedException e) {
+                    complete(job, false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Whether a failure came from an upstream that is down: an open circuit turned the request
+     * away, or a timeout, dropped connection or 5xx happened while the breaker was tripping.
+     * Other errors fail the phone as usual, so one bad phone cannot loop through the trial requests.
+     */
+    private static boolean isUpstreamDown(Throwable error, CircuitBreaker breaker) {
+        return CircuitOpenException.find(error) != null
+                || (breaker != null && !breaker.isClosed() && CircuitBreaker.isUpstreamFailure(error));
+    }
+
+    private final OxylabsClient oxylabs;
+    private final String phonesDir;
+    private final String imagesDir;
+    private final Config config;
+    private final ExecutorService parseExecutor;
+    private final ScrapeMetrics metrics = ScrapeMetrics.shared();
+    private final CircuitBreaker cdnBreaker = ImageDownloader.shared().getBreaker();
+
+    private Stage searchStage;
+    private Stage detailStage;
+    private Stage picturesStage;
+    private Stage probeStage;
+    private Stage downloadStage;
+
+    private ProgressJournal journal;
+    private ChangeDetector changeDetector;
+    private final ResolutionIndex resolutionIndex;
+    // Null when phones are written as one file each
+    private final PhoneStore store;
+    private boolean[] outcomes;
+    private long[] latencies;
+    private CountDownLatch remaining;
+    private final AtomicInteger completed = new AtomicInteger();
+
+    public ScrapePipeline(OxylabsClient oxylabs, String phonesDir, String imagesDir, Config config) {
+        this.oxylabs = oxylabs;
+        this.phonesDir = phonesDir;
+        this.imagesDir = imagesDir;
+        this.config = config;
+        this.resolutionIndex = ResolutionIndex.fromSystemProperties();
+        this.store = config.storage.equals("store") ? openStore(Paths.get(phonesDir, "store")) : null;
+        this.parseExecutor = Executors.newFixedThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors()), daemonThreads("parse"));
+    }
+
+    /**
+     * Record every stage transition and outcome in the given journal
+     */
+    public void setJournal(ProgressJournal journal) {
+        this.journal = journal;
+    }
+
+    private static PhoneStore openStore(Path dir) {
+        try {
+            return PhoneStore.fromSystemProperties(dir);
+        } catch (IOException e) {
+            System.err.println("Phone store unavailable, writing one file per phone: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Whether the output recorded for a phone (its journal detail) still exists
+     */
+    public boolean isSaved(String savedFile) {
+        if (savedFile == null) {
+            return false;
+        }
+        if (savedFile.startsWith(STORE_PREFIX)) {
+            return store != null && store.contains(savedFile.substring(STORE_PREFIX.length()));
+        }
+        return Files.exists(Paths.get(savedFile));
+    }
+
+    private String savedFile(String safeName) {
+        return store != null ? STORE_PREFIX + safeName : phonesDir + "/" + safeName + ".json";
+    }
+
+    private static String safeName(String name) {
+        return name.replaceAll("[^a-zA-Z0-9]", "_");
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Scrape all phones and return per-phone success flags in the same order as the input list
+     */
+    public boolean[] run(List<String> phoneNames) throws InterruptedException {
+        List<PhoneJob> jobs = new ArrayList<>(phoneNames.size());
+        for (int i = 0; i < phoneNames.size(); i++) {
+            jobs.add(new PhoneJob(i, phoneNames.get(i)));
+        }
+        return execute(jobs, false);
+    }
+
+    /**
+     * Scrape devices whose detail page is already known, e.g. from {@link CatalogCrawler}; the search stage is skipped
+     */
+    public boolean[] runDevices(List<CatalogCrawler.Device> devices) throws InterruptedException {
+        List<PhoneJob> jobs = new ArrayList<>(devices.size());
+        for (int i = 0; i < devices.size(); i++) {
+            CatalogCrawler.Device device = devices.get(i);
+            PhoneJob job = new PhoneJob(i, device.getKey());
+            job.phoneUrl = device.url;
+            job.foundPhoneName = device.name;
+            jobs.add(job);
+        }
+        return execute(jobs, true);
+    }
+
+    private boolean[] execute(List<PhoneJob> jobs, boolean skipSearch) throws InterruptedException {
+        outcomes = new boolean[jobs.size()];
+        latencies = new long[jobs.size()];
+        remaining = new CountDownLatch(jobs.size());
+        completed.set(0);
+        changeDetector = config.changeDetection ? new ChangeDetector(Paths.get(phonesDir), store) : null;
+
+        CircuitBreaker oxylabsBreaker = oxylabs.getBreaker();
+        searchStage = new Stage("search", config.searchConcurrency, oxylabsBreaker);
+        detailStage = new Stage("detail", config.detailConcurrency, oxylabsBreaker);
+        picturesStage = new Stage("pictures", config.picturesConcurrency, oxylabsBreaker);
+        probeStage = new Stage("probe", config.probeConcurrency, cdnBreaker);
+        downloadStage = new Stage("download", config.downloadConcurrency, cdnBreaker);
+
+        searchStage.handler = this::search;
+        detailStage.handler = this::fetchDetails;
+        picturesStage.handler = this::fetchPictures;
+        probeStage.handler = probeStage.blocking(this::probeImages);
+        downloadStage.handler = downloadStage.blocking(this::downloadAndSave);
+
+        List<Stage> stages = List.of(searchStage, detailStage, picturesStage, probeStage, downloadStage);
+        for (Stage stage : stages) {
+            stage.start();
+        }
+
+        System.out.println("Pipeline started (search=" + searchStage.concurrency
+                + ", detail=" + detailStage.concurrency
+                + ", pictures=" + picturesStage.concurrency
+                + ", probe=" + probeStage.concurrency
+                + ", download=" + downloadStage.concurrency
+                + ")");
+        System.out.println("Oxylabs transport: " + (oxylabs.isPushPull() ? "push-pull batch jobs" : "realtime"));
+        System.out.println("Oxylabs throttle: " + oxylabs.getThrottleStatus());
+
+        try {
+            int resolved = 0;
+            for (PhoneJob job : jobs) {
+                if (skipSearch) {
+                    detailStage.submit(job);
+                } else if (resolveFromIndex(job)) {
+                    resolved++;
+                    detailStage.submit(job);
+                } else {
+                    searchStage.submit(job);
+                }
+            }
+            if (resolved > 0) {
+                System.out.println("Skipped search for " + resolved + " phones already in the resolution index");
+            }
+            remaining.await();
+        } finally {
+            for (Stage stage : stages) {
+                stage.shutdown();
+            }
+        }
+
+        if (changeDetector != null) {
+            changeDetector.writeReport();
+        }
+        if (store != null) {
+            try {
+                store.checkpoint();
+            } catch (IOException e) {
+                System.err.println("Error checkpointing phone store: " + e.getMessage());
+            }
+        }
+        System.out.println(metrics.summary());
+
+        return outcomes;
+    }
+
+    /**
+     * Stop the parse threads and close the phone store, checkpointing it
+     */
+    @Override
+    public void close() {
+        parseExecutor.shutdownNow();
+        if (store != null) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.err.println("Error closing phone store: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Fill in the detail URL from an earlier search, if there was one
+     */
+    private boolean resolveFromIndex(PhoneJob job) {
+        ResolutionIndex.Resolution resolution = resolutionIndex != null ? resolutionIndex.get(job.phoneName) : null;
+        if (resolution == null) {
+            return false;
+        }
+        job.phoneUrl = resolution.getPhoneUrl();
+        job.foundPhoneName = resolution.foundPhoneName;
+        job.saveName = resolution.saveName;
+        job.exactModelSearch = resolution.exactModelSearch;
+        job.resolvedFromIndex = true;
+        return true;
+    }
+
+    /**
+     * Per-phone time of the last run, from entering the first stage until done, in input order
+     */
+    public long[] getLatencyNanos() {
+        return latencies;
+    }
+
+    private void complete(PhoneJob job, boolean success) {
+        outcomes[job.index] = success;
+        latencies[job.index] = System.nanoTime() - job.startNanos;
+        metrics.recordStage("phone", job.startNanos);
+        // Unchanged phones finish in the detail stage, before anything is parsed
+        metrics.recordPhone(!success ? "failed" : job.phoneDetails == null ? "unchanged" : "saved");
+        if (journal != null) {
+            if (success) {
+                journal.completed(job.phoneName, job.savedFile);
+            } else {
+                journal.failed(job.phoneName, job.stage, job.error != null ? job.error : "No matching phone found");
+            }
+        }
+        int done = completed.incrementAndGet();
+        if (done % 10 == 0 || done == outcomes.length) {
+            System.out.println("Progress: " + done + "/" + outcomes.length + " phones, Oxylabs throttle: " + oxylabs.getThrottleStatus());
+        }
+        remaining.countDown();
+    }
+
+    /**
+     * Fetch a page through Oxylabs and parse it off the callback thread. The parser reads the
+     * page straight from the response stream, so only one copy of it is ever held.
+     */
+    private <T> CompletableFuture<T> fetch(String url, Function<Document, T> handler) {
+        return oxylabs.scrapeReaderAsync(url).thenApplyAsync(reader -> {
+            long start = System.nanoTime();
+            Document doc;
+            try (reader) {
+                doc = PhoneDataParser.parseDocument(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            metrics.recordStage("read_page", start);
+            return handler.apply(doc);
+        }, parseExecutor);
+    }
+
+    private CompletableFuture<Stage> search(PhoneJob job) {
+        System.out.println("\n------------------------------");
+        System.out.println("Processing: " + job.phoneName);
+
+        // One search; the best of all listed results is picked locally (see SearchResultMatcher)
+        String query = SearchResultMatcher.searchQuery(job.phoneName);
+        String searchUrl = SEARCH_URL + query.replace(" ", "+");
+        return fetch(searchUrl, searchResults -> {
+            SearchResultMatcher.Match match = SearchResultMatcher.bestMatch(job.phoneName, searchResults);
+            if (match == null) {
+                System.out.println("❌ No search results found for: " + query);
+                complete(job, false);
+                return null;
+            }
+
+            job.phoneUrl = match.url;
+            job.foundPhoneName = match.name;
+            // A result other than GSMArena's first is a specific model picked over a sibling
+            job.exactModelSearch = match.rank > 0;
+            System.out.println((match.rank > 0 ? "Found best matching phone: " : "Found phone: ") + job.foundPhoneName);
+            System.out.println("URL: " + GSM_ARENA_BASE_URL + "/" + job.phoneUrl);
+
+            if (resolutionIndex != null) {
+                resolutionIndex.put(job.phoneName, job.phoneUrl, job.foundPhoneName, job.saveName, job.exactModelSearch);
+            }
+            return detailStage;
+        });
+    }
+
+    /**
+     * Fetch the detail page, keeping only its spec sections. When their fingerprint matches the
+     * last run the phone is done: nothing is parsed, probed, downloaded or written.
+     */
+    private CompletableFuture<Stage> fetchDetails(PhoneJob job) {
+        return oxylabs.scrapeReaderAsync(GSM_ARENA_BASE_URL + "/" + job.phoneUrl).thenApplyAsync(reader -> {
+            long start = System.nanoTime();
+            String page = null;
+            String specSections;
+            try (reader) {
+                if (PhoneDataParser.isStreamingSpecs()) {
+                    specSections = StreamingSpecParser.extractSpecSections(reader);
+                } else {
+                    // -Dscraper.parser=dom: the whole page is parsed, the sections are still what gets fingerprinted
+                    page = OxylabsClient.readFully(reader);
+                    specSections = StreamingSpecParser.extractSpecSections(new StringReader(page));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            metrics.recordStage("read_page", start);
+
+            String safeName = safeName(job.saveName);
+            String fingerprint = ChangeDetector.fingerprint(specSections);
+            if (changeDetector != null && changeDetector.isUnchanged(safeName, fingerprint)) {
+                System.out.println("Unchanged since last run, skipping: " + job.foundPhoneName);
+                changeDetector.recordUnchanged(job.phoneName);
+                job.savedFile = savedFile(safeName);
+                complete(job, true);
+                return null;
+            }
+
+            System.out.println("Parsing specifications for: " + job.foundPhoneName);
+            JSONObject phoneDetails = PhoneDataParser.parsePhoneDetails(page != null
+                    ? PhoneDataParser.parseDocument(new StringReader(page))
+                    : Jsoup.parse(specSections));
+            if (job.resolvedFromIndex && !phoneDetails.has("specifications")) {
+                return searchAgain(job, "has no specifications");
+            }
+            job.fingerprint = fingerprint;
+            job.phoneDetails = phoneDetails;
+            return picturesStage;
+        }, parseExecutor).handle((next, error) -> {
+            if (error == null) {
+                return next;
+            }
+            if (job.resolvedFromIndex && isNotFound(error)) {
+                return searchAgain(job, "is gone (HTTP 404)");
+            }
+            throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+        });
+    }
+
+    /**
+     * Drop a resolution whose detail page no longer holds the phone and search for it again.
+     * Timeouts, 5xx and open circuits say nothing about the page, so they keep the entry.
+     */
+    private Stage searchAgain(PhoneJob job, String reason) {
+        System.out.println("⚠️ Detail page " + job.phoneUrl + " from the resolution index " + reason
+                + ", searching again for " + job.phoneName);
+        resolutionIndex.remove(job.phoneName);
+        job.resolvedFromIndex = false;
+        job.phoneUrl = null;
+        job.foundPhoneName = null;
+        job.saveName = job.phoneName;
+        job.exactModelSearch = false;
+        return searchStage;
+    }
+
+    private static boolean isNotFound(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpStatusException) {
+                return ((HttpStatusException) cause).getStatusCode() == 404;
+            }
+        }
+        return false;
+    }
+
+    private CompletableFuture<Stage> fetchPictures(PhoneJob job) {
+        String phoneUrl = job.phoneUrl;
+
+        // Construct pictures URL using the correct GSM Arena format: {base_model}-pictures-{id}.php
+        String modelId = phoneUrl.substring(phoneUrl.lastIndexOf("-") + 1, phoneUrl.lastIndexOf("."));
+        String basePhoneModel = phoneUrl.substring(0, phoneUrl.lastIndexOf("-"));
+        String picturesUrl = GSM_ARENA_BASE_URL + "/" + basePhoneModel + "-pictures-" + modelId + ".php";
+
+        System.out.println("Fetching pictures from: " + picturesUrl);
+        return fetch(picturesUrl, ImageUtils::extractImagesFromPicturesDocument)
+                .exceptionally(e -> {
+                    // Without Oxylabs the phone waits, rather than falling back to guessed image URLs
+                    if (isUpstreamDown(e, picturesStage.breaker)) {
+                        throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+                    }
+                    System.err.println("Error extracting images from pictures page: " + e.getMessage());
+                    return new ArrayList<>();
+                })
+                .thenApply(imageUrls -> {
+                    job.imageUrls = imageUrls;
+                    // If no images found, try pattern-based approach
+                    return imageUrls.isEmpty() ? probeStage : downloadStage;
+                });
+    }
+
+    private Stage probeImages(PhoneJob job) throws IOException {
+        if (cdnBreaker != null) {
+            cdnBreaker.check();
+        }
+        String phoneModelId = job.phoneUrl.substring(0, job.phoneUrl.lastIndexOf("."));
+        String brand = ImageUtils.getBrand(job.foundPhoneName);
+        String originalImageUrl = job.phoneDetails.optString("image", "");
+        List<ImageUtils.ImageCandidate> candidates = ImageUtils.generateImageCandidates(originalImageUrl, phoneModelId, brand);
+
+        // Probed in parallel, keeping candidate order; limit to 3 images
+        List<String> workingImageUrls = ImageProber.shared().probe(candidates, brand, 3);
+        if (workingImageUrls.isEmpty() && cdnBreaker != null && !cdnBreaker.isClosed()) {
+            // Nothing was found because the CDN went down, not because the images do not exist
+            throw new CircuitOpenException(cdnBreaker.getUpstream(), cdnBreaker.retryAfterMs());
+        }
+        job.imageUrls = workingImageUrls;
+        return downloadStage;
+    }
+
+    private Stage downloadAndSave(PhoneJob job) throws Exception {
+        JSONObject phoneDetails = job.phoneDetails;
+        List<String> imageUrls = job.imageUrls;
+        String originalImageUrl = phoneDetails.optString("image", "");
+        if (cdnBreaker != null && (!imageUrls.isEmpty() || (job.exactModelSearch && !originalImageUrl.isEmpty()))) {
+            cdnBreaker.check();
+        }
+
+        boolean allDownloaded = true;
+        if (!imageUrls.isEmpty()) {
+            phoneDetails.put("images", new JSONArray(imageUrls));
+            phoneDetails.put("highResImage", imageUrls.get(0));
+            allDownloaded = ImageUtils.downloadImages(imageUrls, job.saveName, imagesDir) == imageUrls.size();
+        } else if (job.exactModelSearch) {
+            if (!originalImageUrl.isEmpty()) {
+                allDownloaded = ImageUtils.downloadImage(originalImageUrl, job.saveName, imagesDir);
+            }
+        } else {
+            System.out.println("⚠️ Could not find any working image URLs");
+        }
+        if (!allDownloaded && cdnBreaker != null && !cdnBreaker.isClosed()) {
+            // Save the phone once its images can be fetched, not with some of them missing
+            throw new CircuitOpenException(cdnBreaker.getUpstream(), cdnBreaker.retryAfterMs());
+        }
+        // With a fingerprint the phone would count as unchanged next run and its missing images would never be fetched
+        String fingerprint = allDownloaded ? job.fingerprint : null;
+        if (!allDownloaded) {
+            System.out.println("⚠️ Not every image of " + job.foundPhoneName + " was saved; it will be processed again next run");
+        }
+
+        // Save phone details to the store or to their own JSON file
+        String safeName = safeName(job.saveName);
+        JSONObject previous = changeDetector != null ? changeDetector.previous(safeName) : null;
+        long start = System.nanoTime();
+        if (store != null) {
+            store.put(safeName, fingerprint, phoneDetails);
+            System.out.println("✅ Saved: " + safeName + " in " + store.getDir());
+        } else {
+            Path target = Paths.get(phonesDir, safeName + ".json");
+            Path temp = Files.createTempFile(target.getParent(), safeName, ".tmp");
+            Files.writeString(temp, phoneDetails.toString(2), StandardCharsets.UTF_8);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.println("✅ Saved: " + target);
+        }
+        metrics.recordStage("write", start);
+        job.savedFile = savedFile(safeName);
+        if (changeDetector != null) {
+            changeDetector.recordSaved(job.phoneName, safeName, fingerprint, previous, phoneDetails);
+        }
+
+        complete(job, true);
+        return null;
+    }
+}
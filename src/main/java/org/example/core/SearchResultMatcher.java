@@ -0,0 +1,172 @@
+package org.example.core;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Picks the search result that best matches a phone query.
+ *
+ * GSMArena lists several devices for most queries and the first one is often a sibling model
+ * ("Samsung S24" lists the S24 Ultra first). Every result on the page is scored locally instead:
+ * query words found in the result name count for it, query words it lacks count against it, and
+ * extra words count against it too, heavily so for variant suffixes like Ultra, Pro or FE that the
+ * query did not ask for. Brand aliases from {@link ImageUtils#getBrandAliases()} make "Pixel 8"
+ * match "Google Pixel 8" without penalising the brand name.
+ */
+public class SearchResultMatcher {
+    private static final double MATCHED = 2.0;
+    private static final double MISSING = 2.0;
+    private static final double EXTRA = 0.5;
+
+    // Penalty for a variant word in the result that the query did not ask for
+    private static final Map<String, Double> VARIANT_PENALTIES = new HashMap<>();
+    static {
+        VARIANT_PENALTIES.put("ultra", 3.0);
+        VARIANT_PENALTIES.put("pro", 3.0);
+        VARIANT_PENALTIES.put("plus", 3.0);
+        VARIANT_PENALTIES.put("max", 3.0);
+        VARIANT_PENALTIES.put("mini", 3.0);
+        VARIANT_PENALTIES.put("lite", 3.0);
+        VARIANT_PENALTIES.put("fe", 3.0);
+        VARIANT_PENALTIES.put("neo", 2.0);
+        // Many models only exist as 5G/4G, so these are a tie-breaker rather than a veto
+        VARIANT_PENALTIES.put("5g", 1.0);
+        VARIANT_PENALTIES.put("4g", 1.0);
+    }
+
+    // Query spellings GSMArena does not know, rewritten before the search is sent
+    private static final Map<String, String> QUERY_ALIASES = new HashMap<>();
+    static {
+        QUERY_ALIASES.put("cmf by nothing", "nothing cmf");
+    }
+
+    /**
+     * A search result with its score
+     */
+    public static class Match {
+        public final String url;
+        public final String name;
+        public final double score;
+        // Position on the search page, 0 for the result GSMArena ranked first
+        public final int rank;
+
+        Match(String url, String name, double score, int rank) {
+            this.url = url;
+            this.name = name;
+            this.score = score;
+            this.rank = rank;
+        }
+    }
+
+    /**
+     * The query to send for a phone name, e.g. "CMF by Nothing Phone 1" becomes "nothing cmf Phone 1"
+     */
+    public static String searchQuery(String phoneName) {
+        String query = phoneName.trim();
+        String lower = query.toLowerCase();
+        for (Map.Entry<String, String> alias : QUERY_ALIASES.entrySet()) {
+            int index = lower.indexOf(alias.getKey());
+            if (index >= 0) {
+                query = query.substring(0, index) + alias.getValue() + query.substring(index + alias.getKey().length());
+                lower = query.toLowerCase();
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Best result on a search page for the query, or null when the page lists no devices
+     */
+    public static Match bestMatch(String query, Document searchResults) {
+        return bestMatch(query, searchResults.select("div.makers ul li a"));
+    }
+
+    public static Match bestMatch(String query, Elements results) {
+        List<String> queryTokens = tokenize(searchQuery(query));
+        Set<String> queryBrands = brandsOf(queryTokens);
+
+        Match best = null;
+        for (int i = 0; i < results.size(); i++) {
+            Element result = results.get(i);
+            String name = result.select("span").text();
+            double score = score(queryTokens, queryBrands, tokenize(name));
+            // Ties keep GSMArena's own ranking
+            if (best == null || score > best.score) {
+                best = new Match(result.attr("href"), name, score, i);
+            }
+        }
+        return best;
+    }
+
+    static double score(List<String> queryTokens, Set<String> queryBrands, List<String> resultTokens) {
+        Map<String, String> aliases = ImageUtils.getBrandAliases();
+        Set<String> remaining = new HashSet<>(resultTokens);
+        double score = 0;
+
+        for (String token : queryTokens) {
+            if (remaining.remove(token)) {
+                score += MATCHED;
+            } else if (!aliases.containsKey(token)) {
+                // A brand word the result spells differently ("iphone" vs "Apple") is not missing
+                score -= MISSING;
+            }
+        }
+        for (String token : remaining) {
+            String brand = aliases.get(token);
+            if (brand != null && queryBrands.contains(brand)) {
+                continue;
+            }
+            score -= VARIANT_PENALTIES.getOrDefault(token, EXTRA);
+        }
+        return score;
+    }
+
+    /**
+     * Canonical brands named in the query, e.g. "pixel" implies google
+     */
+    private static Set<String> brandsOf(List<String> tokens) {
+        Map<String, String> aliases = ImageUtils.getBrandAliases();
+        Set<String> brands = new HashSet<>();
+        for (String token : tokens) {
+            String brand = aliases.get(token);
+            if (brand != null) {
+                brands.add(brand);
+            }
+        }
+        return brands;
+    }
+
+    /**
+     * Lower-case words and numbers; "+" becomes "plus" so "Pro+" and "Pro Plus" compare equal
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                current.append(c);
+                continue;
+            }
+            if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+            if (c == '+') {
+                tokens.add("plus");
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+}
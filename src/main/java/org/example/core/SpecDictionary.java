@@ -0,0 +1,61 @@
+package org.example.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns dense int ids to strings, so each distinct spec value is held once.
+ *
+ * Values like "Yes", "Nano-SIM" or "Android 14" repeat across thousands of phones; records refer
+ * to them by id and compare ids instead of strings. Not thread-safe: it is filled while a
+ * {@link CompactCatalog} is built and only read afterwards.
+ */
+public class SpecDictionary {
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * Id for the value, adding it when it is new
+     */
+    public int intern(String value) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+
+    /**
+     * Id for the value, or {@link #UNKNOWN} when no record uses it
+     */
+    public int id(String value) {
+        Integer id = ids.get(value);
+        return id != null ? id : UNKNOWN;
+    }
+
+    public String value(int id) {
+        return values.get(id);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Rough heap size: the strings themselves plus the map and list entries pointing at them
+     */
+    long estimatedBytes() {
+        long bytes = 0;
+        for (String value : values) {
+            // String header and byte[] (compact Latin-1 strings), HashMap node, boxed id, list slot
+            bytes += 24 + 16 + value.length() + 32 + 16 + 4;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,259 @@
+package org.example.core;
+
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * Turns the raw strings from {@link PhoneDataParser#parsePhoneDetails(org.jsoup.nodes.Document)}
+ * into a {@link PhoneSpec}.
+ *
+ * Values are read with small hand-written scanners that look for a number followed by a unit,
+ * e.g. "6.72 inches", "Li-Po 5000 mAh" or "128GB 4GB RAM, 256GB 8GB RAM", so normalizing a page
+ * costs a single pass over a handful of short strings and no regular expressions.
+ */
+public class SpecNormalizer {
+    private static final String[] MONTHS = {
+            "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec"
+    };
+
+    private SpecNormalizer() {
+    }
+
+    /**
+     * Normalize parsed phone details; anything that cannot be understood is left unset
+     */
+    public static PhoneSpec normalize(JSONObject phoneDetails) {
+        PhoneSpec spec = new PhoneSpec();
+        JSONObject specs = phoneDetails.optJSONObject("specifications");
+
+        spec.name = phoneDetails.optString("name", null);
+        spec.brand = phoneDetails.optString("brand", null);
+
+        spec.displayInches = number(spec(specs, "Display", "Size"), "inch");
+        if (Float.isNaN(spec.displayInches)) {
+            spec.displayInches = number(phoneDetails.optString("displaysize-hl", null), "\"");
+        }
+
+        float battery = number(spec(specs, "Battery", "Type"), "mah");
+        if (Float.isNaN(battery)) {
+            battery = leadingNumber(phoneDetails.optString("batsize-hl", null));
+        }
+        spec.batteryMah = Float.isNaN(battery) ? 0 : Math.round(battery);
+
+        parseMemory(spec, spec(specs, "Memory", "Internal"));
+
+        String status = spec(specs, "Launch", "Status");
+        int released = status == null ? -1 : indexOfIgnoreCase(status, "released", 0);
+        if (released >= 0) {
+            parseDate(spec, status, released + "released".length());
+        } else if (phoneDetails.has("released-hl") && indexOfIgnoreCase(phoneDetails.optString("released-hl"), "released", 0) >= 0) {
+            String releasedHl = phoneDetails.optString("released-hl");
+            parseDate(spec, releasedHl, indexOfIgnoreCase(releasedHl, "released", 0) + "released".length());
+        } else if (spec(specs, "Launch", "Announced") != null) {
+            // Older pages only list the announcement date
+            parseDate(spec, spec(specs, "Launch", "Announced"), 0);
+        }
+
+        spec.weightGrams = number(spec(specs, "Body", "Weight"), "g");
+
+        String chipset = spec(specs, "Platform", "Chipset");
+        if (chipset == null) {
+            chipset = phoneDetails.optString("chipset", null);
+        }
+        if (chipset != null) {
+            int paren = chipset.indexOf(" (");
+            spec.chipset = paren > 0 ? chipset.substring(0, paren).trim() : chipset.trim();
+            float nm = paren > 0 ? number(chipset.substring(paren), "nm") : Float.NaN;
+            spec.chipsetNm = Float.isNaN(nm) ? 0 : Math.round(nm);
+        }
+
+        return spec;
+    }
+
+    private static String spec(JSONObject specs, String category, String title) {
+        if (specs == null) {
+            return null;
+        }
+        JSONObject categorySpecs = specs.optJSONObject(category);
+        return categorySpecs == null ? null : categorySpecs.optString(title, null);
+    }
+
+    /**
+     * Split "128GB 4GB RAM, 256GB 8GB RAM" into storage/RAM pairs
+     */
+    private static void parseMemory(PhoneSpec spec, String internal) {
+        if (internal == null) {
+            return;
+        }
+        String[] variants = internal.split(",");
+        float[] storage = new float[variants.length];
+        float[] ram = new float[variants.length];
+        int count = 0;
+
+        for (String variant : variants) {
+            float variantStorage = Float.NaN;
+            float variantRam = Float.NaN;
+            int i = 0;
+            int length = variant.length();
+            while (i < length) {
+                if (!isDigit(variant.charAt(i))) {
+                    i++;
+                    continue;
+                }
+                int start = i;
+                while (i < length && (isDigit(variant.charAt(i)) || variant.charAt(i) == '.')) {
+                    i++;
+                }
+                float value = parseFloat(variant, start, i);
+                int unit = skipSpaces(variant, i);
+                float gb;
+                if (startsWithIgnoreCase(variant, unit, "tb")) {
+                    gb = value * 1024;
+                } else if (startsWithIgnoreCase(variant, unit, "gb")) {
+                    gb = value;
+                } else if (startsWithIgnoreCase(variant, unit, "mb")) {
+                    gb = value / 1024;
+                } else {
+                    continue;
+                }
+                i = unit + 2;
+                if (startsWithIgnoreCase(variant, skipSpaces(variant, i), "ram")) {
+                    variantRam = gb;
+                } else if (Float.isNaN(variantStorage)) {
+                    variantStorage = gb;
+                }
+            }
+            if (!Float.isNaN(variantStorage) || !Float.isNaN(variantRam)) {
+                storage[count] = variantStorage;
+                ram[count] = variantRam;
+                count++;
+            }
+        }
+
+        spec.storageGb = Arrays.copyOf(storage, count);
+        spec.ramGb = Arrays.copyOf(ram, count);
+    }
+
+    /**
+     * Read "2024, January 24" / "2024, March" / "2024" starting at the given offset
+     */
+    private static void parseDate(PhoneSpec spec, String text, int from) {
+        int i = from;
+        int length = text.length();
+        while (i < length && !isDigit(text.charAt(i))) {
+            i++;
+        }
+        int start = i;
+        while (i < length && isDigit(text.charAt(i))) {
+            i++;
+        }
+        if (i - start != 4) {
+            return;
+        }
+        spec.releaseYear = Integer.parseInt(text, start, i, 10);
+
+        while (i < length && (text.charAt(i) == ',' || text.charAt(i) == ' ')) {
+            i++;
+        }
+        for (int month = 0; month < MONTHS.length; month++) {
+            if (startsWithIgnoreCase(text, i, MONTHS[month])) {
+                spec.releaseMonth = month + 1;
+                break;
+            }
+        }
+        if (spec.releaseMonth == 0) {
+            return;
+        }
+
+        while (i < length && Character.isLetter(text.charAt(i))) {
+            i++;
+        }
+        i = skipSpaces(text, i);
+        start = i;
+        while (i < length && isDigit(text.charAt(i))) {
+            i++;
+        }
+        if (i > start && i - start <= 2) {
+            spec.releaseDay = Integer.parseInt(text, start, i, 10);
+        }
+    }
+
+    /**
+     * First number in the text that is directly followed (spaces allowed) by the unit, or NaN
+     */
+    static float number(String text, String unit) {
+        if (text == null) {
+            return Float.NaN;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            if (!isDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && (isDigit(text.charAt(i)) || text.charAt(i) == '.')) {
+                i++;
+            }
+            int end = i;
+            int unitStart = skipSpaces(text, end);
+            if (startsWithIgnoreCase(text, unitStart, unit)) {
+                int after = unitStart + unit.length();
+                // "g" must not match the start of e.g. "gb" or "glass"
+                if (after >= length || !Character.isLetter(text.charAt(after)) || unit.length() > 1) {
+                    return parseFloat(text, start, end);
+                }
+            }
+        }
+        return Float.NaN;
+    }
+
+    private static float leadingNumber(String text) {
+        if (text == null) {
+            return Float.NaN;
+        }
+        int end = 0;
+        while (end < text.length() && (isDigit(text.charAt(end)) || text.charAt(end) == '.')) {
+            end++;
+        }
+        return end == 0 ? Float.NaN : parseFloat(text, 0, end);
+    }
+
+    private static float parseFloat(String text, int start, int end) {
+        // Trailing dots come from sentences like "... 5000 mAh."
+        while (end > start && text.charAt(end - 1) == '.') {
+            end--;
+        }
+        try {
+            return Float.parseFloat(text.substring(start, end));
+        } catch (NumberFormatException e) {
+            return Float.NaN;
+        }
+    }
+
+    private static int skipSpaces(String text, int i) {
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean startsWithIgnoreCase(String text, int offset, String prefix) {
+        return text.regionMatches(true, offset, prefix, 0, prefix.length());
+    }
+
+    private static int indexOfIgnoreCase(String text, String needle, int from) {
+        for (int i = from; i <= text.length() - needle.length(); i++) {
+            if (text.regionMatches(true, i, needle, 0, needle.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,291 @@
+package org.example.core;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Single-pass scanner that pulls only the spec-relevant sections out of a GSMArena detail page.
+ *
+ * The page is tokenized tag by tag while it streams in. Everything is discarded except the
+ * elements {@link PhoneDataParser#parsePhoneDetails(org.jsoup.nodes.Document)} actually reads:
+ * {@code h1.specs-phone-name-title}, {@code .specs-photo-main}, {@code #specs-list} and
+ * {@code .specs-spotlight-features}. Those are returned as a small HTML document in page order,
+ * so running the regular parser over it gives the same output as parsing the whole page.
+ */
+public class StreamingSpecParser {
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+
+    // Section currently being captured, if any
+    private final StringBuilder captured = new StringBuilder(16 * 1024);
+    private final StringBuilder tag = new StringBuilder(256);
+    private String captureTag;
+    private int captureDepth;
+
+    private StreamingSpecParser(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Scan a page and return a minimal HTML document with just the spec sections
+     */
+    public static String extractSpecSections(Reader html) throws IOException {
+        return new StreamingSpecParser(html).scan();
+    }
+
+    private String scan() throws IOException {
+        captured.append("<html><body>");
+        int c;
+        while ((c = next()) != -1) {
+            if (c != '<') {
+                if (captureTag != null) {
+                    captured.append((char) c);
+                }
+                continue;
+            }
+
+            int first = peek();
+            if (first == '!') {
+                skipMarkup();
+            } else if (first == '/') {
+                next();
+                readTag();
+                endTag(tagName(tag));
+            } else if (Character.isLetter(first)) {
+                readTag();
+                startTag();
+            } else if (captureTag != null) {
+                captured.append('<');
+            }
+        }
+        return captured.append("</body></html>").toString();
+    }
+
+    private void startTag() throws IOException {
+        String name = tagName(tag);
+        boolean selfClosing = tag.length() > 0 && tag.charAt(tag.length() - 1) == '/';
+
+        if (captureTag != null) {
+            captured.append('<').append(tag).append('>');
+            if (name.equals(captureTag) && !selfClosing) {
+                captureDepth++;
+            }
+        } else if (!selfClosing && isTarget(name)) {
+            captureTag = name;
+            captureDepth = 1;
+            captured.append('<').append(tag).append('>');
+        }
+
+        // Script and style bodies may contain anything that looks like markup
+        if (name.equals("script") || name.equals("style")) {
+            skipRawText(name);
+        }
+    }
+
+    private void endTag(String name) {
+        if (captureTag == null) {
+            return;
+        }
+        captured.append("</").append(tag).append('>');
+        if (name.equals(captureTag) && --captureDepth == 0) {
+            captureTag = null;
+        }
+    }
+
+    private boolean isTarget(String name) {
+        // Cheap pre-check, almost every tag on the page is of no interest
+        if (tag.indexOf("specs") < 0) {
+            return false;
+        }
+        if (name.equals("h1") && hasClass("specs-phone-name-title")) {
+            return true;
+        }
+        return hasClass("specs-photo-main") || hasClass("specs-spotlight-features") || "specs-list".equals(attribute("id"));
+    }
+
+    private boolean hasClass(String className) {
+        String classes = attribute("class");
+        if (classes == null) {
+            return false;
+        }
+        int from = 0;
+        while ((from = classes.indexOf(className, from)) != -1) {
+            int end = from + className.length();
+            boolean startOk = from == 0 || Character.isWhitespace(classes.charAt(from - 1));
+            boolean endOk = end == classes.length() || Character.isWhitespace(classes.charAt(end));
+            if (startOk && endOk) {
+                return true;
+            }
+            from = end;
+        }
+        return false;
+    }
+
+    /**
+     * Value of an attribute in the current start tag, handling quoted and unquoted values
+     */
+    private String attribute(String attributeName) {
+        int length = tag.length();
+        int i = 0;
+        // Skip the tag name
+        while (i < length && !Character.isWhitespace(tag.charAt(i))) {
+            i++;
+        }
+        while (i < length) {
+            while (i < length && (Character.isWhitespace(tag.charAt(i)) || tag.charAt(i) == '/')) {
+                i++;
+            }
+            int nameStart = i;
+            while (i < length && tag.charAt(i) != '=' && !Character.isWhitespace(tag.charAt(i))) {
+                i++;
+            }
+            String name = tag.substring(nameStart, i);
+            while (i < length && Character.isWhitespace(tag.charAt(i))) {
+                i++;
+            }
+            if (i >= length || tag.charAt(i) != '=') {
+                if (name.equalsIgnoreCase(attributeName)) {
+                    return "";
+                }
+                continue;
+            }
+            i++;
+            while (i < length && Character.isWhitespace(tag.charAt(i))) {
+                i++;
+            }
+
+            int valueStart;
+            int valueEnd;
+            if (i < length && (tag.charAt(i) == '"' || tag.charAt(i) == '\'')) {
+                char quote = tag.charAt(i);
+                valueStart = ++i;
+                while (i < length && tag.charAt(i) != quote) {
+                    i++;
+                }
+                valueEnd = i++;
+            } else {
+                valueStart = i;
+                while (i < length && !Character.isWhitespace(tag.charAt(i))) {
+                    i++;
+                }
+                valueEnd = i;
+            }
+            if (name.equalsIgnoreCase(attributeName)) {
+                return tag.substring(valueStart, Math.min(valueEnd, length));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read the rest of a tag up to the closing '>' into {@link #tag}, honouring quoted attribute values
+     */
+    private void readTag() throws IOException {
+        tag.setLength(0);
+        char quote = 0;
+        int c;
+        while ((c = next()) != -1) {
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = (char) c;
+            } else if (c == '>') {
+                return;
+            }
+            tag.append((char) c);
+        }
+    }
+
+    /**
+     * Skip comments, doctype and CDATA; comments inside a captured section are dropped
+     */
+    private void skipMarkup() throws IOException {
+        next(); // '!'
+        if (peek() == '-') {
+            int dashes = 0;
+            int c;
+            while ((c = next()) != -1) {
+                if (c == '>' && dashes >= 2) {
+                    return;
+                }
+                dashes = c == '-' ? dashes + 1 : 0;
+            }
+        } else {
+            int c;
+            while ((c = next()) != -1 && c != '>') {
+                // Doctype or CDATA marker
+            }
+        }
+    }
+
+    /**
+     * Skip the body of a script or style element up to its end tag
+     */
+    private void skipRawText(String name) throws IOException {
+        String endTag = "</" + name;
+        int matched = 0;
+        int c;
+        while ((c = next()) != -1) {
+            if (captureTag != null) {
+                captured.append((char) c);
+            }
+            if (Character.toLowerCase(c) == endTag.charAt(matched)) {
+                if (++matched == endTag.length()) {
+                    // Consume the rest of the end tag
+                    while ((c = next()) != -1 && c != '>') {
+                        if (captureTag != null) {
+                            captured.append((char) c);
+                        }
+                    }
+                    if (captureTag != null) {
+                        captured.append('>');
+                    }
+                    return;
+                }
+            } else {
+                matched = Character.toLowerCase(c) == '<' ? 1 : 0;
+            }
+        }
+    }
+
+    private static String tagName(CharSequence tag) {
+        int end = 0;
+        while (end < tag.length() && !Character.isWhitespace(tag.charAt(end)) && tag.charAt(end) != '/') {
+            end++;
+        }
+        return tag.subSequence(0, end).toString().toLowerCase();
+    }
+
+    private int next() throws IOException {
+        if (pos >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++];
+    }
+
+    private int peek() throws IOException {
+        if (pos >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos];
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = in.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read < 0) {
+            return false;
+        }
+        pos = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -0,0 +1,144 @@
+package org.example.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    @Test
+    void staysClosedUntilEnoughCallsWereSeen() throws IOException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 10, 4, 0.5, 100, 300, 2);
+        for (int i = 0; i < 3; i++) {
+            breaker.check();
+            breaker.onFailure("timeout");
+        }
+        assertTrue(breaker.isClosed(), "three failures are below minCalls");
+
+        breaker.check();
+        breaker.onFailure("timeout");
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.isOpen());
+    }
+
+    @Test
+    void opensAtTheFailureRateOfTheWindow() throws IOException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 4, 4, 0.5, 100, 300, 2);
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onFailure("HTTP 503");
+        assertTrue(breaker.isClosed(), "one failure in four");
+
+        // The oldest success slides out of the window: two failures in four
+        breaker.onFailure("HTTP 503");
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        CircuitOpenException error = assertThrows(CircuitOpenException.class, breaker::check);
+        assertEquals("test", error.getUpstream());
+        assertTrue(error.getRetryAfterMs() > 0 && error.getRetryAfterMs() <= 100, "retry after " + error.getRetryAfterMs());
+        assertTrue(breaker.retryAfterMs() <= 100);
+    }
+
+    @Test
+    void trialSuccessesCloseTheBreaker() throws Exception {
+        CircuitBreaker breaker = opened(50, 300, 2);
+        Thread.sleep(70);
+
+        assertFalse(breaker.isOpen());
+        breaker.check();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.check();
+        assertThrows(CircuitOpenException.class, breaker::check, "both trials are taken");
+        assertTrue(breaker.retryAfterMs() <= 1000);
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess();
+        assertTrue(breaker.isClosed());
+        breaker.check();
+
+        // The window starts empty again, so one failure does not reopen it
+        breaker.onFailure("timeout");
+        assertTrue(breaker.isClosed());
+    }
+
+    @Test
+    void failedTrialReopensForTwiceAsLongUpToTheMaximum() throws Exception {
+        CircuitBreaker breaker = opened(100, 300, 1);
+        Thread.sleep(120);
+        breaker.check();
+        breaker.onFailure("trial timed out");
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        long retryAfter = assertThrows(CircuitOpenException.class, breaker::check).getRetryAfterMs();
+        assertTrue(retryAfter > 100 && retryAfter <= 200, "reopened for 200 ms, retry after " + retryAfter);
+
+        Thread.sleep(220);
+        breaker.check();
+        breaker.onFailure("trial timed out");
+        retryAfter = breaker.retryAfterMs();
+        assertTrue(retryAfter > 200 && retryAfter <= 300, "capped at 300 ms, retry after " + retryAfter);
+
+        Thread.sleep(320);
+        breaker.check();
+        breaker.onSuccess();
+        assertTrue(breaker.isClosed());
+    }
+
+    @Test
+    void failuresWhileOpenAreIgnored() throws Exception {
+        CircuitBreaker breaker = opened(100, 300, 1);
+        long before = breaker.retryAfterMs();
+        breaker.onFailure("straggler");
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.retryAfterMs() <= before);
+    }
+
+    @Test
+    void classifiesUpstreamFailures() {
+        assertTrue(CircuitBreaker.isUpstreamFailure(new SocketTimeoutException("read timed out")));
+        assertTrue(CircuitBreaker.isUpstreamFailure(new ConnectException("Connection refused")));
+        assertTrue(CircuitBreaker.isUpstreamFailure(new UnknownHostException("realtime.oxylabs.io")));
+        assertTrue(CircuitBreaker.isUpstreamFailure(new HttpStatusException(503, "Service Unavailable")));
+        assertTrue(CircuitBreaker.isUpstreamFailure(new CompletionException(new SocketTimeoutException("timeout"))));
+
+        assertFalse(CircuitBreaker.isUpstreamFailure(new HttpStatusException(404, "Not Found")));
+        assertFalse(CircuitBreaker.isUpstreamFailure(new HttpStatusException(429, "Too Many Requests")));
+        assertFalse(CircuitBreaker.isUpstreamFailure(new IOException("No space left on device")));
+        assertFalse(CircuitBreaker.isUpstreamFailure(new UncheckedIOException(new IOException("disk"))));
+        assertFalse(CircuitBreaker.isUpstreamFailure(new IllegalStateException("bad JSON")));
+    }
+
+    @Test
+    void findsTheOpenCircuitInACauseChain() {
+        CircuitOpenException open = new CircuitOpenException("images", 2000);
+        assertSame(open, CircuitOpenException.find(new CompletionException(open)));
+        assertNull(CircuitOpenException.find(new IOException("other")));
+        assertEquals("Circuit for images is open, retry in 2 s", open.getMessage());
+    }
+
+    /**
+     * A breaker that has just opened after its minimum number of failed calls
+     */
+    private static CircuitBreaker opened(long openMs, long maxOpenMs, int trialCalls) {
+        CircuitBreaker breaker = new CircuitBreaker("test", 4, 2, 0.5, openMs, maxOpenMs, trialCalls);
+        breaker.onFailure("timeout");
+        breaker.onFailure("timeout");
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+}
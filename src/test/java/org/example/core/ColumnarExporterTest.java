@@ -0,0 +1,182 @@
+package org.example.core;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnarExporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsEveryColumnType() throws IOException {
+        Path phones = Files.createDirectory(dir.resolve("phones"));
+        writePhone(phones, "Pixel_8", normalized("Pixel 8", "Google", 4575, 6.2f, "2023-10-04"));
+        writePhone(phones, "iPhone_15", normalized("iPhone 15", "Apple", 0, 6.1f, "2023-09"));
+        writePhone(phones, "Galaxy_S24", normalized("Galaxy S24", "Samsung", 4000, Float.NaN, ""));
+        Files.writeString(phones.resolve("summary.json"), "{}", StandardCharsets.UTF_8);
+        Path target = dir.resolve("catalog.col");
+
+        new ColumnarExporter(target).export(phones);
+
+        try (ColumnarReader reader = ColumnarReader.open(target)) {
+            assertEquals(3, reader.rowCount());
+            ColumnarReader.StringColumn keys = reader.strings("key");
+            assertEquals("Galaxy_S24", keys.get(0));
+            assertEquals("Pixel_8", keys.get(1));
+            assertEquals("iPhone_15", keys.get(2));
+
+            ColumnarReader.StringColumn brands = reader.strings("brand");
+            assertEquals(3, brands.dictionarySize());
+            assertEquals("Google", brands.get(1));
+            assertEquals(brands.code(1), brands.find("Google"));
+            assertEquals(-1, brands.find("Nokia"));
+
+            IntBuffer battery = reader.ints("batteryMah");
+            assertEquals(4000, battery.get(0));
+            assertEquals(ColumnarExporter.MISSING_INT, battery.get(2));
+            ColumnarReader.ColumnInfo batteryInfo = reader.info("batteryMah");
+            assertEquals(1, batteryInfo.nulls);
+            assertEquals(4000, ((Number) batteryInfo.min).intValue());
+            assertEquals(4575, ((Number) batteryInfo.max).intValue());
+
+            FloatBuffer display = reader.floats("displayInches");
+            assertTrue(Float.isNaN(display.get(0)));
+            assertEquals(6.2f, display.get(1));
+            assertEquals(10, reader.ints("releaseMonth").get(1));
+            assertEquals(ColumnarExporter.MISSING_INT, reader.ints("releaseDay").get(2));
+
+            assertThrows(IllegalArgumentException.class, () -> reader.ints("brand"));
+            assertThrows(IllegalArgumentException.class, () -> reader.info("price"));
+        }
+    }
+
+    @Test
+    void unchangedFilesAreReusedAndChangedOnesParsedAgain() throws IOException {
+        Path phones = Files.createDirectory(dir.resolve("phones"));
+        Path pixel = writePhone(phones, "Pixel_8", normalized("Pixel 8", "Google", 4575, 6.2f, "2023-10-04"));
+        Path iphone = writePhone(phones, "iPhone_15", normalized("iPhone 15", "Apple", 3349, 6.1f, "2023-09"));
+        writePhone(phones, "Galaxy_S24", normalized("Galaxy S24", "Samsung", 4000, 6.2f, "2024-01-24"));
+        Path target = dir.resolve("catalog.col");
+        new ColumnarExporter(target).export(phones);
+
+        // Same size and modification time: the exporter must not even open the file
+        FileTime pixelTime = Files.getLastModifiedTime(pixel);
+        writePhone(phones, "Pixel_8", normalized("Pixel 8", "Google", 9999, 6.2f, "2023-10-04"));
+        Files.setLastModifiedTime(pixel, pixelTime);
+        // A real change
+        writePhone(phones, "iPhone_15", normalized("iPhone 15", "Apple", 3349, 6.1f, "2023-09-22"));
+        Files.setLastModifiedTime(iphone, FileTime.fromMillis(Files.getLastModifiedTime(iphone).toMillis() + 5000));
+        Files.delete(phones.resolve("Galaxy_S24.json"));
+        writePhone(phones, "OnePlus_12", normalized("OnePlus 12", "OnePlus", 5400, 6.82f, "2024-01-23"));
+
+        new ColumnarExporter(target).export(phones);
+
+        try (ColumnarReader reader = ColumnarReader.open(target)) {
+            assertEquals(List.of("OnePlus_12", "Pixel_8", "iPhone_15"), keys(reader));
+            assertEquals(4575, reader.ints("batteryMah").get(1), "reused row keeps the exported value");
+            assertEquals("Google", reader.strings("brand").get(1));
+            assertEquals(6.2f, reader.floats("displayInches").get(1));
+            assertEquals(22, reader.ints("releaseDay").get(2), "changed phone is parsed again");
+            assertEquals(5400, reader.ints("batteryMah").get(0));
+        }
+    }
+
+    @Test
+    void storeFingerprintsDecideWhatIsReused() throws IOException {
+        Path phones = Files.createDirectory(dir.resolve("phones"));
+        try (PhoneStore store = new PhoneStore(phones.resolve("store"), 1 << 20, 0.5)) {
+            store.put("Pixel_8", "fp1", details(normalized("Pixel 8", "Google", 4575, 6.2f, "2023-10-04")));
+            store.put("iPhone_15", null, details(normalized("iPhone 15", "Apple", 3349, 6.1f, "2023-09")));
+        }
+        Path target = dir.resolve("catalog.col");
+        new ColumnarExporter(target).export(phones);
+
+        try (PhoneStore store = new PhoneStore(phones.resolve("store"), 1 << 20, 0.5)) {
+            store.put("Pixel_8", "fp1", details(normalized("Pixel 8", "Google", 9999, 6.2f, "2023-10-04")));
+            store.put("iPhone_15", null, details(normalized("iPhone 15", "Apple", 3300, 6.1f, "2023-09")));
+        }
+        new ColumnarExporter(target).export(phones);
+
+        try (ColumnarReader reader = ColumnarReader.open(target)) {
+            assertEquals(List.of("Pixel_8", "iPhone_15"), keys(reader));
+            assertEquals(4575, reader.ints("batteryMah").get(0), "same fingerprint, row reused");
+            assertEquals(3300, reader.ints("batteryMah").get(1), "no fingerprint, always parsed");
+        }
+
+        try (PhoneStore store = new PhoneStore(phones.resolve("store"), 1 << 20, 0.5)) {
+            store.put("Pixel_8", "fp2", details(normalized("Pixel 8", "Google", 4600, 6.2f, "2023-10-04")));
+        }
+        new ColumnarExporter(target).export(phones);
+
+        try (ColumnarReader reader = ColumnarReader.open(target)) {
+            assertEquals(4600, reader.ints("batteryMah").get(0));
+        }
+    }
+
+    @Test
+    void unreadablePreviousExportIsReplaced() throws IOException {
+        Path phones = Files.createDirectory(dir.resolve("phones"));
+        writePhone(phones, "Pixel_8", normalized("Pixel 8", "Google", 4575, 6.2f, "2023-10-04"));
+        Path target = dir.resolve("catalog.col");
+        Files.writeString(target, "not a catalog", StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> ColumnarReader.open(target));
+
+        new ColumnarExporter(target).export(phones);
+
+        try (ColumnarReader reader = ColumnarReader.open(target)) {
+            assertEquals(List.of("Pixel_8"), keys(reader));
+            assertNull(reader.strings("chipset").get(0));
+        }
+    }
+
+    private static JSONObject normalized(String name, String brand, int batteryMah, float displayInches, String releaseDate) {
+        JSONObject normalized = new JSONObject()
+                .put("name", name)
+                .put("brand", brand)
+                .put("releaseDate", releaseDate)
+                .put("memoryVariants", new JSONArray().put(new JSONObject().put("storageGb", 128).put("ramGb", 8)));
+        if (batteryMah > 0) {
+            normalized.put("batteryMah", batteryMah);
+        }
+        if (!Float.isNaN(displayInches)) {
+            normalized.put("displayInches", displayInches);
+        }
+        return normalized;
+    }
+
+    private static JSONObject details(JSONObject normalized) {
+        return new JSONObject().put("name", normalized.getString("name")).put("normalized", normalized);
+    }
+
+    private static Path writePhone(Path phones, String key, JSONObject normalized) throws IOException {
+        Path file = phones.resolve(key + ".json");
+        Files.writeString(file, details(normalized).toString(2), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<String> keys(ColumnarReader reader) throws IOException {
+        ColumnarReader.StringColumn keys = reader.strings("key");
+        String[] values = new String[reader.rowCount()];
+        for (int row = 0; row < values.length; row++) {
+            values[row] = keys.get(row);
+        }
+        return List.of(values);
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.core;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactCatalogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void toJsonGivesBackWhatWasAdded() {
+        JSONObject pixel = phone("Pixel 8", "Google", "Li-Ion 4575 mAh, non-removable")
+                .put("images", new JSONArray().put("https://x/pixel-0.jpg").put("https://x/pixel-1.jpg"))
+                .put("highResImage", "https://x/pixel-0.jpg")
+                .put("rank", 3)
+                .put("rating", 4.5)
+                .put("discontinued", false)
+                .put("previous", JSONObject.NULL)
+                .put("tags", new JSONArray().put("5G").put(7).put(true));
+        normalize(pixel);
+
+        CompactCatalog catalog = new CompactCatalog();
+        int index = catalog.add("Pixel_8", pixel);
+
+        JSONObject back = catalog.toJson(index);
+        assertTrue(back.similar(pixel), back.toString(2));
+        assertEquals(3, back.get("rank"));
+        assertEquals(Boolean.FALSE, back.get("discontinued"));
+        assertEquals("Li-Ion 4575 mAh, non-removable", catalog.get(index, "Battery", "Type"));
+        assertEquals("Google", catalog.get(index, null, "brand"));
+        assertNull(catalog.get(index, "Battery", "Charging"));
+    }
+
+    @Test
+    void arrayFieldsAreTrackedPerPhone() {
+        JSONObject pixel = phone("Pixel 8", "Google", "Li-Ion 4575 mAh")
+                .put("images", new JSONArray().put("https://x/pixel-0.jpg"));
+        JSONObject iphone = phone("iPhone 15", "Apple", "Li-Ion 3349 mAh")
+                .put("images", "https://x/iphone.jpg");
+        JSONObject galaxy = phone("Galaxy S24", "Samsung", "Li-Ion 4000 mAh")
+                .put("images", new JSONArray());
+        normalize(pixel);
+        normalize(iphone);
+        normalize(galaxy);
+
+        CompactCatalog catalog = new CompactCatalog();
+        catalog.add("Pixel_8", pixel);
+        catalog.add("iPhone_15", iphone);
+        catalog.add("Galaxy_S24", galaxy);
+
+        assertTrue(catalog.toJson(0).similar(pixel), catalog.toJson(0).toString(2));
+        assertTrue(catalog.toJson(1).similar(iphone), "a plain string stays a string: " + catalog.toJson(1));
+        assertTrue(catalog.toJson(2).similar(galaxy), "an empty array survives: " + catalog.toJson(2));
+    }
+
+    @Test
+    void filterEqualsMatchesAnyElementOfAnArray() {
+        CompactCatalog catalog = new CompactCatalog();
+        catalog.add("Pixel_8", phone("Pixel 8", "Google", "Li-Ion 4575 mAh")
+                .put("images", new JSONArray().put("https://x/a.jpg").put("https://x/shared.jpg")));
+        catalog.add("iPhone_15", phone("iPhone 15", "Apple", "Li-Ion 3349 mAh")
+                .put("images", new JSONArray().put("https://x/shared.jpg")));
+        catalog.add("Galaxy_S24", phone("Galaxy S24", "Samsung", "Li-Ion 4575 mAh"));
+
+        assertArrayEquals(new int[]{0, 1}, catalog.filterEquals(null, "images", "https://x/shared.jpg"));
+        assertArrayEquals(new int[]{0}, catalog.filterEquals(null, "images", "https://x/a.jpg"));
+        assertArrayEquals(new int[]{0, 2}, catalog.filterEquals("Battery", "Type", "Li-Ion 4575 mAh"));
+        assertArrayEquals(new int[0], catalog.filterEquals(null, "images", "https://x/none.jpg"));
+        assertArrayEquals(new int[0], catalog.filterEquals("Battery", "Charging", "25W"));
+        assertEquals("https://x/a.jpg", catalog.get(0, null, "images"), "the first element for arrays");
+    }
+
+    @Test
+    void addingAKeyAgainReplacesThePhone() {
+        CompactCatalog catalog = new CompactCatalog();
+        catalog.add("Pixel_8", phone("Pixel 8", "Google", "Li-Ion 4575 mAh")
+                .put("images", new JSONArray().put("https://x/old.jpg")));
+        catalog.add("iPhone_15", phone("iPhone 15", "Apple", "Li-Ion 3349 mAh"));
+
+        JSONObject updated = phone("Pixel 8", "Google", "Li-Ion 4600 mAh").put("images", "https://x/new.jpg");
+        normalize(updated);
+        assertEquals(0, catalog.add("Pixel_8", updated));
+
+        assertEquals(2, catalog.size());
+        assertEquals(0, catalog.indexOf("Pixel_8"));
+        assertEquals("Pixel_8", catalog.key(0));
+        assertArrayEquals(new int[0], catalog.filterEquals("Battery", "Type", "Li-Ion 4575 mAh"));
+        assertArrayEquals(new int[]{0}, catalog.filterEquals("Battery", "Type", "Li-Ion 4600 mAh"));
+        assertArrayEquals(new int[0], catalog.filterEquals(null, "images", "https://x/old.jpg"));
+        assertTrue(catalog.toJson(0).similar(updated), catalog.toJson(0).toString(2));
+        assertEquals(-1, catalog.indexOf("Galaxy_S24"));
+    }
+
+    @Test
+    void loadsADirectoryAndAStore() throws IOException {
+        Path phones = Files.createDirectory(dir.resolve("phones"));
+        JSONObject pixel = phone("Pixel 8", "Google", "Li-Ion 4575 mAh");
+        normalize(pixel);
+        Files.writeString(phones.resolve("Pixel_8.json"), pixel.toString(2), StandardCharsets.UTF_8);
+        Files.writeString(phones.resolve("summary.json"), "{\"total\":1}", StandardCharsets.UTF_8);
+        Files.writeString(phones.resolve("broken.json"), "{\"name\":", StandardCharsets.UTF_8);
+
+        CompactCatalog fromFiles = CompactCatalog.fromDirectory(phones);
+        assertEquals(1, fromFiles.size());
+        assertTrue(fromFiles.toJson(0).similar(pixel));
+
+        try (PhoneStore store = new PhoneStore(dir.resolve("store"), 1 << 20, 0.5)) {
+            store.put("Pixel_8", null, pixel);
+            CompactCatalog fromStore = CompactCatalog.fromStore(store);
+            assertEquals("Pixel_8", fromStore.key(0));
+            assertTrue(fromStore.toJson(0).similar(pixel));
+        }
+    }
+
+    @Test
+    void dictionaryHoldsEachValueOnce() {
+        SpecDictionary dictionary = new SpecDictionary();
+        assertEquals(0, dictionary.intern("Yes"));
+        assertEquals(1, dictionary.intern("No"));
+        assertEquals(0, dictionary.intern("Yes"));
+        assertEquals(2, dictionary.size());
+        assertEquals("No", dictionary.value(1));
+        assertEquals(SpecDictionary.UNKNOWN, dictionary.id("Maybe"));
+    }
+
+    private static JSONObject phone(String name, String brand, String battery) {
+        JSONObject specs = new JSONObject()
+                .put("Battery", new JSONObject().put("Type", battery))
+                .put("Display", new JSONObject().put("Size", "6.2 inches, 94.7 cm2"))
+                .put("Launch", new JSONObject().put("Status", "Available. Released 2023, October 12"));
+        return new JSONObject().put("name", name).put("brand", brand).put("specifications", specs);
+    }
+
+    /**
+     * Add the derived object the scrapers write, which the catalog rebuilds instead of storing
+     */
+    private static void normalize(JSONObject details) {
+        details.put("normalized", SpecNormalizer.normalize(details).toJson());
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FixtureArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void urlsDifferingOnlyInPunctuationGetTheirOwnFiles() throws IOException {
+        String dash = "https://www.gsmarena.com/samsung_galaxy_a55-12824.php";
+        String underscore = "https://www.gsmarena.com/samsung_galaxy_a55_12824.php";
+        assertNotEquals(FixtureArchive.fileName(dash), FixtureArchive.fileName(underscore));
+        assertNotEquals(FixtureArchive.fileName("https://x/a/b"), FixtureArchive.fileName("https://x/a.b"));
+
+        FixtureArchive archive = FixtureArchive.create(dir);
+        archive.putPage(dash, "dash");
+        archive.putPage(underscore, "underscore");
+
+        FixtureArchive replay = FixtureArchive.open(dir);
+        assertEquals("dash", replay.getPage(dash));
+        assertEquals("underscore", replay.getPage(underscore));
+    }
+
+    @Test
+    void longUrlsWithASharedPrefixAndHashGetTheirOwnFiles() throws IOException {
+        String prefix = "https://www.gsmarena.com/results.php3?sQuickSearch=yes&sName=" + "x".repeat(300);
+        // "Aa" and "BB" have the same String.hashCode, so these two URLs do as well
+        String first = prefix + "Aa";
+        String second = prefix + "BB";
+        assertEquals(first.hashCode(), second.hashCode());
+
+        String firstName = FixtureArchive.fileName(first);
+        assertNotEquals(firstName, FixtureArchive.fileName(second));
+        assertTrue(firstName.length() < 200, "names stay short: " + firstName.length());
+        assertEquals(firstName, FixtureArchive.fileName(first), "names are stable");
+
+        FixtureArchive archive = FixtureArchive.create(dir);
+        archive.putPage(first, "first");
+        archive.putPage(second, "second");
+
+        FixtureArchive replay = FixtureArchive.open(dir);
+        assertEquals("first", replay.getPage(first));
+        assertEquals("second", replay.getPage(second));
+        assertNull(replay.getPage(prefix + "Ab"));
+    }
+
+    @Test
+    void legacyNamedFixturesAreStillFound() throws IOException {
+        String url = "https://www.gsmarena.com/google_pixel_8-12546.php";
+        String legacy = "https___www_gsmarena_com_google_pixel_8_12546_php";
+
+        // An older archive, with pages/ and images/
+        Path pages = Files.createDirectories(dir.resolve("archive/pages"));
+        Files.writeString(pages.resolve(legacy + ".html"), "old archive", StandardCharsets.UTF_8);
+        Path images = Files.createDirectories(dir.resolve("archive/images"));
+        String imageUrl = "https://fdn2.gsmarena.com/vv/pics/google/google-pixel-8-1.jpg";
+        Files.write(images.resolve("https___fdn2_gsmarena_com_vv_pics_google_google_pixel_8_1_jpg"), new byte[]{1, 2, 3});
+        Files.writeString(images.resolve("index.tsv"), "200\t3\t" + imageUrl + "\n", StandardCharsets.UTF_8);
+
+        FixtureArchive archive = FixtureArchive.open(dir.resolve("archive"));
+        assertEquals("old archive", archive.getPage(url));
+        FixtureArchive.ImageEntry image = archive.getImage(imageUrl);
+        assertEquals(200, image.status);
+        assertEquals(3, image.length);
+        assertTrue(image.body != null && Files.exists(image.body));
+
+        // A plain directory of pages saved by hand
+        Path saved = Files.createDirectories(dir.resolve("saved"));
+        Files.writeString(saved.resolve(legacy + ".html"), "saved by hand", StandardCharsets.UTF_8);
+        assertEquals("saved by hand", FixtureArchive.open(saved).getPage(url));
+
+        // A hashed name wins over a legacy one for the same URL
+        Files.writeString(pages.resolve(FixtureArchive.fileName(url) + ".html"), "new", StandardCharsets.UTF_8);
+        assertEquals("new", archive.getPage(url));
+    }
+
+    @Test
+    void imagesKeepTheirBodyOverLaterProbes() throws IOException {
+        String url = "https://fdn2.gsmarena.com/vv/pics/acme/acme-phone-1-0.jpg";
+        String missing = "https://fdn2.gsmarena.com/vv/pics/acme/acme-phone-1-9.jpg";
+        Path download = Files.write(dir.resolve("download.jpg"), new byte[]{9, 8, 7, 6});
+
+        FixtureArchive archive = FixtureArchive.create(dir.resolve("archive"));
+        archive.recordImage(url, 200, 4, download);
+        archive.recordImage(url, 200, 4, null);
+        archive.recordImage(missing, 404, 0, null);
+        assertTrue(archive.getImage(url).body != null, "a HEAD probe does not replace a body");
+
+        FixtureArchive replay = FixtureArchive.open(dir.resolve("archive"));
+        assertEquals(4, replay.getImage(url).length);
+        assertEquals(4, Files.size(replay.getImage(url).body));
+        assertEquals(404, replay.getImage(missing).status);
+        assertNull(replay.getImage(missing).body);
+        assertNull(replay.getImage("https://fdn2.gsmarena.com/never-seen.jpg"));
+    }
+
+    @Test
+    void pagesAreRecordedOnlyWhenReadToTheEnd() throws IOException {
+        FixtureArchive archive = FixtureArchive.create(dir);
+        String html = "<html>" + "spec ".repeat(5000) + "</html>";
+
+        try (Reader reader = archive.recordPage("https://x/full", new StringReader(html))) {
+            assertEquals(html, OxylabsClient.readFully(reader));
+        }
+        try (Reader reader = archive.recordPage("https://x/partial", new StringReader(html))) {
+            reader.read(new char[100]);
+        }
+
+        assertEquals(html, archive.getPage("https://x/full"));
+        assertNull(archive.getPage("https://x/partial"), "a page cut off mid-read is not recorded");
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgePolicyTest {
+
+    @Test
+    void noHedgeBeforeEnoughLatenciesAreKnown() {
+        HedgePolicy policy = new HedgePolicy(0.95, 0.05, 100, 20);
+        for (int i = 0; i < 19; i++) {
+            policy.recordLatency(ResponseCache.PageType.SPEC, 500);
+        }
+        assertEquals(-1, policy.hedgeDelayMs(ResponseCache.PageType.SPEC));
+
+        policy.recordLatency(ResponseCache.PageType.SPEC, 500);
+        assertEquals(500, policy.hedgeDelayMs(ResponseCache.PageType.SPEC));
+        assertEquals(-1, policy.hedgeDelayMs(ResponseCache.PageType.SEARCH), "page types are tracked apart");
+    }
+
+    @Test
+    void delayIsTheQuantileButNeverBelowTheMinimum() {
+        HedgePolicy policy = new HedgePolicy(0.95, 0.05, 100, 20);
+        // 10, 20, ..., 1000 ms in shuffled order
+        for (int i = 0; i < 100; i++) {
+            policy.recordLatency(ResponseCache.PageType.SPEC, ((i * 37) % 100 + 1) * 10L);
+        }
+        assertEquals(950, policy.hedgeDelayMs(ResponseCache.PageType.SPEC));
+
+        HedgePolicy fast = new HedgePolicy(0.95, 0.05, 1000, 20);
+        for (int i = 0; i < 100; i++) {
+            fast.recordLatency(ResponseCache.PageType.SEARCH, 200);
+        }
+        assertEquals(1000, fast.hedgeDelayMs(ResponseCache.PageType.SEARCH));
+    }
+
+    @Test
+    void onlyRecentLatenciesCount() {
+        HedgePolicy policy = new HedgePolicy(0.5, 0.05, 0, 20);
+        for (int i = 0; i < 256; i++) {
+            policy.recordLatency(ResponseCache.PageType.PICTURES, 5000);
+        }
+        for (int i = 0; i < 256; i++) {
+            policy.recordLatency(ResponseCache.PageType.PICTURES, 300);
+        }
+        assertEquals(300, policy.hedgeDelayMs(ResponseCache.PageType.PICTURES));
+    }
+
+    @Test
+    void hedgesStayWithinTheBudget() {
+        HedgePolicy policy = new HedgePolicy(0.95, 0.1, 100, 20);
+        assertFalse(policy.tryHedge(), "nothing to spend before any request");
+
+        requests(policy, 50);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(policy.tryHedge());
+        }
+        assertFalse(policy.tryHedge());
+
+        requests(policy, 9);
+        assertFalse(policy.tryHedge());
+        requests(policy, 1);
+        assertTrue(policy.tryHedge());
+        assertFalse(policy.tryHedge());
+        assertEquals("hedged 6 of 60 requests (budget 10%)", policy.getStatus());
+    }
+
+    private static void requests(HedgePolicy policy, int count) {
+        for (int i = 0; i < count; i++) {
+            policy.onRequest();
+        }
+    }
+}
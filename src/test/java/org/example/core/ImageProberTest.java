@@ -0,0 +1,120 @@
+package org.example.core;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageProberTest {
+
+    @TempDir
+    Path dir;
+
+    private HttpServer cdn;
+    private OkHttpClient client;
+
+    /**
+     * Serves /{delay ms}/{status}/{name}.jpg, answering HEAD requests with the status after the delay
+     */
+    @BeforeEach
+    void startCdn() throws IOException {
+        cdn = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        cdn.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "test-cdn");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        cdn.createContext("/", exchange -> {
+            String[] parts = exchange.getRequestURI().getPath().split("/");
+            try {
+                Thread.sleep(Long.parseLong(parts[1]));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(Integer.parseInt(parts[2]), -1);
+            exchange.close();
+        });
+        cdn.start();
+        client = new OkHttpClient.Builder().readTimeout(30, TimeUnit.SECONDS).build();
+    }
+
+    @AfterEach
+    void stopCdn() {
+        cdn.stop(0);
+        client.dispatcher().executorService().shutdownNow();
+    }
+
+    @Test
+    void waitsForEarlierCandidatesBeforeTakingALaterHit() {
+        ImageProber prober = prober(5000);
+
+        // The second candidate answers first, but the slower first one has priority
+        List<String> found = prober.probe(candidates("400/200/slow", "0/200/fast", "0/404/missing"), "acme", 1);
+        assertEquals(List.of(url("400/200/slow")), found);
+
+        found = prober.probe(candidates("300/404/slow", "0/200/fast", "0/200/second"), "acme", 2);
+        assertEquals(List.of(url("0/200/fast"), url("0/200/second")), found);
+
+        found = prober.probe(candidates("0/404/a", "0/500/b"), "acme", 3);
+        assertTrue(found.isEmpty());
+    }
+
+    @Test
+    void anEarlierCandidateThatHangsIsTimedOutOnItsOwn() {
+        ImageProber prober = prober(1000);
+
+        long start = System.nanoTime();
+        List<String> found = prober.probe(candidates("20000/200/hangs", "0/200/fast"), "acme", 1);
+        long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(List.of(url("0/200/fast")), found);
+        assertTrue(tookMs >= 900 && tookMs < 1800, "the hanging probe is cut off after its own timeout, took " + tookMs + " ms");
+    }
+
+    @Test
+    void patternsThatNeverWorkAreSkippedAfterEnoughMisses() throws IOException {
+        Path patterns = dir.resolve("patterns.tsv");
+        ImageProber prober = new ImageProber(client, patterns, 2, 5000);
+        for (int i = 0; i < 2; i++) {
+            prober.probe(List.of(new ImageUtils.ImageCandidate("guess", url("0/404/guess")),
+                    new ImageUtils.ImageCandidate("original", url("0/404/original"))), "acme", 1);
+        }
+        assertTrue(Files.readString(patterns).contains("acme\tguess\t0\t2"));
+
+        // A fresh prober reads the misses back and no longer asks for the pattern
+        ImageProber reloaded = new ImageProber(client, patterns, 2, 5000);
+        List<String> found = reloaded.probe(List.of(new ImageUtils.ImageCandidate("guess", url("0/200/guess")),
+                new ImageUtils.ImageCandidate("original", url("0/200/original"))), "acme", 1);
+        assertEquals(List.of(url("0/200/original")), found, "the page's own image is always tried");
+    }
+
+    private ImageProber prober(long timeoutMs) {
+        return new ImageProber(client, dir.resolve("patterns.tsv"), 3, timeoutMs);
+    }
+
+    private List<ImageUtils.ImageCandidate> candidates(String... paths) {
+        List<ImageUtils.ImageCandidate> candidates = new ArrayList<>();
+        for (int i = 0; i < paths.length; i++) {
+            candidates.add(new ImageUtils.ImageCandidate("pattern" + i, url(paths[i])));
+        }
+        return candidates;
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + cdn.getAddress().getPort() + "/" + path + ".jpg";
+    }
+}
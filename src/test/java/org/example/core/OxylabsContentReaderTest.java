@@ -0,0 +1,102 @@
+package org.example.core;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OxylabsContentReaderTest {
+
+    @Test
+    void decodesEscapesLikeAJsonParser() throws IOException {
+        String html = "<div class=\"spec\">Size: 6.1\"\\n caf\u00e9 \u2013 \ud83d\udcf1 C:\\\\path</div>\n\t\r/\b\f";
+        String response = new JSONObject().put("results", new JSONArray().put(new JSONObject().put("content", html))).toString();
+
+        assertEquals(html, read(response));
+    }
+
+    @Test
+    void decodesUnicodeEscapesAndSurrogatePairs() throws IOException {
+        String response = "{\"results\":[{\"content\":\"caf\\u00e9 \\u00E9 \\ud83d\\udcf1 \\\"quoted\\\" back\\\\slash \\/\"}]}";
+
+        String content = read(response);
+        assertEquals("caf\u00e9 \u00e9 \ud83d\udcf1 \"quoted\" back\\slash /", content);
+        assertEquals(0x1F4F1, content.codePointAt(content.indexOf('\ud83d')));
+    }
+
+    @Test
+    void findsContentAfterOtherKeysAndNestedValues() throws IOException {
+        String response = "{\"job\": {\"id\": \"42\", \"url\": \"https://x/?a=[1]\", \"note\": \"brace } and \\\" quote\"},"
+                + " \"count\": 1, \"ok\": true, \"missing\": null,\n"
+                + " \"results\": [ {\"status_code\": 200, \"headers\": {\"a\": [\"b\", {\"c\": \"}\"}]},"
+                + " \"url\": \"https://www.gsmarena.com/\", \"content\": \"<html>page</html>\", \"body\": \"ignored\"},"
+                + " {\"content\": \"second result\"} ]}";
+
+        assertEquals("<html>page</html>", read(response));
+    }
+
+    @Test
+    void fallsBackToTheBodyWithoutContent() throws IOException {
+        String response = "{\"results\":[{\"status_code\":200,\"body\":\"<p>from \\\"body\\\"</p>\",\"parse_status_code\":12000}]}";
+
+        assertEquals("<p>from \"body\"</p>", read(response));
+    }
+
+    @Test
+    void contentAfterBodyWins() throws IOException {
+        String response = "{\"results\":[{\"body\":\"raw\",\"content\":\"parsed\"}]}";
+
+        assertEquals("parsed", read(response));
+    }
+
+    @Test
+    void responsesWithoutAPageFail() {
+        IOException noResults = assertThrows(IOException.class, () -> read("{\"job\":{\"id\":\"1\"},\"status\":\"done\"}"));
+        assertTrue(noResults.getMessage().contains("[job, status]"), noResults.getMessage());
+        assertThrows(IOException.class, () -> read("{\"results\":[]}"));
+        assertThrows(IOException.class, () -> read("{\"results\":[{\"status_code\":200}]}"));
+        assertThrows(IOException.class, () -> read("[\"not an object\"]"));
+    }
+
+    @Test
+    void truncatedResponsesFail() {
+        assertThrows(IOException.class, () -> read("{\"results\":[{\"content\":\"<html>cut off"));
+        assertThrows(IOException.class, () -> read("{\"results\":[{\"content\":\"caf\\u00"));
+        assertThrows(IOException.class, () -> read("{\"results\":[{\"content\":\"ends in \\"));
+        assertThrows(IOException.class, () -> read("{\"results\":[{\"status_code\":200,\"body\":\"cut"));
+        assertThrows(IOException.class, () -> read("{\"job\":{\"id\":\"1\""));
+        assertThrows(IOException.class, () -> read(""));
+    }
+
+    @Test
+    void largeContentSurvivesSmallReads() throws IOException {
+        StringBuilder html = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            html.append("<td class=\"nfo\">").append(i).append(" \u00b5m</td>\n");
+        }
+        String response = new JSONObject().put("results", new JSONArray().put(new JSONObject().put("content", html))).toString();
+
+        StringBuilder content = new StringBuilder();
+        try (Reader reader = OxylabsContentReader.open(new StringReader(response))) {
+            char[] buffer = new char[7];
+            int read;
+            while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+                content.append(buffer, 0, read);
+            }
+        }
+        assertEquals(html.toString(), content.toString());
+    }
+
+    private static String read(String response) throws IOException {
+        try (Reader reader = OxylabsContentReader.open(new StringReader(response))) {
+            return OxylabsClient.readFully(reader);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package org.example.core;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PhoneIndexTest {
+
+    // Phone numbers in the catalog built by index()
+    private static final int ALPHA = 0;
+    private static final int BRAVO = 1;
+    private static final int CHARLIE = 2;
+    private static final int DELTA = 3;
+    private static final int ECHO = 4;
+
+    @Test
+    void wordsIntersectAcrossAndWithinFields() {
+        PhoneIndex index = index();
+
+        assertArrayEquals(new int[]{ALPHA, CHARLIE}, index.search(words("dimensity")).phones);
+        assertArrayEquals(new int[]{ALPHA}, index.search(words("Dimensity 9000")).phones, "every word must match");
+        assertArrayEquals(new int[]{ALPHA}, index.search(words("dimensity", "5000")).phones);
+        assertArrayEquals(new int[0], index.search(words("dimensity", "exynos")).phones);
+        assertArrayEquals(new int[0], index.search(words("kirin")).phones);
+
+        PhoneIndex.Query inChipset = new PhoneIndex.Query();
+        inChipset.fieldWords.add(new String[]{"Platform/Chipset", "mediatek"});
+        assertArrayEquals(new int[]{ALPHA, CHARLIE}, index.search(inChipset).phones);
+        inChipset.fieldEquals.add(new String[]{"Comms/NFC", "No"});
+        assertEquals(0, index.search(inChipset).total);
+
+        PhoneIndex.Query nfc = new PhoneIndex.Query();
+        nfc.fieldEquals.add(new String[]{"Comms/NFC", "Yes"});
+        assertArrayEquals(new int[]{ALPHA, CHARLIE, DELTA}, index.search(nfc).phones);
+        nfc.fieldEquals.set(0, new String[]{"Comms/NFC", "yes"});
+        assertEquals(0, index.search(nfc).total, "exact values are case-sensitive");
+
+        PhoneIndex.Query byName = new PhoneIndex.Query();
+        byName.fieldWords.add(new String[]{"name", "bravo"});
+        assertArrayEquals(new int[]{BRAVO}, index.search(byName).phones, "top-level fields work without a category");
+
+        PhoneIndex.Query unknownField = new PhoneIndex.Query();
+        unknownField.fieldWords.add(new String[]{"Platform/GPU", "mali"});
+        assertEquals(0, index.search(unknownField).total);
+    }
+
+    @Test
+    void filtersWithoutWordsMatchNothing() {
+        PhoneIndex index = index();
+
+        assertEquals(0, index.search(words("+++")).total);
+        assertEquals(0, index.search(words("dimensity", "-")).total);
+
+        PhoneIndex.Query punctuation = new PhoneIndex.Query();
+        punctuation.fieldWords.add(new String[]{"Platform/Chipset", "()"});
+        assertEquals(0, index.search(punctuation).total);
+    }
+
+    @Test
+    void rangesIncludeBothBoundsAndSkipMissingValues() {
+        PhoneIndex index = index();
+
+        assertArrayEquals(new int[]{ALPHA, BRAVO, DELTA}, range(index, PhoneIndex.Numeric.BATTERY, 4500, 5000));
+        assertArrayEquals(new int[]{ALPHA, DELTA}, range(index, PhoneIndex.Numeric.BATTERY, 5000, 5000));
+        assertArrayEquals(new int[]{ALPHA, DELTA}, range(index, PhoneIndex.Numeric.BATTERY, 4500.5f, Float.POSITIVE_INFINITY));
+        assertArrayEquals(new int[]{BRAVO}, range(index, PhoneIndex.Numeric.BATTERY, Float.NEGATIVE_INFINITY, 4999));
+        assertArrayEquals(new int[0], range(index, PhoneIndex.Numeric.BATTERY, 5001, 6000));
+        assertArrayEquals(new int[0], range(index, PhoneIndex.Numeric.BATTERY, 5000, 4500));
+        assertArrayEquals(new int[]{ALPHA, BRAVO, DELTA},
+                range(index, PhoneIndex.Numeric.BATTERY, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY),
+                "phones without a battery value are never in a range");
+        assertArrayEquals(new int[]{BRAVO, CHARLIE}, range(index, PhoneIndex.Numeric.DISPLAY, 6.1f, 6.5f));
+        assertArrayEquals(new int[]{ALPHA, CHARLIE}, range(index, PhoneIndex.Numeric.RAM, 8, 12), "8/12 reads as 8");
+    }
+
+    @Test
+    void rangesCombineWithWordsAndEachOther() {
+        PhoneIndex index = index();
+
+        PhoneIndex.Query query = words("mediatek").range(PhoneIndex.Numeric.DISPLAY, 6.5f, 7);
+        assertArrayEquals(new int[]{ALPHA, CHARLIE}, index.search(query).phones);
+        query.range(PhoneIndex.Numeric.BATTERY, 5000, Float.POSITIVE_INFINITY);
+        assertArrayEquals(new int[]{ALPHA}, index.search(query).phones);
+
+        PhoneIndex.Query twoRanges = new PhoneIndex.Query()
+                .range(PhoneIndex.Numeric.BATTERY, 4000, 5000)
+                .range(PhoneIndex.Numeric.RAM, 6, 8);
+        assertArrayEquals(new int[]{ALPHA, BRAVO}, index.search(twoRanges).phones);
+    }
+
+    @Test
+    void sortsPutMissingValuesLastInBothOrders() {
+        PhoneIndex index = index();
+
+        PhoneIndex.Query byBattery = new PhoneIndex.Query();
+        byBattery.sortBy = PhoneIndex.Numeric.BATTERY;
+        assertArrayEquals(new int[]{BRAVO, ALPHA, DELTA, CHARLIE, ECHO}, index.search(byBattery).phones);
+        byBattery.descending = true;
+        assertArrayEquals(new int[]{ALPHA, DELTA, BRAVO, CHARLIE, ECHO}, index.search(byBattery).phones,
+                "ties keep phone order");
+
+        byBattery.limit = 2;
+        PhoneIndex.Result top = index.search(byBattery);
+        assertArrayEquals(new int[]{ALPHA, DELTA}, top.phones);
+        assertEquals(5, top.total, "the total counts matches before the limit");
+
+        PhoneIndex.Query byDisplay = new PhoneIndex.Query();
+        byDisplay.sortBy = PhoneIndex.Numeric.DISPLAY;
+        byDisplay.descending = true;
+        assertArrayEquals(new int[]{ALPHA, CHARLIE, BRAVO, ECHO, DELTA}, index.search(byDisplay).phones);
+
+        PhoneIndex.Query byName = new PhoneIndex.Query();
+        byName.sortByName = true;
+        assertArrayEquals(new int[]{ALPHA, BRAVO, CHARLIE, DELTA, ECHO}, index.search(byName).phones,
+                "names compare without case");
+        byName.descending = true;
+        byName.limit = 3;
+        assertArrayEquals(new int[]{ECHO, DELTA, CHARLIE}, index.search(byName).phones);
+    }
+
+    @Test
+    void topNMatchesAFullSort() {
+        Random random = new Random(17);
+        CompactCatalog catalog = new CompactCatalog();
+        for (int i = 0; i < 2000; i++) {
+            JSONObject phone = new JSONObject().put("name", "Phone " + i);
+            // Some missing and many ties, so a wrong heap order would show
+            if (random.nextInt(10) > 0) {
+                phone.put("displaysize-hl", String.valueOf(random.nextInt(40) / 10.0));
+            }
+            catalog.add("Phone_" + i, phone);
+        }
+        PhoneIndex index = new PhoneIndex(catalog);
+
+        for (boolean descending : new boolean[]{false, true}) {
+            PhoneIndex.Query all = new PhoneIndex.Query();
+            all.sortBy = PhoneIndex.Numeric.DISPLAY;
+            all.descending = descending;
+            all.limit = 0;
+            int[] sorted = index.search(all).phones;
+            assertEquals(2000, sorted.length);
+            for (int i = 1; i < sorted.length; i++) {
+                float previous = index.numeric(sorted[i - 1], PhoneIndex.Numeric.DISPLAY);
+                float current = index.numeric(sorted[i], PhoneIndex.Numeric.DISPLAY);
+                assertTrue(Float.isNaN(current) || (descending ? previous >= current : previous <= current),
+                        previous + " before " + current);
+            }
+
+            for (int limit : new int[]{1, 10, 100, 250, 2000}) {
+                all.limit = limit;
+                assertArrayEquals(Arrays.copyOf(sorted, limit), index.search(all).phones, "limit " + limit);
+            }
+        }
+    }
+
+    @Test
+    void leadingNumberReadsSpotlightValues() {
+        assertEquals(5000f, PhoneIndex.leadingNumber("5000"));
+        assertEquals(6.7f, PhoneIndex.leadingNumber("6.7\""));
+        assertEquals(8f, PhoneIndex.leadingNumber("8/12"));
+        assertEquals(12f, PhoneIndex.leadingNumber("RAM 12 GB"));
+        assertTrue(Float.isNaN(PhoneIndex.leadingNumber("-")));
+        assertTrue(Float.isNaN(PhoneIndex.leadingNumber(null)));
+        assertEquals(Arrays.asList("li", "po", "5000", "mah"), PhoneIndex.words("Li-Po 5000 mAh"));
+    }
+
+    /**
+     * Five phones; Charlie has no battery value, Delta no display, Echo an unreadable battery
+     */
+    private static PhoneIndex index() {
+        CompactCatalog catalog = new CompactCatalog();
+        catalog.add("Alpha", phone("Alpha", "5000", "6.7\"", "8/12", "Mediatek Dimensity 9000 (4 nm)", "Yes"));
+        catalog.add("Bravo", phone("Bravo", "4500", "6.1\"", "6", "Qualcomm Snapdragon 8 Gen 2 (4 nm)", "No"));
+        catalog.add("Charlie", phone("Charlie", null, "6.5\"", "12", "Mediatek Dimensity 700 (7 nm)", "Yes"));
+        catalog.add("Delta", phone("Delta", "5000", null, "4", "Exynos 2200 (4 nm)", "Yes"));
+        catalog.add("Echo", phone("echo", "-", "5.8\"", "4", "Unisoc T606 (12 nm)", "No"));
+        return new PhoneIndex(catalog);
+    }
+
+    private static JSONObject phone(String name, String battery, String display, String ram, String chipset, String nfc) {
+        JSONObject specs = new JSONObject()
+                .put("Platform", new JSONObject().put("Chipset", chipset))
+                .put("Comms", new JSONObject().put("NFC", nfc));
+        return new JSONObject()
+                .put("name", name)
+                .putOpt("batsize-hl", battery)
+                .putOpt("displaysize-hl", display)
+                .put("ramsize-hl", ram)
+                .put("specifications", specs);
+    }
+
+    private static PhoneIndex.Query words(String... words) {
+        PhoneIndex.Query query = new PhoneIndex.Query();
+        query.words.addAll(Arrays.asList(words));
+        return query;
+    }
+
+    private static int[] range(PhoneIndex index, PhoneIndex.Numeric numeric, float min, float max) {
+        return index.search(new PhoneIndex.Query().range(numeric, min, max)).phones;
+    }
+}
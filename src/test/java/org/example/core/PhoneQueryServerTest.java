@@ -0,0 +1,111 @@
+package org.example.core;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PhoneQueryServerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parsesEveryParameter() {
+        PhoneIndex.Query query = PhoneQueryServer.parseQuery("q=5000+dimensity&q=5G&where=Platform/Chipset:dimensity"
+                + "&eq=Comms/NFC:Yes&eq=Launch/Status:Available.%20Released%202024&battery=5000..&display=..6.7"
+                + "&ram=8&sort=battery&order=DESC&limit=5&full=true");
+
+        assertEquals(2, query.words.size());
+        assertEquals("5000 dimensity", query.words.get(0));
+        assertArrayEquals(new String[]{"Platform/Chipset", "dimensity"}, query.fieldWords.get(0));
+        assertArrayEquals(new String[]{"Comms/NFC", "Yes"}, query.fieldEquals.get(0));
+        assertArrayEquals(new String[]{"Launch/Status", "Available. Released 2024"}, query.fieldEquals.get(1));
+        assertArrayEquals(new float[]{5000, Float.POSITIVE_INFINITY}, query.ranges.get(PhoneIndex.Numeric.BATTERY));
+        assertArrayEquals(new float[]{Float.NEGATIVE_INFINITY, 6.7f}, query.ranges.get(PhoneIndex.Numeric.DISPLAY));
+        assertArrayEquals(new float[]{8, 8}, query.ranges.get(PhoneIndex.Numeric.RAM), "a single number is exact");
+        assertEquals(PhoneIndex.Numeric.BATTERY, query.sortBy);
+        assertTrue(query.descending);
+        assertEquals(5, query.limit);
+
+        PhoneIndex.Query byName = PhoneQueryServer.parseQuery("sort=name&ram=8..12");
+        assertTrue(byName.sortByName);
+        assertNull(byName.sortBy);
+        assertFalse(byName.descending);
+        assertEquals(20, byName.limit);
+        assertArrayEquals(new float[]{8, 12}, byName.ranges.get(PhoneIndex.Numeric.RAM));
+
+        PhoneIndex.Query empty = PhoneQueryServer.parseQuery(null);
+        assertTrue(empty.words.isEmpty() && empty.ranges.isEmpty());
+    }
+
+    @Test
+    void rejectsMalformedParameters() {
+        assertThrows(IllegalArgumentException.class, () -> PhoneQueryServer.parseQuery("q=%2B%2B%2B"));
+        assertThrows(IllegalArgumentException.class, () -> PhoneQueryServer.parseQuery("q="));
+        assertThrows(IllegalArgumentException.class, () -> PhoneQueryServer.parseQuery("where=Platform/Chipset:--"));
+        assertThrows(IllegalArgumentException.class, () -> PhoneQueryServer.parseQuery("where=dimensity"));
+        assertThrows(IllegalArgumentException.class, () -> PhoneQueryServer.parseQuery("eq=:Yes"));
+        assertThrows(IllegalArgumentException.class, () -> PhoneQueryServer.parseQuery("battery=lots"));
+        assertThrows(IllegalArgumentException.class, () -> PhoneQueryServer.parseQuery("sort=weight"));
+        assertThrows(IllegalArgumentException.class, () -> PhoneQueryServer.parseQuery("limit=ten"));
+    }
+
+    @Test
+    void answersQueriesOverHttp() throws Exception {
+        Path phones = Files.createDirectory(dir.resolve("phones"));
+        write(phones, "Alpha", "5000", "Mediatek Dimensity 9000");
+        write(phones, "Bravo", "4500", "Qualcomm Snapdragon 8 Gen 2");
+        write(phones, "Charlie", "6000", "Mediatek Dimensity 700");
+
+        PhoneQueryServer server = new PhoneQueryServer(0, phones);
+        server.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            String base = "http://127.0.0.1:" + server.getPort();
+
+            HttpResponse<String> found = get(client, base + "/phones?q=dimensity&sort=battery&order=desc&limit=1");
+            assertEquals(200, found.statusCode());
+            JSONObject body = new JSONObject(found.body());
+            assertEquals(2, body.getInt("total"));
+            assertEquals("Charlie", body.getJSONArray("phones").getJSONObject(0).getString("key"));
+            assertEquals(6000, body.getJSONArray("phones").getJSONObject(0).getInt("battery"));
+
+            HttpResponse<String> punctuation = get(client, base + "/phones?q=%2B%2B%2B");
+            assertEquals(400, punctuation.statusCode(), "a query without words must not match everything");
+
+            assertEquals(200, get(client, base + "/phones/Bravo").statusCode());
+            assertEquals(404, get(client, base + "/phones/Delta").statusCode());
+            assertEquals(3, new JSONObject(get(client, base + "/stats").body()).getInt("phones"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static HttpResponse<String> get(HttpClient client, String url) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void write(Path phones, String name, String battery, String chipset) throws IOException {
+        JSONObject phone = new JSONObject()
+                .put("name", name)
+                .put("batsize-hl", battery)
+                .put("specifications", new JSONObject().put("Platform", new JSONObject().put("Chipset", chipset)));
+        Files.writeString(phones.resolve(name + ".json"), phone.toString(2), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,182 @@
+package org.example.core;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PhoneStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void latestRecordPerKeySurvivesReopen() throws IOException {
+        try (PhoneStore store = open()) {
+            store.put("Pixel_8", "fp1", phone("Pixel 8", "6.2\""));
+            store.put("iPhone_15", null, phone("iPhone 15", "6.1\""));
+            store.put("Pixel_8", "fp2", phone("Pixel 8", "6.3\""));
+            assertEquals("6.3\"", store.get("Pixel_8").getString("display"));
+        }
+
+        try (PhoneStore store = open()) {
+            assertEquals(2, store.size());
+            assertEquals(List.of("Pixel_8", "iPhone_15"), store.keys());
+            assertEquals("6.3\"", store.get("Pixel_8").getString("display"));
+            assertEquals("fp2", store.fingerprint("Pixel_8"));
+            assertNull(store.fingerprint("iPhone_15"));
+            assertNull(store.get("Galaxy_S24"));
+        }
+    }
+
+    @Test
+    void recordsAppendedAfterTheLastCheckpointAreRecovered() throws IOException {
+        PhoneStore store = open();
+        store.put("Pixel_8", "fp1", phone("Pixel 8", "6.2\""));
+        store.checkpoint();
+        store.put("iPhone_15", "fp2", phone("iPhone 15", "6.1\""));
+        // Crash: no checkpoint, so the index snapshot does not know the second record
+
+        try (PhoneStore reopened = open()) {
+            assertEquals(2, reopened.size());
+            assertEquals("6.1\"", reopened.get("iPhone_15").getString("display"));
+        }
+        store.close();
+    }
+
+    @Test
+    void recordTornByACrashIsDroppedAndLaterAppendsWork() throws IOException {
+        try (PhoneStore store = open()) {
+            store.put("Pixel_8", "fp1", phone("Pixel 8", "6.2\""));
+        }
+        Files.writeString(segment(1), "{\"key\":\"iPhone_15\",\"data\":{\"na", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        try (PhoneStore store = open()) {
+            assertFalse(store.contains("iPhone_15"));
+            store.put("Galaxy_S24", "fp3", phone("Galaxy S24", "6.2\""));
+        }
+
+        try (PhoneStore store = open()) {
+            assertEquals(List.of("Galaxy_S24", "Pixel_8"), store.keys());
+            assertEquals("Galaxy S24", store.get("Galaxy_S24").getString("name"));
+        }
+        for (String line : Files.readAllLines(segment(1), StandardCharsets.UTF_8)) {
+            new JSONObject(line);
+        }
+    }
+
+    @Test
+    void compactionInterruptedBeforeTheIndexWasWrittenKeepsTheOldSegments() throws IOException {
+        Path backup = Files.createDirectory(dir.resolve("backup"));
+        Path storeDir = dir.resolve("store");
+        try (PhoneStore store = new PhoneStore(storeDir, 1 << 20, 1.0)) {
+            store.put("Pixel_8", "fp1", phone("Pixel 8", "6.2\""));
+            store.put("Pixel_8", "fp2", phone("Pixel 8", "6.3\""));
+            store.put("iPhone_15", "fp3", phone("iPhone 15", "6.1\""));
+            store.checkpoint();
+            copy(storeDir, backup, "segment-000001.jsonl", "index.tsv");
+            store.compact();
+        }
+        // Crash after the live records reached segment 2 but before the index named it
+        copy(backup, storeDir, "segment-000001.jsonl", "index.tsv");
+
+        try (PhoneStore store = new PhoneStore(storeDir, 1 << 20, 1.0)) {
+            assertEquals(2, store.size());
+            assertEquals("6.3\"", store.get("Pixel_8").getString("display"));
+            assertEquals("fp3", store.fingerprint("iPhone_15"));
+            store.compact();
+        }
+        assertFalse(Files.exists(storeDir.resolve("segment-000001.jsonl")));
+        assertFalse(Files.exists(storeDir.resolve("segment-000002.jsonl")));
+
+        try (PhoneStore store = new PhoneStore(storeDir, 1 << 20, 1.0)) {
+            assertEquals(List.of("Pixel_8", "iPhone_15"), store.keys());
+            assertEquals("6.3\"", store.get("Pixel_8").getString("display"));
+        }
+    }
+
+    @Test
+    void compactionInterruptedBeforeDeletingOldSegmentsCleansUpOnOpen() throws IOException {
+        Path backup = Files.createDirectory(dir.resolve("backup"));
+        Path storeDir = dir.resolve("store");
+        try (PhoneStore store = new PhoneStore(storeDir, 1 << 20, 1.0)) {
+            store.put("Pixel_8", "fp1", phone("Pixel 8", "6.2\""));
+            store.put("Pixel_8", "fp2", phone("Pixel 8", "6.3\""));
+            store.checkpoint();
+            copy(storeDir, backup, "segment-000001.jsonl");
+            store.compact();
+        }
+        // Crash after the index was written but before the old segment was deleted
+        copy(backup, storeDir, "segment-000001.jsonl");
+
+        try (PhoneStore store = new PhoneStore(storeDir, 1 << 20, 1.0)) {
+            assertEquals(1, store.size());
+            assertEquals("6.3\"", store.get("Pixel_8").getString("display"));
+        }
+        assertFalse(Files.exists(storeDir.resolve("segment-000001.jsonl")));
+    }
+
+    @Test
+    void checkpointCompactsOnceGarbageReachesTheRatio() throws IOException {
+        try (PhoneStore store = open()) {
+            for (int i = 0; i < 4; i++) {
+                store.put("Pixel_8", "fp" + i, phone("Pixel 8", i + "\""));
+            }
+            store.checkpoint();
+        }
+        assertFalse(Files.exists(segment(1)));
+        assertTrue(Files.exists(segment(2)));
+        assertEquals(1, Files.readAllLines(segment(2), StandardCharsets.UTF_8).size());
+
+        try (PhoneStore store = open()) {
+            assertEquals("3\"", store.get("Pixel_8").getString("display"));
+        }
+    }
+
+    @Test
+    void readOnlyStoreIgnoresATornRecordAndRefusesWrites() throws IOException {
+        try (PhoneStore store = open()) {
+            store.put("Pixel_8", "fp1", phone("Pixel 8", "6.2\""));
+        }
+        Files.writeString(segment(1), "{\"key\":\"iPhone_15\"", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        long size = Files.size(segment(1));
+
+        try (PhoneStore store = PhoneStore.openReadOnly(dir)) {
+            assertEquals(List.of("Pixel_8"), store.keys());
+            assertThrows(IllegalStateException.class, () -> store.put("iPhone_15", null, phone("iPhone 15", "6.1\"")));
+        }
+        assertEquals(size, Files.size(segment(1)), "a reader must not truncate the writer's segment");
+    }
+
+    private PhoneStore open() throws IOException {
+        return new PhoneStore(dir, 1 << 20, 0.5);
+    }
+
+    private Path segment(int id) {
+        return dir.resolve(String.format("segment-%06d.jsonl", id));
+    }
+
+    private static JSONObject phone(String name, String display) {
+        return new JSONObject().put("name", name).put("display", display);
+    }
+
+    private static void copy(Path from, Path to, String... names) throws IOException {
+        for (String name : names) {
+            Files.copy(from.resolve(name), to.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProgressJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void latestEventPerPhoneSurvivesRestart() throws IOException {
+        Path file = dir.resolve("progress.jsonl");
+        try (ProgressJournal journal = new ProgressJournal(file)) {
+            journal.stage("Pixel 8", "search");
+            journal.stage("Pixel 8", "detail");
+            journal.completed("Pixel 8", "Pixel_8.json");
+            journal.stage("iPhone 15", "pictures");
+            journal.failed("OnePlus 12", "detail", "HTTP 503");
+        }
+
+        try (ProgressJournal journal = new ProgressJournal(file)) {
+            assertTrue(journal.isCompleted("Pixel 8"));
+            assertEquals("Pixel_8.json", journal.get("Pixel 8").detail);
+            assertEquals("pictures", journal.get("iPhone 15").stage);
+            assertFalse(journal.isCompleted("iPhone 15"));
+            assertTrue(journal.get("OnePlus 12").isFailed());
+            assertEquals("HTTP 503", journal.get("OnePlus 12").detail);
+            assertNull(journal.get("Galaxy S24"));
+        }
+    }
+
+    @Test
+    void lineTornByACrashIsSkippedAndNotGluedToTheNext() throws IOException {
+        Path file = dir.resolve("progress.jsonl");
+        try (ProgressJournal journal = new ProgressJournal(file)) {
+            journal.completed("Pixel 8", "Pixel_8.json");
+            journal.completed("iPhone 15", "iPhone_15.json");
+        }
+        // Crash halfway through writing the second record
+        byte[] content = Files.readAllBytes(file);
+        int firstLineEnd = indexOf(content, (byte) '\n');
+        Files.write(file, Arrays.copyOf(content, firstLineEnd + 1 + 20));
+
+        try (ProgressJournal journal = new ProgressJournal(file)) {
+            assertTrue(journal.isCompleted("Pixel 8"));
+            assertNull(journal.get("iPhone 15"));
+            journal.completed("iPhone 15", "iPhone_15.json");
+        }
+
+        try (ProgressJournal journal = new ProgressJournal(file)) {
+            assertTrue(journal.isCompleted("Pixel 8"));
+            assertTrue(journal.isCompleted("iPhone 15"), "record after the torn line is readable");
+        }
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+    }
+
+    @Test
+    void lineTornInsideAMultiByteCharacterIsSkipped() throws IOException {
+        Path file = dir.resolve("progress.jsonl");
+        try (ProgressJournal journal = new ProgressJournal(file)) {
+            journal.completed("Pixel 8", "Pixel_8.json");
+        }
+        // Half of the two-byte 'é' at the very end of the file
+        byte[] torn = "{\"ts\":1,\"phone\":\"Galaxy S24\",\"event\":\"failed\",\"detail\":\"ré".getBytes(StandardCharsets.UTF_8);
+        Files.write(file, Arrays.copyOf(torn, torn.length - 1), StandardOpenOption.APPEND);
+
+        try (ProgressJournal journal = new ProgressJournal(file)) {
+            assertTrue(journal.isCompleted("Pixel 8"));
+            assertNull(journal.get("Galaxy S24"));
+        }
+    }
+
+    @Test
+    void resetForgetsEverything() throws IOException {
+        Path file = dir.resolve("progress.jsonl");
+        try (ProgressJournal journal = new ProgressJournal(file)) {
+            journal.completed("Pixel 8", "Pixel_8.json");
+            journal.reset();
+            assertNull(journal.get("Pixel 8"));
+            journal.stage("iPhone 15", "search");
+        }
+
+        try (ProgressJournal journal = new ProgressJournal(file)) {
+            assertNull(journal.get("Pixel 8"));
+            assertEquals("search", journal.get("iPhone 15").stage);
+        }
+    }
+
+    private static int indexOf(byte[] bytes, byte value) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
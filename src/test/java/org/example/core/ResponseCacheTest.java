@@ -0,0 +1,123 @@
+package org.example.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseCacheTest {
+    private static final String SEARCH_URL = "https://www.gsmarena.com/results.php3?sQuickSearch=yes&sName=pixel";
+    private static final String SPEC_URL = "https://www.gsmarena.com/google_pixel_8-12546.php";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void returnsWhatWasStored() throws IOException {
+        ResponseCache cache = new ResponseCache(dir, 1024 * 1024, ttl(1, 1));
+        cache.put(SPEC_URL, "us", "<html>pixel</html>");
+
+        assertEquals("<html>pixel</html>", cache.get(SPEC_URL, "us"));
+        assertNull(cache.get(SPEC_URL, "de"), "geo location is part of the key");
+    }
+
+    @Test
+    void equivalentUrlsShareAnEntry() throws IOException {
+        ResponseCache cache = new ResponseCache(dir, 1024 * 1024, ttl(1, 1));
+        cache.put("https://www.gsmarena.com/results.php3?sName=pixel&sQuickSearch=yes#top", "us", "results");
+
+        assertEquals("results", cache.get("HTTPS://WWW.GSMARENA.COM:443/results.php3?sQuickSearch=yes&sName=pixel", "us"));
+    }
+
+    @Test
+    void entriesExpirePerPageType() throws IOException {
+        ResponseCache cache = new ResponseCache(dir, 1024 * 1024, ttl(24 * 7, 24));
+        cache.put(SEARCH_URL, "us", "search");
+        cache.put(SPEC_URL, "us", "spec");
+
+        // Age both entries by two days; the index is rebuilt from file times on open
+        FileTime twoDaysAgo = FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.gz")) {
+            for (Path file : files) {
+                Files.setLastModifiedTime(file, twoDaysAgo);
+            }
+        }
+        ResponseCache reopened = new ResponseCache(dir, 1024 * 1024, ttl(24 * 7, 24));
+
+        assertEquals("search", reopened.get(SEARCH_URL, "us"));
+        assertNull(reopened.get(SPEC_URL, "us"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedOverBudget() throws IOException {
+        ResponseCache probe = new ResponseCache(dir.resolve("probe"), Long.MAX_VALUE, ttl(1, 1));
+        probe.put(url(0), "us", incompressible(0));
+        long entryBytes = probe.getTotalBytes();
+
+        // Room for two entries, not three
+        ResponseCache cache = new ResponseCache(dir.resolve("cache"), entryBytes * 2 + entryBytes / 2, ttl(1, 1));
+        cache.put(url(1), "us", incompressible(1));
+        cache.put(url(2), "us", incompressible(2));
+        assertNotNull(cache.get(url(1), "us"));
+        cache.put(url(3), "us", incompressible(3));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(url(1), "us"), "recently read entry is kept");
+        assertNull(cache.get(url(2), "us"), "least recently used entry is evicted");
+        assertNotNull(cache.get(url(3), "us"));
+        assertTrue(cache.getTotalBytes() <= entryBytes * 2 + entryBytes / 2);
+    }
+
+    @Test
+    void abortedWriterLeavesNoEntry() throws IOException {
+        ResponseCache cache = new ResponseCache(dir, 1024 * 1024, ttl(1, 1));
+        ResponseCache.EntryWriter writer = cache.openWriter(SPEC_URL, "us");
+        writer.write("<html>trunc");
+        writer.abort();
+        writer.close();
+
+        assertNull(cache.get(SPEC_URL, "us"));
+        assertEquals(0, cache.size());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            assertTrue(!files.iterator().hasNext(), "temp file removed");
+        }
+    }
+
+    private static Map<ResponseCache.PageType, Long> ttl(long searchHours, long specHours) {
+        Map<ResponseCache.PageType, Long> ttl = new EnumMap<>(ResponseCache.PageType.class);
+        ttl.put(ResponseCache.PageType.SEARCH, TimeUnit.HOURS.toMillis(searchHours));
+        ttl.put(ResponseCache.PageType.SPEC, TimeUnit.HOURS.toMillis(specHours));
+        ttl.put(ResponseCache.PageType.PICTURES, TimeUnit.HOURS.toMillis(searchHours));
+        ttl.put(ResponseCache.PageType.OTHER, TimeUnit.HOURS.toMillis(specHours));
+        return ttl;
+    }
+
+    private static String url(int i) {
+        return "https://www.gsmarena.com/phone_" + i + "-" + (1000 + i) + ".php";
+    }
+
+    /**
+     * Random letters, so every entry compresses to about the same size
+     */
+    private static String incompressible(long seed) {
+        Random random = new Random(seed);
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 4096; i++) {
+            body.append((char) ('a' + random.nextInt(26)));
+        }
+        return body.toString();
+    }
+}
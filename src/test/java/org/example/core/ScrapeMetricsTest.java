@@ -0,0 +1,123 @@
+package org.example.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScrapeMetricsTest {
+
+    @Test
+    void everyMetricHasHelpAndTypeBeforeItsSamples() {
+        ScrapeMetrics metrics = new ScrapeMetrics();
+        metrics.recordStage("search", System.nanoTime());
+        metrics.recordRequest(ScrapeMetrics.OXYLABS, 200);
+        metrics.recordError("detail");
+        metrics.recordPhone("saved");
+        metrics.recordHedge("sent");
+        metrics.recordCircuit(ScrapeMetrics.IMAGES, "open");
+        metrics.recordParked("download");
+        metrics.recordCacheHit();
+
+        List<String> lines = Arrays.asList(metrics.toPrometheus().split("\n"));
+        List<String> families = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.startsWith("# HELP ")) {
+                String name = line.split(" ")[2];
+                assertTrue(lines.get(i + 1).startsWith("# TYPE " + name + " "), "TYPE follows HELP for " + name);
+                families.add(name);
+            } else if (!line.startsWith("#")) {
+                String name = line.split("[{ ]")[0];
+                String family = families.get(families.size() - 1);
+                assertTrue(name.equals(family) || name.startsWith(family + "_"), line + " is not under " + family);
+                assertTrue(line.matches("[a-z_]+(\\{[a-z_]+=\"[^\"]*\"(,[a-z_]+=\"[^\"]*\")*})? [0-9.E+-]+"), line);
+            }
+        }
+
+        assertEquals(Arrays.asList("scraper_stage_duration_seconds", "scraper_requests_total", "scraper_bytes_total",
+                "scraper_errors_total", "scraper_phones_total", "scraper_hedges_total",
+                "scraper_circuit_transitions_total", "scraper_parked_total", "scraper_cache_hits_total",
+                "scraper_oxylabs_requests_per_phone", "scraper_start_time_seconds"), families);
+        assertTrue(lines.contains("# TYPE scraper_stage_duration_seconds histogram"));
+        assertTrue(lines.contains("# TYPE scraper_requests_total counter"));
+        assertTrue(lines.contains("# TYPE scraper_oxylabs_requests_per_phone gauge"));
+    }
+
+    @Test
+    void histogramBucketsAreCumulative() {
+        ScrapeMetrics metrics = new ScrapeMetrics();
+        long now = System.nanoTime();
+        // 2 ms, 40 ms, 40 ms, 3 s and 5 min; the last is above every bound
+        for (long millis : new long[]{2, 40, 40, 3000, 300_000}) {
+            metrics.recordStage("detail", now - TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        String text = metrics.toPrometheus();
+        assertTrue(text.contains("scraper_stage_duration_seconds_bucket{stage=\"detail\",le=\"0.001\"} 0\n"), text);
+        assertTrue(text.contains("scraper_stage_duration_seconds_bucket{stage=\"detail\",le=\"0.005\"} 1\n"));
+        assertTrue(text.contains("scraper_stage_duration_seconds_bucket{stage=\"detail\",le=\"0.05\"} 3\n"));
+        assertTrue(text.contains("scraper_stage_duration_seconds_bucket{stage=\"detail\",le=\"2.5\"} 3\n"));
+        assertTrue(text.contains("scraper_stage_duration_seconds_bucket{stage=\"detail\",le=\"5.0\"} 4\n"));
+        assertTrue(text.contains("scraper_stage_duration_seconds_bucket{stage=\"detail\",le=\"120.0\"} 4\n"));
+        assertTrue(text.contains("scraper_stage_duration_seconds_bucket{stage=\"detail\",le=\"+Inf\"} 5\n"));
+        assertTrue(text.contains("scraper_stage_duration_seconds_count{stage=\"detail\"} 5\n"));
+
+        String sum = text.substring(text.indexOf("scraper_stage_duration_seconds_sum{stage=\"detail\"} "));
+        double seconds = Double.parseDouble(sum.substring(sum.indexOf("} ") + 2, sum.indexOf('\n')));
+        assertTrue(seconds >= 303.082 && seconds < 304, "sum " + seconds);
+
+        // The buckets of a stage never decrease
+        long previous = -1;
+        for (String line : text.split("\n")) {
+            if (line.startsWith("scraper_stage_duration_seconds_bucket{stage=\"detail\"")) {
+                long value = Long.parseLong(line.substring(line.lastIndexOf(' ') + 1));
+                assertTrue(value >= previous, line);
+                previous = value;
+            }
+        }
+    }
+
+    @Test
+    void countersCarryTheirLabels() throws IOException {
+        ScrapeMetrics metrics = new ScrapeMetrics();
+        metrics.recordRequest(ScrapeMetrics.OXYLABS, 200);
+        metrics.recordRequest(ScrapeMetrics.OXYLABS, 200);
+        metrics.recordRequest(ScrapeMetrics.OXYLABS, "SocketTimeoutException");
+        metrics.recordRequest(ScrapeMetrics.IMAGES, 404);
+        metrics.recordBytesOut(ScrapeMetrics.OXYLABS, 120);
+        try (InputStream in = metrics.countBytesIn(new ByteArrayInputStream(new byte[1000]), ScrapeMetrics.OXYLABS)) {
+            in.read();
+            in.readAllBytes();
+        }
+        metrics.recordPhone("saved");
+        metrics.recordPhone("unchanged");
+        metrics.recordPhone("failed");
+        metrics.recordCircuit(ScrapeMetrics.OXYLABS, "half_open");
+        metrics.recordError("say \"hi\"\\");
+
+        String text = metrics.toPrometheus();
+        assertTrue(text.contains("scraper_requests_total{upstream=\"oxylabs\",status=\"200\"} 2\n"), text);
+        assertTrue(text.contains("scraper_requests_total{upstream=\"oxylabs\",status=\"SocketTimeoutException\"} 1\n"));
+        assertTrue(text.contains("scraper_requests_total{upstream=\"images\",status=\"404\"} 1\n"));
+        assertTrue(text.contains("scraper_bytes_total{upstream=\"oxylabs\",direction=\"in\"} 1000\n"));
+        assertTrue(text.contains("scraper_bytes_total{upstream=\"oxylabs\",direction=\"out\"} 120\n"));
+        assertTrue(text.contains("scraper_phones_total{outcome=\"saved\"} 1\n"));
+        assertTrue(text.contains("scraper_circuit_transitions_total{upstream=\"oxylabs\",state=\"half_open\"} 1\n"));
+        assertTrue(text.contains("scraper_errors_total{stage=\"say \\\"hi\\\"\\\\\"} 1\n"), "label values are escaped");
+        assertTrue(text.contains("scraper_cache_hits_total 0\n"));
+        // Three Oxylabs requests for one saved and one unchanged phone
+        assertTrue(text.contains("scraper_oxylabs_requests_per_phone 1.5\n"));
+
+        assertEquals(3, metrics.requestCount(ScrapeMetrics.OXYLABS));
+        assertEquals(1, metrics.phoneCount("failed"));
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.core;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SearchResultMatcherTest {
+
+    @Test
+    void prefersTheBaseModelOverVariantsListedFirst() {
+        SearchResultMatcher.Match match = SearchResultMatcher.bestMatch("Samsung S24", page(
+                "Samsung|Galaxy S24 Ultra", "Samsung|Galaxy S24+", "Samsung|Galaxy S24", "Samsung|Galaxy S24 FE"));
+
+        assertEquals("Samsung Galaxy S24", match.name);
+        assertEquals(2, match.rank);
+        assertEquals("samsung_device-2.php", match.url);
+    }
+
+    @Test
+    void picksTheVariantTheQueryAsksFor() {
+        assertEquals("Samsung Galaxy S24 Ultra", best("Samsung S24 Ultra",
+                "Samsung|Galaxy S24 Ultra", "Samsung|Galaxy S24+", "Samsung|Galaxy S24"));
+        assertEquals("Apple iPhone 15 Pro Max", best("iPhone 15 Pro Max",
+                "Apple|iPhone 15 Pro", "Apple|iPhone 15 Pro Max", "Apple|iPhone 15"));
+        assertEquals("Xiaomi Redmi Note 13 Pro+ 5G", best("Redmi Note 13 Pro +",
+                "Xiaomi|Redmi Note 13 Pro", "Xiaomi|Redmi Note 13 Pro+ 5G", "Xiaomi|Redmi Note 13 Pro 5G"));
+    }
+
+    @Test
+    void brandAliasesAreNotPenalised() {
+        assertEquals("Google Pixel 8", best("Pixel 8", "Google|Pixel 8 Pro", "Google|Pixel 8", "Google|Pixel 8a"));
+        assertEquals("vivo iQOO Z9", best("iQOO Z9", "vivo|iQOO Z9s", "vivo|iQOO Z9", "vivo|iQOO Z9 Turbo"));
+    }
+
+    @Test
+    void fiveGIsOnlyATieBreaker() {
+        assertEquals("Motorola Moto G85", best("Motorola G85", "Motorola|Moto G85", "Motorola|Moto G85 5G"));
+        // When only the 5G model exists it still wins over an unrelated device
+        assertEquals("Motorola Moto G85 5G", best("Motorola G85", "Motorola|Moto G84", "Motorola|Moto G85 5G"));
+    }
+
+    @Test
+    void tiesKeepGsmArenasOrder() {
+        SearchResultMatcher.Match match = SearchResultMatcher.bestMatch("Acme Phone", page("Acme|Phone X", "Acme|Phone Y"));
+
+        assertEquals(0, match.rank);
+    }
+
+    @Test
+    void rewritesQueriesGsmArenaDoesNotKnow() {
+        assertEquals("nothing cmf Phone 1", SearchResultMatcher.searchQuery("CMF by Nothing Phone 1"));
+        assertEquals("Nothing CMF Phone 1", best("CMF by Nothing Phone 1", "Nothing|CMF Phone 1"));
+        assertEquals("Pixel 8", SearchResultMatcher.searchQuery("  Pixel 8 "));
+    }
+
+    @Test
+    void tokenizesPlusAsAWord() {
+        assertEquals(List.of("galaxy", "s24", "plus"), SearchResultMatcher.tokenize("Galaxy S24+"));
+        assertEquals(SearchResultMatcher.tokenize("Pro Plus"), SearchResultMatcher.tokenize("Pro+"));
+    }
+
+    @Test
+    void emptyResultPageHasNoMatch() {
+        assertNull(SearchResultMatcher.bestMatch("Pixel 8", Jsoup.parse("<div class=\"makers\"><ul></ul></div>")));
+    }
+
+    private static String best(String query, String... results) {
+        return SearchResultMatcher.bestMatch(query, page(results)).name;
+    }
+
+    /**
+     * A GSMArena results page; "Brand|Model" becomes the two-line name the site shows
+     */
+    private static Document page(String... results) {
+        StringBuilder html = new StringBuilder("<div class=\"makers\"><ul>");
+        for (int i = 0; i < results.length; i++) {
+            String[] parts = results[i].split("\\|");
+            html.append("<li><a href=\"").append(parts[0].toLowerCase()).append("_device-").append(i).append(".php\">")
+                    .append("<img src=\"x.jpg\"><strong><span>").append(parts[0]).append("<br>").append(parts[1])
+                    .append("</span></strong></a></li>");
+        }
+        return Jsoup.parse(html.append("</ul></div>").toString());
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.core;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpecNormalizerTest {
+
+    @Test
+    void readsDisplayInches() {
+        assertEquals(6.72f, normalize("Display", "Size", "6.72 inches, 109.0 cm2 (~86.8% screen-to-body ratio)").displayInches);
+        assertEquals(6.1f, SpecNormalizer.normalize(new JSONObject().put("displaysize-hl", "6.1\"")).displayInches,
+                "falls back to the spotlight value");
+        assertTrue(Float.isNaN(normalize("Display", "Size", "Unknown").displayInches));
+    }
+
+    @Test
+    void readsBatteryMah() {
+        assertEquals(5000, normalize("Battery", "Type", "Li-Po 5000 mAh, non-removable").batteryMah);
+        assertEquals(4500, normalize("Battery", "Type", "Li-Ion 4500 mAh.").batteryMah);
+        assertEquals(4410, SpecNormalizer.normalize(new JSONObject().put("batsize-hl", "4410")).batteryMah);
+        assertEquals(0, normalize("Battery", "Type", "Removable Li-Ion battery").batteryMah);
+    }
+
+    @Test
+    void splitsMemoryVariants() {
+        PhoneSpec spec = normalize("Memory", "Internal", "128GB 8GB RAM, 256GB 8GB RAM, 1TB 12GB RAM");
+
+        assertArrayEquals(new float[]{128, 256, 1024}, spec.storageGb);
+        assertArrayEquals(new float[]{8, 8, 12}, spec.ramGb);
+        assertEquals(12f, spec.getMaxRamGb());
+        assertEquals(1024f, spec.getMaxStorageGb());
+    }
+
+    @Test
+    void memoryVariantsWithoutRamOrInMegabytes() {
+        PhoneSpec storageOnly = normalize("Memory", "Internal", "64GB, 128GB");
+        assertArrayEquals(new float[]{64, 128}, storageOnly.storageGb);
+        assertTrue(Float.isNaN(storageOnly.ramGb[0]) && Float.isNaN(storageOnly.ramGb[1]));
+
+        PhoneSpec megabytes = normalize("Memory", "Internal", "4GB 512MB RAM");
+        assertArrayEquals(new float[]{4}, megabytes.storageGb);
+        assertArrayEquals(new float[]{0.5f}, megabytes.ramGb);
+
+        assertEquals(0, normalize("Memory", "Internal", "microSDXC (dedicated slot)").storageGb.length);
+    }
+
+    @Test
+    void readsReleaseDates() {
+        assertEquals("2024-01-24", normalize("Launch", "Status", "Available. Released 2024, January 24").getReleaseDate());
+        assertEquals("2023-03", normalize("Launch", "Status", "Available. Released 2023, March").getReleaseDate());
+        assertEquals("2021", normalize("Launch", "Status", "Discontinued. Released 2021").getReleaseDate());
+        assertEquals("2022-10-13", SpecNormalizer.normalize(new JSONObject().put("released-hl", "Released 2022, October 13"))
+                .getReleaseDate());
+    }
+
+    @Test
+    void fallsBackToAnnouncementDate() {
+        JSONObject launch = new JSONObject()
+                .put("Announced", "2024, September 09")
+                .put("Status", "Coming soon. Exp. release 2025, Q1");
+        PhoneSpec spec = SpecNormalizer.normalize(details(new JSONObject().put("Launch", launch)));
+
+        assertEquals("2024-09-09", spec.getReleaseDate());
+    }
+
+    @Test
+    void gramsAreNotConfusedWithGigabytes() {
+        assertEquals(187f, normalize("Body", "Weight", "187 g (6.60 oz)").weightGrams);
+        assertEquals(190f, normalize("Body", "Weight", "8GB variant 190 g").weightGrams);
+    }
+
+    @Test
+    void splitsChipsetAndProcess() {
+        PhoneSpec spec = normalize("Platform", "Chipset", "Qualcomm SM8650-AB Snapdragon 8 Gen 3 (4 nm)");
+
+        assertEquals("Qualcomm SM8650-AB Snapdragon 8 Gen 3", spec.chipset);
+        assertEquals(4, spec.chipsetNm);
+    }
+
+    @Test
+    void missingSpecsStayUnset() {
+        PhoneSpec spec = SpecNormalizer.normalize(new JSONObject().put("name", "Acme Phone 1"));
+
+        assertEquals("Acme Phone 1", spec.name);
+        assertTrue(Float.isNaN(spec.displayInches));
+        assertEquals(0, spec.batteryMah);
+        assertEquals(0, spec.storageGb.length);
+        assertNull(spec.getReleaseDate());
+        assertNull(spec.chipset);
+    }
+
+    private static PhoneSpec normalize(String category, String title, String value) {
+        return SpecNormalizer.normalize(details(new JSONObject().put(category, new JSONObject().put(title, value))));
+    }
+
+    private static JSONObject details(JSONObject specifications) {
+        return new JSONObject().put("name", "Acme Phone 1").put("brand", "acme").put("specifications", specifications);
+    }
+}
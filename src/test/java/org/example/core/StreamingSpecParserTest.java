@@ -0,0 +1,98 @@
+package org.example.core;
+
+import org.json.JSONObject;
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.Test;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingSpecParserTest {
+
+    @Test
+    void realPageParsesLikeTheFullDocument() throws IOException {
+        String page = fixture("detail.html");
+        JSONObject dom = PhoneDataParser.parsePhoneDetails(PhoneDataParser.parseDocument(new StringReader(page)));
+        JSONObject streamed = parseStreamed(new StringReader(page));
+
+        assertTrue(dom.has("name") && dom.has("specifications"), "fixture parses at all");
+        assertSame(dom, streamed);
+    }
+
+    @Test
+    void sectionsSplitAcrossReadsAreKept() throws IOException {
+        String page = fixture("detail.html");
+        JSONObject dom = PhoneDataParser.parsePhoneDetails(PhoneDataParser.parseDocument(new StringReader(page)));
+
+        assertSame(dom, parseStreamed(new TrickleReader(new StringReader(page))));
+    }
+
+    @Test
+    void ignoresLookalikesInCommentsScriptsAndAttributes() throws IOException {
+        String page = "<html><head><script>var t = '<div id=\"specs-list\"><table><tr><th>Fake</th></tr></table></div>';</script></head>"
+                + "<body><!-- <h1 class=\"specs-phone-name-title\">Commented Out</h1> -->"
+                + "<div class=\"ad\" data-x=\"a > b\"><div>noise</div></div>"
+                + "<h1 class=\"specs-phone-name-title\" data-test=\"x>y\">Acme Phone 1</h1>"
+                + "<div class=\"specs-photo-main\"><a href=\"#\"><img src=\"https://fdn2.gsmarena.com/vv/bigpic/acme-phone-1.jpg\"></a></div>"
+                + "<div id=\"specs-list\"><table><tr><th rowspan=\"2\">Display</th><td class=\"ttl\">Size</td>"
+                + "<td class=\"nfo\">6.1 inches<br>, 90.2 cm<sup>2</sup></td></tr>"
+                + "<tr><td class=\"ttl\"><div>Type</div></td><td class=\"nfo\">OLED</td></tr></table>"
+                + "<table><tr><th>Battery</th><td class=\"ttl\">Type</td><td class=\"nfo\">4000 mAh</td></tr></table></div>"
+                + "<div id=\"user-comments\"><h1 class=\"specs-phone-name-title\">Not the phone</h1></div>"
+                + "</body></html>";
+
+        JSONObject dom = PhoneDataParser.parsePhoneDetails(PhoneDataParser.parseDocument(new StringReader(page)));
+        JSONObject streamed = parseStreamed(new StringReader(page));
+
+        assertSame(dom, streamed);
+        String sections = StreamingSpecParser.extractSpecSections(new StringReader(page));
+        assertFalse(sections.contains("Fake"));
+        assertFalse(sections.contains("Commented Out"));
+        assertFalse(sections.contains("noise"));
+    }
+
+    @Test
+    void pageWithoutSectionsGivesEmptyDetails() throws IOException {
+        String page = "<html><body><p>Not a phone page</p></body></html>";
+
+        assertSame(PhoneDataParser.parsePhoneDetails(PhoneDataParser.parseDocument(new StringReader(page))),
+                parseStreamed(new StringReader(page)));
+    }
+
+    private static JSONObject parseStreamed(Reader page) throws IOException {
+        return PhoneDataParser.parsePhoneDetails(Jsoup.parse(StreamingSpecParser.extractSpecSections(page)));
+    }
+
+    private static void assertSame(JSONObject expected, JSONObject actual) {
+        assertTrue(expected.similar(actual), "expected " + expected.toString(2) + "\nbut was " + actual.toString(2));
+    }
+
+    private static String fixture(String name) throws IOException {
+        try (InputStream in = StreamingSpecParserTest.class.getResourceAsStream("/fixtures/" + name)) {
+            assertNotNull(in, "missing fixture " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Hands out at most 7 characters per read, so tags and sections straddle buffer refills
+     */
+    private static class TrickleReader extends FilterReader {
+        TrickleReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            return super.read(cbuf, off, Math.min(len, 7));
+        }
+    }
+}